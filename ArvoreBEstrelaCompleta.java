@@ -5,58 +5,31 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-
-// --- Classe ItemProduto (Modelo de Dados) ---
-// Representa um produto com ID, nome e categoria
-// (Replicado aqui para que o arquivo seja autocontido)
-class ItemProduto {
-    private int idItem;
-    private String nomeItem;
-    private String categoriaItem;
-
-    public ItemProduto(int idItem, String nomeItem, String categoriaItem) {
-        this.idItem = idItem;
-        this.nomeItem = nomeItem;
-        this.categoriaItem = categoriaItem;
-    }
-
-    public int obterId() {
-        return idItem;
-    }
-
-    public String obterNome() {
-        return nomeItem;
-    }
-
-    public String obterCategoria() {
-        return categoriaItem;
-    }
-
-    @Override
-    public String toString() {
-        return "ID: " + idItem + ", Nome: " + nomeItem + ", Categoria: " + categoriaItem;
-    }
-
-    // Formata a informação do produto para ser armazenada como valor na árvore
-    public String obterInfoParaArvore() {
-        return nomeItem + ", " + categoriaItem;
-    }
-}
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 
 // --- CLASSE DE NÓ PARA ÁRVORE B* ---
 
-// Um nó da árvore B*, que pode ser um nó folha ou um nó interno
-class NoBEstrela {
+// Um nó da árvore B*, que pode ser um nó folha ou um nó interno. A versão herdada só muda com os
+// leitores concorrentes ativos.
+class NoBEstrela extends NoVersionado {
     protected List<Integer> chaves;       // Identificadores dos itens armazenados no nó
     protected List<String> valores;      // Informações dos itens associadas às chaves
     protected List<NoBEstrela> descendentes; // Lista de nós filhos (nulo para nós folha)
     protected boolean ehFolha;           // Indica se o nó é uma folha (true) ou um nó interno (false)
-    protected NoBEstrela pai;         // Referência para o nó pai
     protected int maxChaves;              // Número máximo de chaves que um nó pode conter
-    protected int minChaves;              // Número mínimo de chaves que um nó deve conter (2/3 da capacidade)
+    protected int minChaves;              // Número mínimo de chaves que um nó deve conter (2/3 da capacidade, arredondado para baixo)
+    // Limites de cerca: as chaves do nó e da subárvore ficam estritamente entre eles, como
+    // reservado pelos separadores dos ancestrais. Permitem podar subárvores sem olhar as chaves.
+    protected long limiteInferior = Long.MIN_VALUE;
+    protected long limiteSuperior = Long.MAX_VALUE;
 
     public NoBEstrela(int maxChaves, boolean ehFolha) {
         this.chaves = new ArrayList<>();
@@ -64,8 +37,7 @@ class NoBEstrela {
         this.descendentes = ehFolha ? null : new ArrayList<>();
         this.ehFolha = ehFolha;
         this.maxChaves = maxChaves;
-        this.minChaves = (int) Math.ceil((maxChaves * 2.0) / 3.0); // Cálculo de 2/3 da capacidade
-        this.pai = null;
+        this.minChaves = 2 * maxChaves / 3; // O que a divisão 2-para-3 garante a cada um dos três nós
     }
 
     public boolean estaCheio() {
@@ -81,22 +53,19 @@ class NoBEstrela {
     }
 
     public void inserirChaveValor(int chave, String valor) {
-        int posInsercao = 0;
-        while (posInsercao < chaves.size() && chaves.get(posInsercao) < chave) {
-            posInsercao++;
-        }
+        int posInsercao = encontrarIndiceFilho(chave);
         chaves.add(posInsercao, chave);
         valores.add(posInsercao, valor);
     }
 
     public String buscarValor(int chave) {
-        int indice = chaves.indexOf(chave);
-        return indice != -1 ? valores.get(indice) : null;
+        int indice = encontrarIndiceFilho(chave);
+        return indice < chaves.size() && chaves.get(indice) == chave ? valores.get(indice) : null;
     }
 
     public boolean removerChaveValor(int chave) {
-        int indice = chaves.indexOf(chave);
-        if (indice != -1) {
+        int indice = encontrarIndiceFilho(chave);
+        if (indice < chaves.size() && chaves.get(indice) == chave) {
             chaves.remove(indice);
             valores.remove(indice);
             return true;
@@ -104,437 +73,946 @@ class NoBEstrela {
         return false;
     }
 
+    // Posição da primeira chave >= 'chave', que também é o índice do filho a seguir (busca binária)
     public int encontrarIndiceFilho(int chave) {
-        int i = 0;
-        while (i < chaves.size() && chave > chaves.get(i)) {
-            i++;
+        int inicio = 0;
+        int fim = chaves.size();
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (chaves.get(meio) < chave) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
         }
-        return i;
+        return inicio;
     }
 
     public List<Integer> obterChaves() { return chaves; }
     public List<String> obterValores() { return valores; }
     public List<NoBEstrela> obterDescendentes() { return descendentes; }
     public boolean ehFolha() { return ehFolha; }
-    public NoBEstrela obterPai() { return pai; }
-    public void definirPai(NoBEstrela pai) { this.pai = pai; }
+    public long obterLimiteInferior() { return limiteInferior; }
+    public long obterLimiteSuperior() { return limiteSuperior; }
+
+    public void definirLimites(long limiteInferior, long limiteSuperior) {
+        this.limiteInferior = limiteInferior;
+        this.limiteSuperior = limiteSuperior;
+    }
+}
+
+// --- VERIFICAÇÃO ESTRUTURAL DA ÁRVORE B* ---
+
+// Percorre a árvore verificando ordenação das chaves, separadores, limites de cerca,
+// profundidade das folhas e a ocupação mínima de 2/3. Não altera a árvore, então pode ser
+// usado tanto na árvore em uso quanto numa carregada só para diagnóstico.
+class AnalisadorArvoreBEstrela {
+    private final ArvoreBEstrelaCompleta arvore;
+    private final int maxChaves;
+    private final RelatorioEstrutura relatorio = new RelatorioEstrutura("ArvoreBEstrela");
+    private int profundidadeFolhas = -1;
+
+    public AnalisadorArvoreBEstrela(ArvoreBEstrelaCompleta arvore) {
+        this.arvore = arvore;
+        this.maxChaves = arvore.obterMaxChaves();
+    }
+
+    public RelatorioEstrutura analisar() {
+        NoBEstrela raiz = arvore.obterRaiz();
+        if (raiz == null) {
+            relatorio.registrarViolacao("Raiz nula: a árvore ficou inutilizável após esvaziar");
+            relatorio.definirEstatisticas(arvore.coletarEstatisticas());
+            return relatorio;
+        }
+        verificarNo(raiz, 0, Long.MIN_VALUE, Long.MAX_VALUE);
+        relatorio.definirEstatisticas(arvore.coletarEstatisticas());
+        return relatorio;
+    }
+
+    // Na B* as chaves dos nós internos também são itens, então os descendentes
+    // ficam estritamente entre os separadores: (limiteInferior, limiteSuperior)
+    private void verificarNo(NoBEstrela no, int nivel, long limiteInferior, long limiteSuperior) {
+        List<Integer> chaves = no.obterChaves();
+        String descricao = descrever(no, nivel);
+        int capacidade = no == arvore.obterRaiz() ? arvore.obterCapacidadeRaiz() : maxChaves;
+        relatorio.registrarNo(nivel, chaves.size(), capacidade);
+        if (no.obterLimiteInferior() != limiteInferior || no.obterLimiteSuperior() != limiteSuperior) {
+            relatorio.registrarViolacao(descricao + ": limites de cerca (" + formatarLimite(no.obterLimiteInferior()) + ", "
+                    + formatarLimite(no.obterLimiteSuperior()) + ") diferentes dos separadores ("
+                    + formatarLimite(limiteInferior) + ", " + formatarLimite(limiteSuperior) + ")");
+        }
+
+        for (int i = 0; i < chaves.size(); i++) {
+            int chave = chaves.get(i);
+            if (i > 0 && chaves.get(i - 1) >= chave) {
+                relatorio.registrarViolacao(descricao + ": chaves fora de ordem (" + chaves.get(i - 1) + " >= " + chave + ")");
+            }
+            if (chave <= limiteInferior || chave >= limiteSuperior) {
+                relatorio.registrarViolacao(descricao + ": chave " + chave + " fora do intervalo do separador ("
+                        + formatarLimite(limiteInferior) + ", " + formatarLimite(limiteSuperior) + ")");
+            }
+        }
+        if (no.obterValores().size() != chaves.size()) {
+            relatorio.registrarViolacao(descricao + ": " + chaves.size() + " chaves e " + no.obterValores().size() + " valores");
+        }
+        if (chaves.size() > capacidade) {
+            relatorio.registrarViolacao(descricao + ": acima da capacidade (" + chaves.size() + " chaves)");
+        }
+        if (no != arvore.obterRaiz() && !no.temMinimoDeChaves()) {
+            relatorio.registrarViolacao(descricao + ": abaixo da ocupação mínima de 2/3 (" + chaves.size() + " chaves)");
+        }
+
+        if (no.ehFolha()) {
+            if (profundidadeFolhas == -1) {
+                profundidadeFolhas = nivel;
+            } else if (profundidadeFolhas != nivel) {
+                relatorio.registrarViolacao(descricao + ": folha no nível " + nivel + ", esperado " + profundidadeFolhas);
+            }
+            return;
+        }
+
+        List<NoBEstrela> descendentes = no.obterDescendentes();
+        if (descendentes.size() != chaves.size() + 1) {
+            relatorio.registrarViolacao(descricao + ": " + chaves.size() + " chaves e " + descendentes.size() + " descendentes");
+        }
+        for (int i = 0; i < descendentes.size(); i++) {
+            NoBEstrela descendente = descendentes.get(i);
+            long inferior = i == 0 ? limiteInferior : (i - 1 < chaves.size() ? chaves.get(i - 1) : limiteSuperior);
+            long superior = i < chaves.size() ? chaves.get(i) : limiteSuperior;
+            verificarNo(descendente, nivel + 1, inferior, superior);
+        }
+    }
+
+    private static String descrever(NoBEstrela no, int nivel) {
+        String tipo = no.ehFolha() ? "Folha" : "Nó interno";
+        String primeira = no.obterChaves().isEmpty() ? "vazio" : "primeira chave " + no.obterChaves().get(0);
+        return tipo + " (nível " + nivel + ", " + primeira + ")";
+    }
+
+    private static String formatarLimite(long limite) {
+        if (limite == Long.MIN_VALUE) return "-inf";
+        if (limite == Long.MAX_VALUE) return "+inf";
+        return String.valueOf(limite);
+    }
 }
 
 // --- CLASSE ARVORE B* (Principal da Implementação) ---
-public class ArvoreBEstrelaCompleta {
-    private NoBEstrela raiz;
+public class ArvoreBEstrelaCompleta implements IndiceOrdenado {
+    private volatile NoBEstrela raiz; // Volátil para os leitores concorrentes verem a troca de raiz
     private int maxChaves;
+    private int capacidadeRaiz; // A raiz não tem irmãos: cresce até 2 * mínimo para se dividir em dois nós já com 2/3
+    private MetricasArvore metricas; // Nulo enquanto as métricas estão desativadas
+    private RastreadorOperacoes rastreador; // Nulo enquanto o rastreamento de latência está desativado
+    private volatile FiltroBloom filtro; // Nulo enquanto o filtro de chaves ausentes está desativado
+    private double taxaFiltro;
+    private int remocoesDesdeFiltro; // Chaves removidas que ainda marcam bits no filtro
+    private RegistroAlteracoes alteracoes; // Nulo enquanto o modo de leitores concorrentes está desativado
+    // Caminho da última descida de escrita: ancestrais[i] é o nó do nível i e posicoes[i] o
+    // índice do descendente seguido nele. Redistribuições, divisões e fusões sobem por ele em
+    // vez de procurar o nó na lista do pai.
+    private NoBEstrela[] ancestrais = new NoBEstrela[8];
+    private int[] posicoes = new int[8];
+    private int profundidade; // Quantidade de ancestrais no caminho
 
     private static final int ORDEM_ARVORE = 3; // Ordem para a árvore B*
+    private static final int DISTANCIA_REDISTRIBUICAO = 2; // Até que irmão se procura espaço antes de dividir
     private static final String NOME_ARQUIVO_DADOS = "produtos_corrigido.txt"; // Arquivo de dados
 
     public ArvoreBEstrelaCompleta() {
-        this.maxChaves = ORDEM_ARVORE - 1; // Para ordem 3, maxChaves = 2
+        this(ORDEM_ARVORE);
+    }
+
+    public ArvoreBEstrelaCompleta(int ordem) { // Ordem 'm' da árvore, a partir de 3
+        this.maxChaves = ordem - 1; // Para ordem 3, maxChaves = 2
+        this.capacidadeRaiz = 2 * (2 * maxChaves / 3);
         this.raiz = new NoBEstrela(maxChaves, true);
     }
 
-    private NoBEstrela encontrarNoAlvo(int chave) {
+    // Desce até o nó que contém a chave ou, se ela não existe, até a folha onde entraria,
+    // guardando o caminho (ancestrais e índices seguidos) para o rebalanceamento
+    private NoBEstrela descerParaEscrita(int chave) {
         NoBEstrela atual = raiz;
-        while (!atual.ehFolha()) {
-            int indiceFilho = atual.encontrarIndiceFilho(chave);
-            atual = atual.obterDescendentes().get(indiceFilho);
+        profundidade = 0;
+        while (true) {
+            int indice = atual.encontrarIndiceFilho(chave);
+            if (atual.ehFolha() || (indice < atual.obterChaves().size() && atual.obterChaves().get(indice) == chave)) {
+                return atual;
+            }
+            empilhar(atual, indice);
+            atual = atual.obterDescendentes().get(indice);
         }
-        return atual;
     }
 
-    private NoBEstrela encontrarNoComChave(NoBEstrela noAtual, int chave) {
-        if (noAtual.obterChaves().contains(chave)) {
-            return noAtual;
-        }
-        if (noAtual.ehFolha()) {
-            return null;
-        }
-        int indiceFilho = noAtual.encontrarIndiceFilho(chave);
-        if (indiceFilho >= noAtual.obterDescendentes().size()) {
-             return null;
+    private void empilhar(NoBEstrela no, int indice) {
+        if (profundidade == ancestrais.length) {
+            ancestrais = Arrays.copyOf(ancestrais, profundidade * 2);
+            posicoes = Arrays.copyOf(posicoes, profundidade * 2);
         }
-        return encontrarNoComChave(noAtual.obterDescendentes().get(indiceFilho), chave);
+        ancestrais[profundidade] = no;
+        posicoes[profundidade] = indice;
+        profundidade++;
     }
 
     public void inserirItem(int chave, String valor) {
-        NoBEstrela noAlvo = encontrarNoAlvo(chave);
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        NoBEstrela noAlvo = descerParaEscrita(chave);
+        int visitados = profundidade + 1;
+        if (metricas != null) metricas.registrarInsercao(visitados);
+
+        int posicao = noAlvo.encontrarIndiceFilho(chave);
+        marcar(noAlvo);
+        if (posicao < noAlvo.obterChaves().size() && noAlvo.obterChaves().get(posicao) == chave) {
+            // A chave já existe, numa folha ou num nó interno: só troca o valor
+            noAlvo.obterValores().set(posicao, valor);
+            liberarMarcas();
+        } else {
+            // O filtro recebe a chave antes do nó: um leitor concorrente que já a veja na árvore
+            // não pode ser barrado por ele
+            if (filtro != null) {
+                filtro.adicionar(chave);
+            }
+            noAlvo.obterChaves().add(posicao, chave);
+            noAlvo.obterValores().add(posicao, valor);
 
-        if (noAlvo.buscarValor(chave) != null) {
-            int indice = noAlvo.obterChaves().indexOf(chave);
-            noAlvo.obterValores().set(indice, valor);
-            return;
+            if (transbordou(noAlvo)) {
+                lidarComTransbordamento(profundidade - 1, noAlvo);
+            }
+            liberarMarcas();
+            if (filtro != null && filtro.estaSaturado()) {
+                reconstruirFiltro();
+            }
         }
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INSERCAO, System.nanoTime() - inicio, visitados);
+        }
+    }
 
-        noAlvo.inserirChaveValor(chave, valor);
-
-        if (noAlvo.estaCheio()) {
-            lidarComTransbordamento(noAlvo);
+    // Troca o valor só se a chave existe, sem inserir; devolve se ela existia
+    public boolean atualizarItem(int chave, String valor) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        boolean atualizado = false;
+        int visitados = 0;
+        if (filtro == null || filtro.podeConter(chave)) {
+            NoBEstrela noAlvo = descerParaEscrita(chave);
+            visitados = profundidade + 1;
+            int posicao = noAlvo.encontrarIndiceFilho(chave);
+            if (posicao < noAlvo.obterChaves().size() && noAlvo.obterChaves().get(posicao) == chave) {
+                marcar(noAlvo);
+                noAlvo.obterValores().set(posicao, valor);
+                liberarMarcas();
+                atualizado = true;
+            }
         }
+        if (metricas != null) metricas.registrarInsercao(visitados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INSERCAO, System.nanoTime() - inicio, visitados);
+        }
+        return atualizado;
     }
 
-    private void lidarComTransbordamento(NoBEstrela no) {
-        if (no == raiz) {
+    // 'no' é o descendente do ancestral 'nivel' do caminho (-1: é a raiz) e passou da capacidade.
+    // Primeiro tenta repartir as chaves com um irmão próximo que tenha espaço; se os irmãos estão
+    // cheios, o nó e um irmão viram três nós com 2/3 da capacidade (divisão 2-para-3 da B*).
+    private void lidarComTransbordamento(int nivel, NoBEstrela no) {
+        if (nivel < 0) {
             dividirRaiz();
             return;
         }
-        if (tentarRedistribuir(no)) {
+        NoBEstrela paiNo = ancestrais[nivel];
+        int indiceNo = posicoes[nivel];
+        int destino = procurarIrmao(paiNo, indiceNo, true);
+        if (destino >= 0) {
+            repartir(paiNo, Math.min(indiceNo, destino), Math.abs(indiceNo - destino) + 1, Math.abs(indiceNo - destino) + 1);
+            if (metricas != null) metricas.registrarRedistribuicao();
             return;
         }
-        dividirNo(no);
+        if (metricas != null) {
+            metricas.registrarRedistribuicaoSemSucesso();
+            metricas.registrarDivisao();
+        }
+        repartir(paiNo, Math.min(indiceNo, paiNo.obterDescendentes().size() - 2), 2, 3);
+        if (transbordou(paiNo)) {
+            lidarComTransbordamento(nivel - 1, paiNo);
+        }
     }
 
-    private boolean tentarRedistribuir(NoBEstrela no) {
-        NoBEstrela paiNo = no.obterPai();
-        if (paiNo == null) {
-            return false;
-        }
+    // A raiz não tem irmãos: passa a ser o único descendente de uma nova raiz e se divide em dois
+    private void dividirRaiz() {
+        if (metricas != null) metricas.registrarDivisao();
+        NoBEstrela novaRaiz = new NoBEstrela(maxChaves, false);
+        marcar(novaRaiz); // Publicada vazia de chaves; os leitores esperam o fim da divisão
+        novaRaiz.obterDescendentes().add(raiz);
+        raiz = novaRaiz;
+        repartir(novaRaiz, 0, 1, 2);
+    }
 
-        int indiceNo = paiNo.obterDescendentes().indexOf(no);
+    private boolean transbordou(NoBEstrela no) {
+        return no.obterChaves().size() > (no == raiz ? capacidadeRaiz : maxChaves);
+    }
 
-        if (indiceNo > 0) {
-            NoBEstrela irmaoEsquerda = paiNo.obterDescendentes().get(indiceNo - 1);
-            if (irmaoEsquerda.podeEmprestarChave()) {
-                redistribuirComIrmaoEsquerda(no, irmaoEsquerda, indiceNo - 1);
-                return true;
+    // Índice do irmão mais próximo (até DISTANCIA_REDISTRIBUICAO posições) que pode receber uma
+    // chave ou, com 'paraReceber' falso, ceder uma; -1 se nenhum pode
+    private static int procurarIrmao(NoBEstrela paiNo, int indiceNo, boolean paraReceber) {
+        List<NoBEstrela> irmaos = paiNo.obterDescendentes();
+        for (int distancia = 1; distancia <= DISTANCIA_REDISTRIBUICAO; distancia++) {
+            for (int indice = indiceNo - distancia; indice <= indiceNo + distancia; indice += 2 * distancia) {
+                if (indice >= 0 && indice < irmaos.size()) {
+                    NoBEstrela irmao = irmaos.get(indice);
+                    if (paraReceber ? !irmao.estaCheio() : irmao.podeEmprestarChave()) {
+                        return indice;
+                    }
+                }
             }
         }
+        return -1;
+    }
 
-        if (indiceNo < paiNo.obterDescendentes().size() - 1) {
-            NoBEstrela irmaoDireita = paiNo.obterDescendentes().get(indiceNo + 1);
-            if (irmaoDireita.podeEmprestarChave()) {
-                redistribuirComIrmaoDireita(no, irmaoDireita, indiceNo);
-                return true;
+    // Junta os descendentes [inicio, inicio + antes) do pai, com os separadores entre eles, e
+    // reparte tudo igualmente em 'depois' nós, devolvendo ao pai os novos separadores. Cobre a
+    // redistribuição (antes == depois), a divisão 2-para-3 e as fusões 2-para-1 e 3-para-2.
+    // Os nós existentes são reaproveitados; os netos movidos mantêm seus limites de cerca.
+    private void repartir(NoBEstrela paiNo, int inicio, int antes, int depois) {
+        List<NoBEstrela> irmaos = paiNo.obterDescendentes();
+        List<NoBEstrela> nos = new ArrayList<>(irmaos.subList(inicio, inicio + antes));
+        // Os que saem da árvore numa fusão também são marcados: um leitor que esteja neles recomeça
+        marcar(paiNo);
+        for (NoBEstrela no : nos) {
+            marcar(no);
+        }
+        boolean folha = nos.get(0).ehFolha();
+        List<Integer> chaves = new ArrayList<>();
+        List<String> valores = new ArrayList<>();
+        List<NoBEstrela> netos = folha ? null : new ArrayList<>();
+        for (int i = 0; i < antes; i++) {
+            if (i > 0) {
+                chaves.add(paiNo.obterChaves().get(inicio + i - 1));
+                valores.add(paiNo.obterValores().get(inicio + i - 1));
+            }
+            chaves.addAll(nos.get(i).obterChaves());
+            valores.addAll(nos.get(i).obterValores());
+            if (!folha) netos.addAll(nos.get(i).obterDescendentes());
+        }
+        long limiteInferior = nos.get(0).obterLimiteInferior();
+        long limiteSuperior = nos.get(antes - 1).obterLimiteSuperior();
+        while (nos.size() < depois) {
+            nos.add(new NoBEstrela(maxChaves, folha));
+        }
+        irmaos.subList(inicio, inicio + antes).clear();
+        paiNo.obterChaves().subList(inicio, inicio + antes - 1).clear();
+        paiNo.obterValores().subList(inicio, inicio + antes - 1).clear();
+
+        // O nó i fica com as chaves [posicao, posicao + tamanho) e os netos [posicao, posicao + tamanho]
+        int restantes = chaves.size() - (depois - 1);
+        int posicao = 0;
+        for (int i = 0; i < depois; i++) {
+            NoBEstrela no = nos.get(i);
+            int tamanho = restantes / (depois - i);
+            restantes -= tamanho;
+            long inferior = i == 0 ? limiteInferior : chaves.get(posicao - 1);
+            no.obterChaves().clear();
+            no.obterChaves().addAll(chaves.subList(posicao, posicao + tamanho));
+            no.obterValores().clear();
+            no.obterValores().addAll(valores.subList(posicao, posicao + tamanho));
+            if (!folha) {
+                no.obterDescendentes().clear();
+                no.obterDescendentes().addAll(netos.subList(posicao, posicao + tamanho + 1));
+            }
+            posicao += tamanho;
+            no.definirLimites(inferior, i == depois - 1 ? limiteSuperior : chaves.get(posicao));
+            irmaos.add(inicio + i, no);
+            if (i < depois - 1) {
+                paiNo.obterChaves().add(inicio + i, chaves.get(posicao));
+                paiNo.obterValores().add(inicio + i, valores.get(posicao));
+                posicao++;
             }
         }
-        return false;
     }
 
-    private void redistribuirComIrmaoEsquerda(NoBEstrela no, NoBEstrela irmaoEsquerda, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        no.inserirChaveValor(chaveDoPai, valorDoPai);
-
-        int ultimoIndiceIrmao = irmaoEsquerda.obterChaves().size() - 1;
-        int chaveMovidaIrmao = irmaoEsquerda.obterChaves().remove(ultimoIndiceIrmao);
-        String valorMovidoIrmao = irmaoEsquerda.obterValores().remove(ultimoIndiceIrmao);
-        paiNo.inserirChaveValor(chaveMovidaIrmao, valorMovidoIrmao);
-
-        if (!no.ehFolha()) {
-            NoBEstrela filhoMovido = irmaoEsquerda.obterDescendentes().remove(irmaoEsquerda.obterDescendentes().size() - 1);
-            no.obterDescendentes().add(0, filhoMovido);
-            filhoMovido.definirPai(no);
+    public String buscarItem(int chave) {
+        if (alteracoes != null) {
+            return buscarSemTrava(chave);
+        }
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        // Um ID que o filtro descarta é respondido sem descer na árvore. A contagem de nós
+        // visitados é local: buscas de threads diferentes não escrevem em campos da árvore.
+        NoBEstrela no = filtro != null && !filtro.podeConter(chave) ? null : raiz;
+        String valor = null;
+        int visitados = 0;
+        while (no != null) {
+            visitados++;
+            valor = no.buscarValor(chave);
+            no = valor != null || no.ehFolha() ? null : no.obterDescendentes().get(no.encontrarIndiceFilho(chave));
         }
+        if (metricas != null) metricas.registrarBusca(visitados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.BUSCA, System.nanoTime() - inicio, visitados);
+        }
+        return valor;
     }
 
-    private void redistribuirComIrmaoDireita(NoBEstrela no, NoBEstrela irmaoDireita, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        no.inserirChaveValor(chaveDoPai, valorDoPai);
+    public boolean removerItem(int chave) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        NoBEstrela noAlvo = filtro != null && !filtro.podeConter(chave) ? null : descerParaEscrita(chave);
+        int visitados = noAlvo == null ? 0 : profundidade + 1;
+        if (metricas != null) metricas.registrarRemocao(visitados);
+        int posicao = noAlvo == null ? -1 : noAlvo.encontrarIndiceFilho(chave);
+        if (noAlvo == null || posicao == noAlvo.obterChaves().size() || noAlvo.obterChaves().get(posicao) != chave) {
+            if (rastreador != null) {
+                rastreador.registrar(RastreadorOperacoes.Operacao.REMOCAO, System.nanoTime() - inicio, visitados);
+            }
+            return false;
+        }
 
-        int chaveMovidaIrmao = irmaoDireita.obterChaves().remove(0);
-        String valorMovidoIrmao = irmaoDireita.obterValores().remove(0);
-        paiNo.inserirChaveValor(chaveMovidaIrmao, valorMovidoIrmao);
+        NoBEstrela folha = noAlvo;
+        if (!noAlvo.ehFolha()) {
+            // Troca pela sucessora, a menor chave da subárvore à direita, e remove a sucessora da
+            // folha. O caminho continua pela borda esquerda dessa subárvore até a folha.
+            int nivelAlvo = profundidade;
+            empilhar(noAlvo, posicao + 1);
+            folha = noAlvo.obterDescendentes().get(posicao + 1);
+            while (!folha.ehFolha()) {
+                empilhar(folha, 0);
+                folha = folha.obterDescendentes().get(0);
+            }
+            int chaveSucessora = folha.obterChaves().get(0);
+            // Tudo que muda de chaves ou de limites, do nó alvo até as duas folhas, fica marcado;
+            // a folha da sucessora, logo abaixo
+            for (int nivel = nivelAlvo; nivel < profundidade; nivel++) {
+                marcar(ancestrais[nivel]);
+            }
+            noAlvo.obterChaves().set(posicao, chaveSucessora);
+            noAlvo.obterValores().set(posicao, folha.obterValores().get(0));
+            // O separador mudou: passa a ser o limite inferior da borda esquerda da subárvore à
+            // direita e o limite superior da borda direita da subárvore à esquerda
+            for (int nivel = nivelAlvo + 1; nivel < profundidade; nivel++) {
+                ancestrais[nivel].definirLimites(chaveSucessora, ancestrais[nivel].obterLimiteSuperior());
+            }
+            folha.definirLimites(chaveSucessora, folha.obterLimiteSuperior());
+            for (NoBEstrela borda = noAlvo.obterDescendentes().get(posicao); borda != null;
+                 borda = borda.ehFolha() ? null : borda.obterDescendentes().get(borda.obterDescendentes().size() - 1)) {
+                marcar(borda);
+                borda.definirLimites(borda.obterLimiteInferior(), chaveSucessora);
+            }
+            posicao = 0;
+        }
+        marcar(folha);
+        folha.obterChaves().remove(posicao);
+        folha.obterValores().remove(posicao);
 
-        if (!no.ehFolha()) {
-            NoBEstrela filhoMovido = irmaoDireita.obterDescendentes().remove(0);
-            no.obterDescendentes().add(filhoMovido);
-            filhoMovido.definirPai(no);
+        if (profundidade > 0 && !folha.temMinimoDeChaves()) {
+            lidarComSubutilizacao(profundidade - 1, folha);
+        }
+        // Fusões tiram no máximo uma chave da raiz; sem nenhuma, o único descendente assume.
+        // Uma raiz folha vazia continua sendo a raiz, para que a árvore aceite novas inserções.
+        // A raiz antiga é marcada para que leitores que ainda partam dela desçam de novo.
+        if (raiz.obterChaves().isEmpty() && !raiz.ehFolha()) {
+            NoBEstrela novaRaiz = raiz.obterDescendentes().get(0);
+            marcar(raiz);
+            marcar(novaRaiz);
+            novaRaiz.definirLimites(Long.MIN_VALUE, Long.MAX_VALUE);
+            raiz = novaRaiz;
         }
+        liberarMarcas();
+        if (filtro != null && ++remocoesDesdeFiltro > filtro.obterQuantidade() / 4) {
+            reconstruirFiltro();
+        }
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.REMOCAO, System.nanoTime() - inicio, visitados);
+        }
+        return true;
     }
 
-    private NoBEstrela dividirNoInterno(NoBEstrela no) {
-        NoBEstrela novoNo = new NoBEstrela(maxChaves, no.ehFolha());
-
-        int pontoMedio = no.obterChaves().size() / 2;
-        for (int i = pontoMedio; i < no.obterChaves().size(); i++) {
-            novoNo.obterChaves().add(no.obterChaves().get(i));
-            novoNo.obterValores().add(no.obterValores().get(i));
+    // 'no' é o descendente do ancestral 'nivel' e ficou abaixo de 2/3: reparte as chaves com um
+    // irmão próximo que possa ceder; se nenhum pode, funde com um irmão quando tudo cabe num nó
+    // ou, senão, junta o nó e dois irmãos em dois nós (fusão 3-para-2), e repete o teste no ancestral
+    private void lidarComSubutilizacao(int nivel, NoBEstrela no) {
+        NoBEstrela paiNo = ancestrais[nivel];
+        int indiceNo = posicoes[nivel];
+        int quantidadeIrmaos = paiNo.obterDescendentes().size();
+        int doador = procurarIrmao(paiNo, indiceNo, false);
+        if (doador >= 0) {
+            repartir(paiNo, Math.min(indiceNo, doador), Math.abs(indiceNo - doador) + 1, Math.abs(indiceNo - doador) + 1);
+            if (metricas != null) metricas.registrarRedistribuicao();
+            return;
         }
-        no.obterChaves().subList(pontoMedio, no.obterChaves().size()).clear();
-        no.obterValores().subList(pontoMedio, no.obterValores().size()).clear();
 
-        if (!no.ehFolha()) {
-            for (int i = pontoMedio; i < no.obterDescendentes().size(); i++) {
-                NoBEstrela descendente = no.obterDescendentes().get(i);
-                novoNo.obterDescendentes().add(descendente);
-                descendente.definirPai(novoNo);
-            }
-            no.obterDescendentes().subList(pontoMedio, no.obterDescendentes().size()).clear();
+        if (metricas != null) metricas.registrarFusao();
+        int inicio = indiceNo > 0 ? indiceNo - 1 : 0;
+        // Os dois únicos descendentes da raiz fundidos viram a nova raiz, que comporta mais chaves
+        int capacidade = paiNo == raiz && quantidadeIrmaos == 2 ? capacidadeRaiz : maxChaves;
+        int chavesFundidas = no.obterChaves().size() + paiNo.obterDescendentes().get(inicio == indiceNo ? indiceNo + 1 : inicio)
+                .obterChaves().size() + 1;
+        if (quantidadeIrmaos == 2 || chavesFundidas <= capacidade) {
+            repartir(paiNo, inicio, 2, 1);
+        } else {
+            repartir(paiNo, Math.min(inicio, quantidadeIrmaos - 3), 3, 2);
+        }
+        if (nivel > 0 && !paiNo.temMinimoDeChaves()) {
+            lidarComSubutilizacao(nivel - 1, paiNo);
         }
-        return novoNo;
     }
 
-    private void dividirNo(NoBEstrela no) {
-        NoBEstrela novoNo = dividirNoInterno(no);
-        NoBEstrela paiNo = no.obterPai();
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        if (alteracoes != null) {
+            List<String> resultados = new ArrayList<>();
+            visitarIntervaloSemTrava(chaveInicio, chaveFim, new VisaoItem(), item -> resultados.add(item.obterValor()));
+            return resultados;
+        }
+        List<String> resultados = new ArrayList<>();
+        if (raiz == null) return resultados;
 
-        if (paiNo == null) {
-            NoBEstrela novaRaiz = new NoBEstrela(maxChaves, false);
-            int chavePromovida = novoNo.obterChaves().remove(0);
-            String valorPromovido = novoNo.obterValores().remove(0);
-            novaRaiz.inserirChaveValor(chavePromovida, valorPromovido);
-            novaRaiz.obterDescendentes().add(no);
-            novaRaiz.obterDescendentes().add(novoNo);
-            no.definirPai(novaRaiz);
-            novoNo.definirPai(novaRaiz);
-            this.raiz = novaRaiz;
-            return;
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        int visitados = percorrerEmOrdemParaIntervalo(raiz, chaveInicio, chaveFim, resultados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio, visitados);
         }
+        return resultados;
+    }
 
-        int pontoMedioOriginal = no.obterChaves().size() / 2;
-        int chavePromovida = no.obterChaves().get(pontoMedioOriginal);
-        String valorPromovido = no.obterValores().get(pontoMedioOriginal);
+    // Devolve quantos nós visitou
+    private int percorrerEmOrdemParaIntervalo(NoBEstrela no, int chaveInicio, int chaveFim, List<String> resultados) {
+        if (no == null) return 0;
+        int visitados = 1;
 
-        no.obterChaves().remove(pontoMedioOriginal);
-        no.obterValores().remove(pontoMedioOriginal);
+        // Subárvore toda dentro do intervalo: coleta sem comparar chave a chave
+        if (no.obterLimiteInferior() >= (long) chaveInicio - 1 && no.obterLimiteSuperior() <= (long) chaveFim + 1) {
+            return visitados + coletarValores(no, resultados);
+        }
+        // Começa direto na primeira chave >= chaveInicio; os filhos antes dela ficam abaixo do intervalo
+        int i = no.encontrarIndiceFilho(chaveInicio);
+        if (no.ehFolha()) {
+            for (; i < no.obterChaves().size() && no.obterChaves().get(i) <= chaveFim; i++) {
+                resultados.add(no.obterValores().get(i));
+            }
+            return visitados;
+        }
+        for (; i < no.obterDescendentes().size(); i++) {
+            NoBEstrela descendente = no.obterDescendentes().get(i);
+            if (descendente.obterLimiteInferior() < chaveFim) {
+                visitados += percorrerEmOrdemParaIntervalo(descendente, chaveInicio, chaveFim, resultados);
+            }
+            if (i >= no.obterChaves().size() || no.obterChaves().get(i) > chaveFim) {
+                return visitados;
+            }
+            resultados.add(no.obterValores().get(i));
+        }
+        return visitados;
+    }
 
-        paiNo.inserirChaveValor(chavePromovida, valorPromovido);
+    // Devolve quantos descendentes de 'no' visitou
+    private int coletarValores(NoBEstrela no, List<String> resultados) {
+        if (no.ehFolha()) {
+            resultados.addAll(no.obterValores());
+            return 0;
+        }
+        int visitados = 0;
+        for (int i = 0; i < no.obterDescendentes().size(); i++) {
+            visitados += 1 + coletarValores(no.obterDescendentes().get(i), resultados);
+            if (i < no.obterValores().size()) {
+                resultados.add(no.obterValores().get(i));
+            }
+        }
+        return visitados;
+    }
 
-        int indiceInsercao = paiNo.obterDescendentes().indexOf(no) + 1;
-        paiNo.obterDescendentes().add(indiceInsercao, novoNo);
-        novoNo.definirPai(paiNo);
+    // Diz se há alguma chave em [chaveInicio, chaveFim] descendo um único caminho: se a primeira
+    // chave >= chaveInicio do nó passa de chaveFim, só o filho antes dela pode ter chaves no intervalo
+    public boolean existeNoIntervalo(int chaveInicio, int chaveFim) {
+        if (alteracoes != null) {
+            return visitarIntervalo(chaveInicio, chaveFim, new VisaoItem(), item -> false) > 0;
+        }
+        NoBEstrela atual = chaveInicio <= chaveFim ? raiz : null;
+        boolean encontrado = false;
+        int visitados = 0;
+        while (atual != null && !encontrado) {
+            visitados++;
+            int i = atual.encontrarIndiceFilho(chaveInicio);
+            encontrado = i < atual.obterChaves().size() && atual.obterChaves().get(i) <= chaveFim;
+            atual = atual.ehFolha() || i >= atual.obterDescendentes().size() ? null : atual.obterDescendentes().get(i);
+        }
+        if (metricas != null) metricas.registrarBusca(visitados);
+        return encontrado;
+    }
+
+    // --- LEITORES CONCORRENTES ---
 
-        if (paiNo.estaCheio()) {
-            lidarComTransbordamento(paiNo);
+    // Um escritor por vez e vários leitores sem trava: com o modo ativo, inserirItem, atualizarItem
+    // e removerItem (de um thread só, ou serializados por uma trava de quem usa a árvore) marcam
+    // a versão de cada nó que alteram, e buscarItem, buscarIntervalo e existeNoIntervalo podem ser
+    // chamados de outros threads ao mesmo tempo. Ative antes de iniciar os leitores; as demais
+    // operações continuam exigindo exclusão com o escritor.
+    public void ativarLeitoresConcorrentes() {
+        if (alteracoes == null) {
+            alteracoes = new RegistroAlteracoes();
         }
     }
 
-    private void dividirRaiz() {
-        NoBEstrela novaRaiz = new NoBEstrela(maxChaves, false);
-        NoBEstrela novoNo = dividirNoInterno(raiz);
+    public void desativarLeitoresConcorrentes() {
+        alteracoes = null;
+    }
 
-        int pontoMedioOriginal = raiz.obterChaves().size() / 2;
-        int chavePromovida = raiz.obterChaves().remove(pontoMedioOriginal);
-        String valorPromovido = raiz.obterValores().remove(pontoMedioOriginal);
+    public boolean leitoresConcorrentesAtivos() {
+        return alteracoes != null;
+    }
 
-        novaRaiz.inserirChaveValor(chavePromovida, valorPromovido);
-        novaRaiz.obterDescendentes().add(raiz);
-        novaRaiz.obterDescendentes().add(novoNo);
-        raiz.definirPai(novaRaiz);
-        novoNo.definirPai(novaRaiz);
-        this.raiz = novaRaiz;
+    // Antes de alterar o nó; nada faz com o modo desativado
+    private void marcar(NoBEstrela no) {
+        if (alteracoes != null) alteracoes.marcar(no);
     }
 
-    public String buscarItem(int chave) {
-        return buscarEmNo(raiz, chave);
+    // Ao fim de cada operação de escrita, depois da última alteração
+    private void liberarMarcas() {
+        if (alteracoes != null) alteracoes.liberar();
     }
 
-    private String buscarEmNo(NoBEstrela no, int chave) {
-        String valor = no.buscarValor(chave);
-        if (valor != null) {
-            return valor;
+    // Como buscarItem, mas sem travas: lê a versão de cada descendente antes de conferir a do nó
+    // atual e recomeça da raiz se alguma mudou. Não escreve em campos da árvore.
+    private String buscarSemTrava(int chave) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        FiltroBloom filtroAtual = filtro;
+        String valor = null;
+        int visitados = 0;
+        if (filtroAtual == null || filtroAtual.podeConter(chave)) {
+            tentativa:
+            for (int tentativas = 0; ; tentativas++) {
+                if (tentativas > 0) Thread.onSpinWait();
+                try {
+                    NoBEstrela no = raiz;
+                    long versaoNo = no.lerVersao();
+                    if (versaoNo < 0 || no != raiz) continue;
+                    visitados = 1;
+                    while (true) {
+                        int indice = no.encontrarIndiceFilho(chave);
+                        if (indice < no.obterChaves().size() && no.obterChaves().get(indice) == chave) {
+                            valor = no.obterValores().get(indice);
+                            break;
+                        }
+                        if (no.ehFolha()) {
+                            valor = null;
+                            break;
+                        }
+                        NoBEstrela descendente = no.obterDescendentes().get(indice);
+                        long versaoDescendente = descendente.lerVersao();
+                        if (versaoDescendente < 0 || !no.validar(versaoNo)) continue tentativa;
+                        no = descendente;
+                        versaoNo = versaoDescendente;
+                        visitados++;
+                    }
+                    if (no.validar(versaoNo)) break;
+                } catch (RuntimeException e) {
+                    // Listas lidas no meio de um deslocamento; a versão não conferiria
+                }
+            }
         }
-        if (no.ehFolha()) {
-            return null;
+        if (metricas != null) metricas.registrarBusca(visitados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.BUSCA, System.nanoTime() - inicio, visitados);
         }
-        int indiceFilho = no.encontrarIndiceFilho(chave);
-        return buscarEmNo(no.obterDescendentes().get(indiceFilho), chave);
+        return valor;
     }
 
-    public boolean removerItem(int chave) {
-        NoBEstrela noAlvo = encontrarNoComChave(raiz, chave);
-        if (noAlvo == null) {
-            return false;
+    // Sem encadeamento de folhas, cada passada desce da raiz até a folha do cursor, guarda na
+    // visão os itens da folha que estão no intervalo e o do ancestral mais fundo que vem logo
+    // depois da folha em ordem, e só os entrega depois de conferir a versão da folha; então o
+    // cursor avança para depois do último. Uma passada com alguma versão divergente é descartada e
+    // refeita. Cada passada é estável, mas o intervalo inteiro não é um instantâneo.
+    private void visitarIntervaloSemTrava(int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        long cursor = chaveInicio; // Menor chave ainda não entregue
+        long cursorAnterior = Long.MIN_VALUE;
+        int visitados = 0;
+        passada:
+        while (cursor <= chaveFim) {
+            if (cursor == cursorAnterior) Thread.onSpinWait(); // Passada refeita sem avançar
+            cursorAnterior = cursor;
+            try {
+                NoBEstrela no = raiz;
+                long versaoNo = no.lerVersao();
+                if (versaoNo < 0 || no != raiz) continue;
+                // Chave do ancestral mais fundo à direita do caminho: a próxima em ordem depois da folha
+                boolean temSeguinte = false;
+                int chaveSeguinte = 0;
+                String valorSeguinte = null;
+                while (!no.ehFolha()) {
+                    visitados++;
+                    int indice = no.encontrarIndiceFilho((int) cursor);
+                    if (indice < no.obterChaves().size()) {
+                        int chave = no.obterChaves().get(indice);
+                        String valor = no.obterValores().get(indice);
+                        if (chave == cursor) {
+                            // O próprio cursor está neste nó; a subárvore à esquerda só tem chaves menores
+                            if (!no.validar(versaoNo)) continue passada;
+                            cursor = chave + 1L;
+                            if (!visao.entregar(chave, valor, visitante)) break passada;
+                            continue passada;
+                        }
+                        temSeguinte = true;
+                        chaveSeguinte = chave;
+                        valorSeguinte = valor;
+                    }
+                    NoBEstrela descendente = no.obterDescendentes().get(indice);
+                    long versaoDescendente = descendente.lerVersao();
+                    if (versaoDescendente < 0 || !no.validar(versaoNo)) continue passada;
+                    no = descendente;
+                    versaoNo = versaoDescendente;
+                }
+                visitados++;
+                List<Integer> chaves = no.obterChaves();
+                boolean terminou = false;
+                for (int i = no.encontrarIndiceFilho((int) cursor); i < chaves.size(); i++) {
+                    int chave = chaves.get(i);
+                    if (chave > chaveFim) {
+                        terminou = true;
+                        break;
+                    }
+                    visao.guardarLido(chave, no.obterValores().get(i));
+                }
+                long proximoCursor = (long) chaveFim + 1;
+                if (!terminou && temSeguinte && chaveSeguinte <= chaveFim) {
+                    visao.guardarLido(chaveSeguinte, valorSeguinte);
+                    proximoCursor = chaveSeguinte + 1L;
+                }
+                if (!no.validar(versaoNo)) {
+                    visao.descartarLidos();
+                    continue;
+                }
+                cursor = proximoCursor;
+                if (!visao.entregarLidos(visitante)) break;
+            } catch (RuntimeException e) {
+                visao.descartarLidos();
+            }
         }
-
-        if (noAlvo.ehFolha()) {
-            noAlvo.removerChaveValor(chave);
-        } else {
-            removerDeNoInterno(noAlvo, chave);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio, visitados);
         }
+    }
 
-        if (!noAlvo.temMinimoDeChaves() && noAlvo != raiz) {
-            lidarComSubutilizacao(noAlvo);
-        }
+    // --- VISITANTES ---
 
-        if (raiz.obterChaves().isEmpty() && !raiz.ehFolha() && raiz.obterDescendentes().size() == 1) {
-            raiz = raiz.obterDescendentes().get(0);
-            raiz.definirPai(null);
-        } else if (raiz.obterChaves().isEmpty() && raiz.ehFolha()) {
-             this.raiz = null;
+    // Entrega o item da chave, se existir, ao visitante pela visão reaproveitável, sem criar
+    // objetos: o valor entregue é o próprio guardado no nó. Devolve se a chave existe.
+    public boolean visitarItem(int chave, VisaoItem visao, VisaoItem.Visitante visitante) {
+        visao.iniciarContagem();
+        String valor = buscarItem(chave);
+        if (valor == null) {
+            return false;
         }
+        visao.entregar(chave, valor, visitante);
         return true;
     }
 
-    private void removerDeNoInterno(NoBEstrela no, int chave) {
-        int indiceChave = no.obterChaves().indexOf(chave);
-        if (indiceChave == -1) return;
-
-        NoBEstrela noSucessor = no.obterDescendentes().get(indiceChave + 1);
-        while (!noSucessor.ehFolha()) {
-            noSucessor = noSucessor.obterDescendentes().get(0);
+    // Entrega em ordem os itens de [chaveInicio, chaveFim] até o visitante devolver false, sem
+    // criar objetos nem listas; devolve quantos itens foram entregues
+    public int visitarIntervalo(int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        visao.iniciarContagem();
+        if (chaveInicio > chaveFim) {
+            return 0;
         }
-
-        int chaveSucessora = noSucessor.obterChaves().get(0);
-        String valorSucessor = noSucessor.obterValores().get(0);
-        no.obterChaves().set(indiceChave, chaveSucessora);
-        no.obterValores().set(indiceChave, valorSucessor);
-
-        noSucessor.removerChaveValor(chaveSucessora);
-
-        if (!noSucessor.temMinimoDeChaves() && noSucessor != raiz) {
-            lidarComSubutilizacao(noSucessor);
+        if (alteracoes != null) {
+            visitarIntervaloSemTrava(chaveInicio, chaveFim, visao, visitante);
+            return visao.obterEntregues();
         }
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        int visitados = visitarEmOrdem(raiz, chaveInicio, chaveFim, visao, visitante);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio, visitados);
+        }
+        return visao.obterEntregues();
     }
 
-    private void lidarComSubutilizacao(NoBEstrela no) {
-        NoBEstrela paiNo = no.obterPai();
-        if (paiNo == null) return;
-
-        int indiceNo = paiNo.obterDescendentes().indexOf(no);
-
-        if (indiceNo > 0) {
-            NoBEstrela irmaoEsquerda = paiNo.obterDescendentes().get(indiceNo - 1);
-            if (irmaoEsquerda.podeEmprestarChave()) {
-                emprestarDeIrmaoEsquerda(no, irmaoEsquerda, indiceNo - 1);
-                return;
+    // Como percorrerEmOrdemParaIntervalo, entregando cada item ao visitante até ele interromper;
+    // devolve quantos nós visitou
+    private int visitarEmOrdem(NoBEstrela no, int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        int visitados = 1;
+        List<Integer> chaves = no.obterChaves();
+        int i = no.encontrarIndiceFilho(chaveInicio);
+        if (no.ehFolha()) {
+            for (; i < chaves.size() && chaves.get(i) <= chaveFim; i++) {
+                if (!visao.entregar(chaves.get(i), no.obterValores().get(i), visitante)) {
+                    break;
+                }
             }
+            return visitados;
         }
-
-        if (indiceNo < paiNo.obterDescendentes().size() - 1) {
-            NoBEstrela irmaoDireita = paiNo.obterDescendentes().get(indiceNo + 1);
-            if (irmaoDireita.podeEmprestarChave()) {
-                emprestarDeIrmaoDireita(no, irmaoDireita, indiceNo);
-                return;
+        for (; i < no.obterDescendentes().size(); i++) {
+            NoBEstrela descendente = no.obterDescendentes().get(i);
+            if (descendente.obterLimiteInferior() < chaveFim) {
+                visitados += visitarEmOrdem(descendente, chaveInicio, chaveFim, visao, visitante);
+                if (visao.foiInterrompida()) {
+                    break;
+                }
+            }
+            if (i >= chaves.size() || chaves.get(i) > chaveFim
+                    || !visao.entregar(chaves.get(i), no.obterValores().get(i), visitante)) {
+                break;
             }
         }
+        return visitados;
+    }
 
-        if (indiceNo > 0) {
-            fusaoComIrmaoEsquerda(no, indiceNo - 1);
-        } else if (indiceNo < paiNo.obterDescendentes().size() - 1) {
-            fusaoComIrmaoDireita(no, indiceNo);
+    // --- MÉTRICAS ---
+
+    // Ativa a coleta de métricas; chamadas repetidas devolvem a mesma instância
+    public MetricasArvore ativarMetricas() {
+        if (metricas == null) {
+            metricas = new MetricasArvore(this::coletarEstatisticas);
         }
+        return metricas;
     }
 
-    private void emprestarDeIrmaoEsquerda(NoBEstrela no, NoBEstrela irmaoEsquerda, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        no.inserirChaveValor(chaveDoPai, valorDoPai);
+    public void desativarMetricas() {
+        metricas = null;
+    }
 
-        int ultimoIndiceIrmao = irmaoEsquerda.obterChaves().size() - 1;
-        int chaveDoIrmao = irmaoEsquerda.obterChaves().remove(ultimoIndiceIrmao);
-        String valorDoIrmao = irmaoEsquerda.obterValores().remove(ultimoIndiceIrmao);
-        paiNo.inserirChaveValor(chaveDoIrmao, valorDoIrmao);
+    public MetricasArvore obterMetricas() {
+        return metricas;
+    }
 
-        if (!no.ehFolha()) {
-            NoBEstrela filhoMovido = irmaoEsquerda.obterDescendentes().remove(irmaoEsquerda.obterDescendentes().size() - 1);
-            no.obterDescendentes().add(0, filhoMovido);
-            filhoMovido.definirPai(no);
+    // Percorre a árvore contando nós, chaves e memória estimada
+    public EstatisticasEstrutura coletarEstatisticas() {
+        if (raiz == null) {
+            return new EstatisticasEstrutura(0, 0, 0, 0, 0);
         }
+        long[] acumulado = new long[4]; // nós, chaves, capacidade, bytes
+        int altura = acumularEstatisticas(raiz, acumulado);
+        return new EstatisticasEstrutura(altura, acumulado[0], acumulado[1], acumulado[2], acumulado[3]);
     }
 
-    private void emprestarDeIrmaoDireita(NoBEstrela no, NoBEstrela irmaoDireita, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        no.inserirChaveValor(chaveDoPai, valorDoPai);
+    private int acumularEstatisticas(NoBEstrela no, long[] acumulado) {
+        acumulado[0]++;
+        acumulado[1] += no.obterChaves().size();
+        acumulado[2] += no == raiz ? capacidadeRaiz : maxChaves;
+        int encaixotadas = 0;
+        for (int chave : no.obterChaves()) {
+            if (chave < -128 || chave > 127) encaixotadas++;
+        }
+        // Campos: chaves, valores, descendentes, mais os dois limites de cerca (long)
+        int listas = no.ehFolha() ? 2 : 3;
+        acumulado[3] += MetricasArvore.estimarBytesNo(3, listas, maxChaves + 1, encaixotadas) + 16;
+        for (String valor : no.obterValores()) {
+            acumulado[3] += MetricasArvore.estimarBytesTexto(valor);
+        }
+        if (no.ehFolha()) {
+            return 1;
+        }
+        int altura = 0;
+        for (NoBEstrela descendente : no.obterDescendentes()) {
+            altura = Math.max(altura, acumularEstatisticas(descendente, acumulado));
+        }
+        return altura + 1;
+    }
 
-        int chaveMovidaIrmao = irmaoDireita.obterChaves().remove(0);
-        String valorMovidoIrmao = irmaoDireita.obterValores().remove(0);
-        paiNo.inserirChaveValor(chaveMovidaIrmao, valorMovidoIrmao);
+    // --- FILTRO DE CHAVES AUSENTES ---
 
-        if (!no.ehFolha()) {
-            NoBEstrela filhoMovido = irmaoDireita.obterDescendentes().remove(0);
-            no.obterDescendentes().add(filhoMovido);
-            filhoMovido.definirPai(no);
-        }
+    // Liga um filtro de Bloom consultado antes de cada busca e remoção. Inserções de chaves novas
+    // alimentam o filtro; como ele não esquece chaves, é reconstruído quando as remoções passam
+    // de 1/4 das chaves que ele guarda.
+    public FiltroBloom ativarFiltro(double taxaFalsosPositivos) {
+        this.taxaFiltro = taxaFalsosPositivos;
+        reconstruirFiltro();
+        return filtro;
     }
 
-    private void fusaoComIrmaoEsquerda(NoBEstrela no, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-        NoBEstrela irmaoEsquerda = paiNo.obterDescendentes().get(indiceChavePai);
+    public void desativarFiltro() {
+        filtro = null;
+    }
 
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        irmaoEsquerda.inserirChaveValor(chaveDoPai, valorDoPai);
+    public FiltroBloom obterFiltro() {
+        return filtro;
+    }
 
-        for (int i = 0; i < no.obterChaves().size(); i++) {
-            irmaoEsquerda.inserirChaveValor(no.obterChaves().get(i), no.obterValores().get(i));
+    private void reconstruirFiltro() {
+        List<Integer> chaves = new ArrayList<>();
+        coletarEmOrdem(chaves, new ArrayList<>());
+        FiltroBloom novo = new FiltroBloom(Math.max(1024, 2 * chaves.size()), taxaFiltro);
+        for (int chave : chaves) {
+            novo.adicionar(chave);
         }
+        filtro = novo;
+        remocoesDesdeFiltro = 0;
+    }
 
-        if (!no.ehFolha()) {
-            for (NoBEstrela descendente : no.obterDescendentes()) {
-                irmaoEsquerda.obterDescendentes().add(descendente);
-                descendente.definirPai(irmaoEsquerda);
-            }
-        }
+    // --- RASTREAMENTO DE LATÊNCIA ---
 
-        paiNo.obterDescendentes().remove(no);
+    // Ativa o registro da latência de cada operação; chamadas repetidas devolvem a mesma instância
+    public RastreadorOperacoes ativarRastreamento() {
+        if (rastreador == null) {
+            rastreador = new RastreadorOperacoes("ArvoreBEstrela");
+        }
+        return rastreador;
+    }
 
-        if (paiNo != raiz && !paiNo.temMinimoDeChaves()) {
-            lidarComSubutilizacao(paiNo);
-        } else if (paiNo == raiz && paiNo.obterChaves().isEmpty()) {
-            raiz = irmaoEsquerda;
-            irmaoEsquerda.definirPai(null);
+    public void desativarRastreamento() {
+        if (rastreador != null) {
+            rastreador.pararRelatorioPeriodico();
+            rastreador = null;
         }
     }
 
-    private void fusaoComIrmaoDireita(NoBEstrela no, int indiceChavePai) {
-        NoBEstrela paiNo = no.obterPai();
-        NoBEstrela irmaoDireita = paiNo.obterDescendentes().get(indiceChavePai + 1);
+    public RastreadorOperacoes obterRastreador() {
+        return rastreador;
+    }
 
-        int chaveDoPai = paiNo.obterChaves().remove(indiceChavePai);
-        String valorDoPai = paiNo.obterValores().remove(indiceChavePai);
-        no.inserirChaveValor(chaveDoPai, valorDoPai);
+    // --- VERIFICAÇÃO ESTRUTURAL ---
 
-        for (int i = 0; i < irmaoDireita.obterChaves().size(); i++) {
-            no.inserirChaveValor(irmaoDireita.obterChaves().get(i), irmaoDireita.obterValores().get(i));
-        }
+    public RelatorioEstrutura verificarEstrutura() {
+        return new AnalisadorArvoreBEstrela(this).analisar();
+    }
 
-        if (!no.ehFolha()) {
-            for (NoBEstrela descendente : irmaoDireita.obterDescendentes()) {
-                no.obterDescendentes().add(descendente);
-                descendente.definirPai(no);
-            }
-        }
+    NoBEstrela obterRaiz() {
+        return raiz;
+    }
 
-        paiNo.obterDescendentes().remove(irmaoDireita);
+    int obterMaxChaves() {
+        return maxChaves;
+    }
 
-        if (paiNo != raiz && !paiNo.temMinimoDeChaves()) {
-            lidarComSubutilizacao(paiNo);
-        } else if (paiNo == raiz && paiNo.obterChaves().isEmpty()) {
-            raiz = no;
-            no.definirPai(null);
-        }
+    int obterCapacidadeRaiz() {
+        return capacidadeRaiz;
     }
 
-    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
-        List<String> resultados = new ArrayList<>();
-        if (raiz == null) return resultados;
+    // Percorre a árvore em ordem, preenchendo as chaves e os valores correspondentes
+    void coletarEmOrdem(List<Integer> chaves, List<String> valores) {
+        coletarEmOrdem(raiz, chaves, valores);
+    }
 
-        percorrerEmOrdemParaIntervalo(raiz, chaveInicio, chaveFim, resultados);
-        return resultados;
+    public int[] coletarEmOrdem(List<String> valores) {
+        List<Integer> chaves = new ArrayList<>();
+        coletarEmOrdem(raiz, chaves, valores);
+        int[] chavesOrdenadas = new int[chaves.size()];
+        for (int i = 0; i < chavesOrdenadas.length; i++) {
+            chavesOrdenadas[i] = chaves.get(i);
+        }
+        return chavesOrdenadas;
     }
 
-    private void percorrerEmOrdemParaIntervalo(NoBEstrela no, int chaveInicio, int chaveFim, List<String> resultados) {
-        if (no == null) return;
+    // Substitui todo o conteúdo pelas chaves já ordenadas. Inseridas em ordem crescente, cada uma
+    // cai na folha mais à direita e a redistribuição enche os irmãos à esquerda, então a árvore
+    // sai com os nós praticamente cheios.
+    void carregarOrdenados(int[] chavesOrdenadas, String[] valores, int quantidade) {
+        marcar(raiz);
+        raiz = new NoBEstrela(maxChaves, true);
+        liberarMarcas();
+        for (int i = 0; i < quantidade; i++) {
+            inserirItem(chavesOrdenadas[i], valores[i]);
+        }
+        if (filtro != null) {
+            reconstruirFiltro();
+        }
+    }
 
+    private void coletarEmOrdem(NoBEstrela no, List<Integer> chaves, List<String> valores) {
+        if (no == null) return; // Árvore esvaziada pelas remoções
         if (no.ehFolha()) {
-            for (int i = 0; i < no.obterChaves().size(); i++) {
-                int chaveAtual = no.obterChaves().get(i);
-                if (chaveAtual >= chaveInicio && chaveAtual <= chaveFim) {
-                    resultados.add(no.obterValores().get(i));
-                } else if (chaveAtual > chaveFim) {
-                    return;
-                }
-            }
-        } else {
-            for (int i = 0; i < no.obterDescendentes().size(); i++) {
-                percorrerEmOrdemParaIntervalo(no.obterDescendentes().get(i), chaveInicio, chaveFim, resultados);
-
-                if (i < no.obterChaves().size()) {
-                    int chaveAtual = no.obterChaves().get(i);
-                    if (chaveAtual >= chaveInicio && chaveAtual <= chaveFim) {
-                        resultados.add(no.obterValores().get(i));
-                    } else if (chaveAtual > chaveFim) {
-                        return;
-                    }
-                }
+            chaves.addAll(no.obterChaves());
+            valores.addAll(no.obterValores());
+            return;
+        }
+        for (int i = 0; i < no.obterDescendentes().size(); i++) {
+            coletarEmOrdem(no.obterDescendentes().get(i), chaves, valores);
+            if (i < no.obterChaves().size()) {
+                chaves.add(no.obterChaves().get(i));
+                valores.add(no.obterValores().get(i));
             }
         }
     }
@@ -564,10 +1042,25 @@ public class ArvoreBEstrelaCompleta {
 
     // --- LÓGICA PRINCIPAL DE EXECUÇÃO PARA ÁRVORE B* ---
     private static final int ORDEM_ARVORE_BESTRELA = 3;
+    private static final long SEMENTE_PADRAO = 42; // Sorteio dos IDs removidos; troque com --semente <n>
     private static final String ARQUIVO_DADOS = "produtos_corrigido.txt";
 
     public static void main(String[] args) {
-        ArvoreBEstrela arvoreBEstrela = new ArvoreBEstrela(ORDEM_ARVORE_BESTRELA);
+        ArvoreBEstrelaCompleta arvoreBEstrela = new ArvoreBEstrelaCompleta(ORDEM_ARVORE_BESTRELA);
+        MetricasArvore metricas = arvoreBEstrela.ativarMetricas();
+        try {
+            metricas.registrarJmx("ArvoreBEstrela");
+        } catch (JMException e) {
+            System.err.println("Não foi possível registrar as métricas via JMX: " + e.getMessage());
+        }
+        // Com --rastrear, registra a latência de cada chamada e imprime os percentis a cada segundo
+        RastreadorOperacoes rastreador = null;
+        if (Arrays.asList(args).contains("--rastrear")) {
+            rastreador = arvoreBEstrela.ativarRastreamento();
+            rastreador.iniciarRelatorioPeriodico(1, TimeUnit.SECONDS);
+        }
+        // Com --filtro, buscas e remoções de IDs inexistentes são respondidas pelo filtro de Bloom
+        FiltroBloom filtro = Arrays.asList(args).contains("--filtro") ? arvoreBEstrela.ativarFiltro(0.01) : null;
         List<ItemProduto> itensParaProcessar = carregarItensDoArquivo(ARQUIVO_DADOS);
 
         System.out.println("--- Teste de Indexação com Árvore B* (Ordem " + ORDEM_ARVORE_BESTRELA + ") ---");
@@ -582,9 +1075,19 @@ public class ArvoreBEstrelaCompleta {
         long duracaoInsercao = (tempoFimInsercao - tempoInicioInsercao) / 1_000_000;
         System.out.println("Tempo de inserção de " + itensParaProcessar.size() + " produtos: " + duracaoInsercao + " ms");
 
-        // Testar remoção de 10 produtos aleatórios
-        System.out.println("\n--- Removendo 10 produtos aleatórios (IDs entre 1000 e 2000) ---");
-        Random geradorAleatorio = new Random();
+        // Com --verificar, confere os invariantes da árvore após a carga e após as remoções
+        boolean verificar = Arrays.asList(args).contains("--verificar");
+        if (verificar) {
+            System.out.println();
+            System.out.println(arvoreBEstrela.verificarEstrutura());
+        }
+
+        // Testar remoção de 10 produtos aleatórios; a mesma semente sorteia sempre os mesmos IDs
+        int indiceSemente = Arrays.asList(args).indexOf("--semente");
+        long semente = indiceSemente >= 0 && indiceSemente + 1 < args.length
+                ? Long.parseLong(args[indiceSemente + 1]) : SEMENTE_PADRAO;
+        System.out.println("\n--- Removendo 10 produtos aleatórios (IDs entre 1000 e 2000, semente " + semente + ") ---");
+        Random geradorAleatorio = new Random(semente);
         List<Integer> chavesParaRemover = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
             chavesParaRemover.add(geradorAleatorio.nextInt(1001) + 1000); // IDs de 1000 a 2000
@@ -604,6 +1107,119 @@ public class ArvoreBEstrelaCompleta {
         long tempoFimRemocao = System.nanoTime();
         long duracaoRemocao = (tempoFimRemocao - tempoInicioRemocao) / 1_000_000;
         System.out.println("Tempo de remoção de 10 produtos: " + duracaoRemocao + " ms");
+        if (filtro != null) {
+            System.out.println(arvoreBEstrela.obterFiltro());
+        }
+
+        if (verificar) {
+            System.out.println();
+            System.out.println(arvoreBEstrela.verificarEstrutura());
+        }
+
+        // Com --sincronizar <arquivo>, aplica numa árvore à parte as alterações acrescentadas ao
+        // arquivo desde o último ponto de controle, partindo do instantâneo salvo nele (ou do arquivo
+        // de produtos completo, na primeira vez)
+        int indiceSincronizar = Arrays.asList(args).indexOf("--sincronizar");
+        if (indiceSincronizar >= 0 && indiceSincronizar + 1 < args.length) {
+            Path arquivoAlteracoes = Paths.get(args[indiceSincronizar + 1]);
+            Path pontoDeControle = Paths.get(args[indiceSincronizar + 1] + ".ponto");
+            Path instantaneo = SincronizadorCatalogo.arquivoInstantaneo(pontoDeControle);
+            ArvoreBEstrelaCompleta arvoreSincronizada = new ArvoreBEstrelaCompleta();
+            boolean partindoDoInstantaneo = Files.exists(instantaneo);
+            List<ItemProduto> itensIniciais = partindoDoInstantaneo
+                    ? carregarItensDoArquivo(instantaneo.toString()) : itensParaProcessar;
+            for (ItemProduto item : itensIniciais) {
+                arvoreSincronizada.inserirItem(item.obterId(), item.obterInfoParaArvore());
+            }
+            SincronizadorCatalogo.Destino destino = lote -> {
+                for (SincronizadorCatalogo.Alteracao alteracao : lote) {
+                    if (alteracao.ehRemocao()) {
+                        arvoreSincronizada.removerItem(alteracao.obterId());
+                    } else {
+                        arvoreSincronizada.inserirItem(alteracao.obterId(), alteracao.obterInfo());
+                    }
+                }
+            };
+            SincronizadorCatalogo.Exportador exportador = saida -> {
+                List<Integer> chaves = new ArrayList<>();
+                List<String> valores = new ArrayList<>();
+                arvoreSincronizada.coletarEmOrdem(chaves, valores);
+                for (int i = 0; i < chaves.size(); i++) {
+                    saida.aceitar(chaves.get(i), valores.get(i));
+                }
+            };
+            try (SincronizadorCatalogo sincronizador = new SincronizadorCatalogo(
+                    arquivoAlteracoes, pontoDeControle, 256, destino, exportador)) {
+                long posicaoInicial = sincronizador.obterPosicao();
+                long tempoInicioSincronizacao = System.nanoTime();
+                int aplicadas = sincronizador.sincronizar();
+                long duracaoSincronizacao = (System.nanoTime() - tempoInicioSincronizacao) / 1_000;
+                System.out.println("\n--- Sincronização incremental (" + arquivoAlteracoes + ") ---");
+                System.out.println("Partindo de " + itensIniciais.size() + " produtos"
+                        + (partindoDoInstantaneo ? " do instantâneo" : " do arquivo completo")
+                        + ", posição " + posicaoInicial + " -> " + sincronizador.obterPosicao()
+                        + ": " + aplicadas + " alterações em " + duracaoSincronizacao + " us"
+                        + ", linhas inválidas: " + sincronizador.obterLinhasInvalidas());
+            } catch (IOException e) {
+                System.err.println("Erro na sincronização do catálogo: " + e.getMessage());
+            }
+        }
+
+        // Com --visitantes, conta os produtos por categoria buscando cada ID e o intervalo que
+        // começa nele pelas APIs de visitante, e mede quanto o thread alocou na última rodada,
+        // depois que as anteriores aquecem o JIT
+        if (Arrays.asList(args).contains("--visitantes")) {
+            DicionarioCategorias dicionario = new DicionarioCategorias();
+            VisaoItem visao = new VisaoItem(dicionario);
+            long[] porCategoria = new long[256];
+            VisaoItem.Visitante contar = item -> {
+                porCategoria[item.obterCodigoCategoria()]++;
+                return true;
+            };
+            long bytesAlocados = 0;
+            long visitados = 0;
+            for (int rodada = 0; rodada < 10; rodada++) {
+                Arrays.fill(porCategoria, 0);
+                visitados = 0;
+                long antes = MetricasArvore.bytesAlocadosNoThread();
+                for (int i = 0; i < itensParaProcessar.size(); i++) {
+                    int id = itensParaProcessar.get(i).obterId();
+                    arvoreBEstrela.visitarItem(id, visao, contar);
+                    visitados += 1 + arvoreBEstrela.visitarIntervalo(id, id + 32, visao, contar);
+                }
+                bytesAlocados = MetricasArvore.bytesAlocadosNoThread() - antes;
+            }
+            System.out.println("\n--- Visitantes sem alocação ---");
+            for (int codigo = 0; codigo < dicionario.obterQuantidade(); codigo++) {
+                System.out.println(dicionario.obterCategoria(codigo) + ": " + porCategoria[codigo]);
+            }
+            System.out.println(2 * itensParaProcessar.size() + " chamadas, " + visitados + " itens visitados, bytes alocados: "
+                    + bytesAlocados);
+        }
+
+        // Com --leitores-concorrentes <n>, mede buscas sem trava de 1 até n leitores numa árvore à
+        // parte enquanto este thread insere e remove sem parar, conferindo cada resposta
+        int indiceLeitores = Arrays.asList(args).indexOf("--leitores-concorrentes");
+        if (indiceLeitores >= 0 && indiceLeitores + 1 < args.length) {
+            ArvoreBEstrelaCompleta arvoreConcorrente = new ArvoreBEstrelaCompleta(ORDEM_ARVORE_BESTRELA);
+            arvoreConcorrente.ativarLeitoresConcorrentes();
+            System.out.println("\n--- Leitores concorrentes sem trava ---");
+            try {
+                LeitoresConcorrentes.medir(arvoreConcorrente, itensParaProcessar.size(),
+                        Integer.parseInt(args[indiceLeitores + 1]), 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println(arvoreConcorrente.verificarEstrutura());
+        }
+
+        System.out.println("\n--- Métricas da Árvore B* ---");
+        metricas.publicarEstrutura(); // Fim das escritas: o relatório mostra o estado final
+        System.out.println(metricas);
+        if (rastreador != null) {
+            rastreador.pararRelatorioPeriodico();
+            System.out.println(rastreador.gerarRelatorio(false));
+        }
 
         System.out.println("\n--- Teste da Árvore B* Concluído ---");
     }
@@ -614,12 +1230,9 @@ public class ArvoreBEstrelaCompleta {
         String linha;
         try (BufferedReader br = new BufferedReader(new FileReader(nomeArquivo))) {
             while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(",");
-                if (dados.length == 3) {
-                    int id = Integer.parseInt(dados[0].trim());
-                    String nome = dados[1].trim();
-                    String categoria = dados[2].trim();
-                    itens.add(new ItemProduto(id, nome, categoria));
+                ItemProduto item = ItemProduto.interpretarLinha(linha);
+                if (item != null) {
+                    itens.add(item);
                 }
             }
         } catch (IOException e) {
@@ -0,0 +1,292 @@
+// ArvoreBPlusBufferizada.java
+// Modo de escrita com buffer na frente de uma ArvoreBPlus (no estilo de uma LSM): inserções e
+// remoções só gravam um delta num mapa ordenado em memória (ConcurrentSkipListMap), em
+// O(log b) e sem mexer na árvore. Remoções gravam uma lápide. As leituras consultam o buffer
+// antes da árvore. Uma thread aplicadora troca o buffer por um vazio e aplica os deltas na
+// árvore em ordem de chave; se o lote é grande em relação à árvore, reconstrói a árvore em lote
+// de uma vez, sem nenhuma divisão ou fusão de nós.
+//
+// Inserir uma chave que já existe substitui o valor, como na própria árvore.
+// Depois de embrulhada, a árvore só deve ser acessada por esta classe.
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+public class ArvoreBPlusBufferizada implements AutoCloseable {
+    // Lápide: comparada por identidade, nunca é um valor gravado por quem usa a classe
+    private static final String LAPIDE = new String("<removido>");
+    private static final int DELTAS_POR_TRAVA = 256;       // Deltas aplicados por aquisição da trava da árvore
+    private static final int FATOR_RECONSTRUCAO = 8;       // Reconstrói se o lote tem ao menos 1/8 do tamanho da árvore
+    private static final double OCUPACAO_RECONSTRUCAO = 0.7;
+
+    private final ArvoreBPlus arvore;
+    private final int limiteBuffer;
+    private final long intervaloNanos;
+
+    private volatile ConcurrentSkipListMap<Integer, String> ativo = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentSkipListMap<Integer, String> emAplicacao; // Lote sendo aplicado, ou null
+    private final AtomicInteger pendentes = new AtomicInteger(); // Escritas no buffer ativo (com sobrescritas)
+    private final StampedLock trocaBuffer = new StampedLock();   // Escritores compartilham; a troca é exclusiva
+    private final StampedLock travaArvore = new StampedLock();   // Leituras otimistas; só a aplicadora escreve
+    private final Object travaAplicacao = new Object();
+    private long quantidadeNaArvore; // Só lido e alterado com travaAplicacao
+
+    private final Thread aplicadora;
+    private volatile boolean encerrada;
+
+    private final LongAdder lotesAplicados = new LongAdder();
+    private final LongAdder deltasAplicados = new LongAdder();
+    private final LongAdder reconstrucoes = new LongAdder();
+
+    // Aplica o buffer quando ele acumula 'limiteBuffer' escritas ou a cada 'intervalo'
+    public ArvoreBPlusBufferizada(ArvoreBPlus arvore, int limiteBuffer, long intervalo, TimeUnit unidade) {
+        this.arvore = arvore;
+        this.limiteBuffer = limiteBuffer;
+        this.intervaloNanos = unidade.toNanos(intervalo);
+        this.quantidadeNaArvore = arvore.coletarEmOrdem(new ArrayList<>()).length;
+        this.aplicadora = new Thread(this::aplicarContinuamente, "aplicadora-buffer");
+        this.aplicadora.setDaemon(true);
+        this.aplicadora.start();
+    }
+
+    // --- ESCRITAS ---
+
+    public void inserirItem(int chave, String valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Valor nulo para a chave " + chave);
+        }
+        gravarDelta(chave, valor);
+    }
+
+    // Remoção cega: grava a lápide sem verificar se a chave existe
+    public void removerItem(int chave) {
+        gravarDelta(chave, LAPIDE);
+    }
+
+    private void gravarDelta(int chave, String delta) {
+        long carimbo = trocaBuffer.readLock();
+        try {
+            ativo.put(chave, delta);
+        } finally {
+            trocaBuffer.unlockRead(carimbo);
+        }
+        if (pendentes.incrementAndGet() == limiteBuffer) {
+            LockSupport.unpark(aplicadora);
+        }
+    }
+
+    // --- LEITURAS ---
+
+    // Ordem de consulta: buffer ativo, lote em aplicação, árvore. A aplicadora publica o lote em
+    // aplicação antes de trocar o buffer e só o descarta depois de aplicado, então um delta
+    // sempre está visível em pelo menos um dos três.
+    public String buscarItem(int chave) {
+        String delta = ativo.get(chave);
+        if (delta == null) {
+            ConcurrentSkipListMap<Integer, String> lote = emAplicacao;
+            if (lote != null) delta = lote.get(chave);
+        }
+        if (delta != null) {
+            return delta == LAPIDE ? null : delta;
+        }
+        return lerArvore(a -> a.buscarItem(chave));
+    }
+
+    // Intercala, em ordem de chave, o intervalo da árvore com os deltas dos buffers
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        List<String> resultados = new ArrayList<>();
+        if (chaveInicio > chaveFim) return resultados;
+        NavigableMap<Integer, String> deltas = new TreeMap<>();
+        ConcurrentSkipListMap<Integer, String> recente = ativo;
+        ConcurrentSkipListMap<Integer, String> lote = emAplicacao;
+        if (lote != null) deltas.putAll(lote.subMap(chaveInicio, true, chaveFim, true));
+        deltas.putAll(recente.subMap(chaveInicio, true, chaveFim, true)); // O buffer ativo é mais novo
+
+        List<Integer> chaves = new ArrayList<>();
+        List<String> valores = new ArrayList<>();
+        lerArvore(a -> {
+            chaves.clear();
+            valores.clear();
+            a.coletarIntervalo(chaveInicio, chaveFim, chaves, valores);
+            return null;
+        });
+
+        Iterator<Map.Entry<Integer, String>> iteradorDeltas = deltas.entrySet().iterator();
+        Map.Entry<Integer, String> delta = iteradorDeltas.hasNext() ? iteradorDeltas.next() : null;
+        for (int i = 0; i < chaves.size(); i++) {
+            int chave = chaves.get(i);
+            while (delta != null && delta.getKey() < chave) {
+                if (delta.getValue() != LAPIDE) resultados.add(delta.getValue());
+                delta = iteradorDeltas.hasNext() ? iteradorDeltas.next() : null;
+            }
+            if (delta != null && delta.getKey() == chave) {
+                continue; // O delta substitui (ou remove) a chave; é emitido quando a árvore passar dela
+            }
+            resultados.add(valores.get(i));
+        }
+        while (delta != null) {
+            if (delta.getValue() != LAPIDE) resultados.add(delta.getValue());
+            delta = iteradorDeltas.hasNext() ? iteradorDeltas.next() : null;
+        }
+        return resultados;
+    }
+
+    // Leitura otimista da árvore, repetida com a trava de leitura se a aplicadora escreveu no meio
+    private <T> T lerArvore(Function<ArvoreBPlus, T> leitura) {
+        long carimbo = travaArvore.tryOptimisticRead();
+        if (carimbo != 0) {
+            try {
+                T resultado = leitura.apply(arvore);
+                if (travaArvore.validate(carimbo)) return resultado;
+            } catch (RuntimeException e) {
+                if (travaArvore.validate(carimbo)) throw e;
+            }
+        }
+        carimbo = travaArvore.readLock();
+        try {
+            return leitura.apply(arvore);
+        } finally {
+            travaArvore.unlockRead(carimbo);
+        }
+    }
+
+    // --- APLICAÇÃO DOS DELTAS ---
+
+    private void aplicarContinuamente() {
+        while (!encerrada) {
+            LockSupport.parkNanos(this, intervaloNanos);
+            if (pendentes.get() > 0) {
+                descarregar();
+            }
+        }
+        descarregar();
+    }
+
+    // Aplica na árvore tudo o que está no buffer neste momento
+    public void descarregar() {
+        synchronized (travaAplicacao) {
+            ConcurrentSkipListMap<Integer, String> lote;
+            long carimbo = trocaBuffer.writeLock();
+            try {
+                lote = ativo;
+                if (lote.isEmpty()) return;
+                emAplicacao = lote;
+                ativo = new ConcurrentSkipListMap<>();
+                pendentes.set(0);
+            } finally {
+                trocaBuffer.unlockWrite(carimbo);
+            }
+            int quantidade = lote.size();
+            if ((long) quantidade * FATOR_RECONSTRUCAO >= quantidadeNaArvore) {
+                reconstruirCom(lote);
+                reconstrucoes.increment();
+            } else {
+                aplicarEmPartes(lote);
+            }
+            emAplicacao = null;
+            lotesAplicados.increment();
+            deltasAplicados.add(quantidade);
+        }
+    }
+
+    // Aplica delta a delta em ordem de chave, soltando a trava a cada DELTAS_POR_TRAVA para que
+    // leituras que caíram na trava de leitura não esperem o lote inteiro
+    private void aplicarEmPartes(ConcurrentSkipListMap<Integer, String> lote) {
+        Iterator<Map.Entry<Integer, String>> iterador = lote.entrySet().iterator();
+        while (iterador.hasNext()) {
+            long carimbo = travaArvore.writeLock();
+            try {
+                for (int i = 0; i < DELTAS_POR_TRAVA && iterador.hasNext(); i++) {
+                    Map.Entry<Integer, String> delta = iterador.next();
+                    if (delta.getValue() == LAPIDE) {
+                        if (arvore.removerItem(delta.getKey())) quantidadeNaArvore--;
+                    } else if (!arvore.atualizarItem(delta.getKey(), delta.getValue())) {
+                        arvore.inserirItem(delta.getKey(), delta.getValue());
+                        quantidadeNaArvore++;
+                    }
+                }
+            } finally {
+                travaArvore.unlockWrite(carimbo);
+            }
+        }
+    }
+
+    // Intercala o conteúdo da árvore com o lote e constrói a nova estrutura fora da trava; só a
+    // troca da raiz acontece com a trava de escrita. A aplicadora é a única que escreve na
+    // árvore, então lê-la aqui sem trava é seguro.
+    private void reconstruirCom(ConcurrentSkipListMap<Integer, String> lote) {
+        List<String> valoresArvore = new ArrayList<>();
+        int[] chavesArvore = arvore.coletarEmOrdem(valoresArvore);
+        int[] chaves = new int[chavesArvore.length + lote.size()];
+        String[] valores = new String[chaves.length];
+        int quantidade = 0;
+        int i = 0;
+        for (Map.Entry<Integer, String> delta : lote.entrySet()) {
+            int chaveDelta = delta.getKey();
+            for (; i < chavesArvore.length && chavesArvore[i] < chaveDelta; i++, quantidade++) {
+                chaves[quantidade] = chavesArvore[i];
+                valores[quantidade] = valoresArvore.get(i);
+            }
+            while (i < chavesArvore.length && chavesArvore[i] == chaveDelta) {
+                i++; // Substituída ou removida pelo delta
+            }
+            if (delta.getValue() != LAPIDE) {
+                chaves[quantidade] = chaveDelta;
+                valores[quantidade++] = delta.getValue();
+            }
+        }
+        for (; i < chavesArvore.length; i++, quantidade++) {
+            chaves[quantidade] = chavesArvore[i];
+            valores[quantidade] = valoresArvore.get(i);
+        }
+        EstruturaReconstruida estrutura = arvore.construirOrdenados(chaves, valores, quantidade, OCUPACAO_RECONSTRUCAO);
+        long carimbo = travaArvore.writeLock();
+        try {
+            arvore.aplicarCompactacao(estrutura);
+        } finally {
+            travaArvore.unlockWrite(carimbo);
+        }
+        quantidadeNaArvore = quantidade;
+    }
+
+    // --- ESTATÍSTICAS ---
+
+    public int obterEscritasPendentes() {
+        return pendentes.get();
+    }
+
+    public long obterLotesAplicados() {
+        return lotesAplicados.sum();
+    }
+
+    public long obterDeltasAplicados() {
+        return deltasAplicados.sum();
+    }
+
+    public long obterReconstrucoes() {
+        return reconstrucoes.sum();
+    }
+
+    // Aplica o que restou no buffer e encerra a thread aplicadora
+    @Override
+    public void close() {
+        encerrada = true;
+        LockSupport.unpark(aplicadora);
+        try {
+            aplicadora.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
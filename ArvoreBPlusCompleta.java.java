@@ -5,69 +5,61 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-
-// --- Classe ItemProduto (Modelo de Dados) ---
-// Representa um produto com ID, nome e categoria
-class ItemProduto {
-    private int idItem;
-    private String nomeItem;
-    private String categoriaItem;
-
-    public ItemProduto(int idItem, String nomeItem, String categoriaItem) {
-        this.idItem = idItem;
-        this.nomeItem = nomeItem;
-        this.categoriaItem = categoriaItem;
-    }
-
-    public int obterId() {
-        return idItem;
-    }
-
-    public String obterNome() {
-        return nomeItem;
-    }
-
-    public String obterCategoria() {
-        return categoriaItem;
-    }
-
-    @Override
-    public String toString() {
-        return "ID: " + idItem + ", Nome: " + nomeItem + ", Categoria: " + categoriaItem;
-    }
-
-    // Formata a informação do produto para ser armazenada como valor na árvore
-    public String obterInfoParaArvore() {
-        return nomeItem + ", " + categoriaItem;
-    }
-}
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 
 // --- CLASSES DE NÓS PARA ÁRVORE B+ ---
 
-// Nó base para a implementação da Árvore B+
-class NoBase {
+// Nó base para a implementação da Árvore B+; a versão herdada só muda com os leitores concorrentes ativos
+class NoBase extends NoVersionado {
     protected List<Integer> chaves;
     protected boolean ehFolha;
-    protected NoBase pai;
     protected int maxChaves;
+    // Limites de cerca: o intervalo [limiteInferior, limiteSuperior) que os separadores dos
+    // ancestrais reservam ao nó. Permitem decidir se o nó cai num intervalo sem olhar as chaves.
+    protected long limiteInferior = Long.MIN_VALUE;
+    protected long limiteSuperior = Long.MAX_VALUE;
 
     public NoBase(int maxChaves, boolean ehFolha) {
         this.chaves = new ArrayList<>();
         this.ehFolha = ehFolha;
         this.maxChaves = maxChaves;
-        this.pai = null;
     }
 
     public boolean estaCheio() {
         return chaves.size() >= maxChaves;
     }
 
+    // Passou da capacidade e precisa ser dividido
+    public boolean transbordou() {
+        return chaves.size() > maxChaves;
+    }
+
+    // Folhas: (maxChaves + 1) / 2 chaves. Nós internos: maxChaves / 2 chaves, ou seja, metade
+    // dos maxChaves + 1 descendentes arredondada para cima.
+    public int obterMinimoDeChaves() {
+        return ehFolha ? (maxChaves + 1) / 2 : maxChaves / 2;
+    }
+
     public boolean temMinimoDeChaves() {
-        // Mínimo para B+ é (maxChaves + 1) / 2
-        return chaves.size() >= (maxChaves + 1) / 2;
+        return chaves.size() >= obterMinimoDeChaves();
+    }
+
+    public boolean podeEmprestarChave() {
+        return chaves.size() > obterMinimoDeChaves();
     }
 
     public List<Integer> obterChaves() {
@@ -78,12 +70,37 @@ class NoBase {
         return ehFolha;
     }
 
-    public NoBase obterPai() {
-        return pai;
+    public long obterLimiteInferior() {
+        return limiteInferior;
+    }
+
+    public long obterLimiteSuperior() {
+        return limiteSuperior;
     }
 
-    public void definirPai(NoBase pai) {
-        this.pai = pai;
+    public void definirLimites(long limiteInferior, long limiteSuperior) {
+        this.limiteInferior = limiteInferior;
+        this.limiteSuperior = limiteSuperior;
+    }
+
+    // Posição da primeira chave >= 'chave' (busca binária)
+    public int encontrarPosicao(int chave) {
+        int inicio = 0;
+        int fim = chaves.size();
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (chaves.get(meio) < chave) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    // Posição da primeira chave > 'chave'
+    public int encontrarPosicaoApos(int chave) {
+        return chave == Integer.MAX_VALUE ? chaves.size() : encontrarPosicao(chave + 1);
     }
 }
 
@@ -98,24 +115,23 @@ class NoInterno extends NoBase {
 
     public void adicionarDescendente(NoBase descendente) {
         descendentes.add(descendente);
-        descendente.definirPai(this);
     }
 
     public void inserirDescendente(int indice, NoBase descendente) {
         descendentes.add(indice, descendente);
-        descendente.definirPai(this);
     }
 
-    public void removerDescendente(NoBase descendente) {
-        descendentes.remove(descendente);
+    public NoBase removerDescendente(int indice) {
+        return descendentes.remove(indice);
+    }
+
+    // Índice do descendente que cobre a chave: quantos separadores são <= chave
+    public int encontrarIndiceDescendente(int chave) {
+        return encontrarPosicaoApos(chave);
     }
 
     public NoBase encontrarDescendente(int chave) {
-        int i = 0;
-        while (i < chaves.size() && chave >= chaves.get(i)) {
-            i++;
-        }
-        return descendentes.get(i);
+        return descendentes.get(encontrarIndiceDescendente(chave));
     }
 
     public List<NoBase> obterDescendentes() {
@@ -125,6 +141,16 @@ class NoInterno extends NoBase {
     public NoBase obterDescendente(int indice) {
         return descendentes.get(indice);
     }
+
+    // Recalcula os limites de cerca dos descendentes a partir dos separadores e dos limites
+    // deste nó; chamado depois de cada mudança nos separadores ou na lista de descendentes
+    public void atualizarLimitesDescendentes() {
+        for (int i = 0; i < descendentes.size(); i++) {
+            long inferior = i == 0 ? limiteInferior : (i - 1 < chaves.size() ? chaves.get(i - 1) : limiteSuperior);
+            long superior = i < chaves.size() ? chaves.get(i) : limiteSuperior;
+            descendentes.get(i).definirLimites(inferior, superior);
+        }
+    }
 }
 
 // Nó folha para a implementação da Árvore B+
@@ -141,17 +167,24 @@ class NoFolha extends NoBase {
     }
 
     public void inserir(int chave, String valor) {
-        int posInsercao = 0;
-        while (posInsercao < chaves.size() && chaves.get(posInsercao) < chave) {
-            posInsercao++;
-        }
+        int posInsercao = encontrarPosicao(chave);
         chaves.add(posInsercao, chave);
         valores.add(posInsercao, valor);
     }
 
+    // Troca o valor de uma chave que já está na folha; devolve false se ela não está
+    public boolean substituir(int chave, String valor) {
+        int indice = encontrarPosicao(chave);
+        if (indice < chaves.size() && chaves.get(indice) == chave) {
+            valores.set(indice, valor);
+            return true;
+        }
+        return false;
+    }
+
     public boolean remover(int chave) {
-        int indice = chaves.indexOf(chave);
-        if (indice != -1) {
+        int indice = encontrarPosicao(chave);
+        if (indice < chaves.size() && chaves.get(indice) == chave) {
             chaves.remove(indice);
             valores.remove(indice);
             return true;
@@ -160,8 +193,8 @@ class NoFolha extends NoBase {
     }
 
     public String buscar(int chave) {
-        int indice = chaves.indexOf(chave);
-        return indice != -1 ? valores.get(indice) : null;
+        int indice = encontrarPosicao(chave);
+        return indice < chaves.size() && chaves.get(indice) == chave ? valores.get(indice) : null;
     }
 
     public NoFolha dividir() {
@@ -203,270 +236,1090 @@ class NoFolha extends NoBase {
     }
 }
 
+// --- CONSTRUÇÃO EM LOTE DA ÁRVORE B+ ---
+
+// Monta uma árvore B+ de baixo para cima a partir de chaves já ordenadas: primeiro o
+// encadeamento de folhas com a ocupação desejada, depois cada nível interno sobre o anterior.
+// Os nós produzidos respeitam os mesmos limites de ocupação que inserções e remoções mantêm.
+class ConstrutorArvoreBPlus {
+    private final int maxChaves;
+    private final int minChaves;         // Mínimo de chaves numa folha
+    private final int minDescendentes;   // Mínimo de descendentes num nó interno
+
+    public ConstrutorArvoreBPlus(int maxChaves) {
+        this.maxChaves = maxChaves;
+        this.minChaves = (maxChaves + 1) / 2;
+        this.minDescendentes = maxChaves / 2 + 1;
+    }
+
+    // Constrói a árvore e devolve a raiz
+    public NoBase construir(int[] chaves, String[] valores, int quantidade, double fatorOcupacao) {
+        if (quantidade == 0) {
+            return new NoFolha(maxChaves);
+        }
+
+        // Folhas: entre minChaves e maxChaves chaves
+        int alvoFolha = limitar((int) Math.round(fatorOcupacao * maxChaves), minChaves, maxChaves);
+        int[] tamanhosFolhas = dividirEmGrupos(quantidade, alvoFolha, minChaves);
+        List<NoBase> nivel = new ArrayList<>(tamanhosFolhas.length);
+        List<Integer> menoresChaves = new ArrayList<>(tamanhosFolhas.length);
+        NoFolha anterior = null;
+        int posicao = 0;
+        for (int tamanho : tamanhosFolhas) {
+            NoFolha folha = new NoFolha(maxChaves);
+            for (int i = 0; i < tamanho; i++, posicao++) {
+                folha.obterChaves().add(chaves[posicao]);
+                folha.obterValores().add(valores[posicao]);
+            }
+            if (anterior != null) {
+                anterior.definirProximo(folha);
+                folha.definirAnterior(anterior);
+            }
+            anterior = folha;
+            nivel.add(folha);
+            menoresChaves.add(folha.obterChaves().get(0));
+        }
+
+        // Nós internos: entre minDescendentes e maxChaves + 1 descendentes
+        int alvoDescendentes = limitar((int) Math.round(fatorOcupacao * (maxChaves + 1)), minDescendentes, maxChaves + 1);
+        while (nivel.size() > 1) {
+            int[] tamanhosGrupos = dividirEmGrupos(nivel.size(), alvoDescendentes, minDescendentes);
+            List<NoBase> proximoNivel = new ArrayList<>(tamanhosGrupos.length);
+            List<Integer> proximasMenores = new ArrayList<>(tamanhosGrupos.length);
+            posicao = 0;
+            for (int tamanho : tamanhosGrupos) {
+                NoInterno interno = new NoInterno(maxChaves);
+                for (int i = 0; i < tamanho; i++, posicao++) {
+                    if (i > 0) {
+                        interno.obterChaves().add(menoresChaves.get(posicao));
+                    }
+                    interno.adicionarDescendente(nivel.get(posicao));
+                }
+                proximoNivel.add(interno);
+                proximasMenores.add(menoresChaves.get(posicao - tamanho));
+            }
+            nivel = proximoNivel;
+            menoresChaves = proximasMenores;
+        }
+        definirLimites(nivel.get(0));
+        return nivel.get(0);
+    }
+
+    // Preenche os limites de cerca de cima para baixo; a raiz cobre todas as chaves
+    private static void definirLimites(NoBase no) {
+        if (no.ehFolha()) {
+            return;
+        }
+        NoInterno interno = (NoInterno) no;
+        interno.atualizarLimitesDescendentes();
+        for (NoBase descendente : interno.obterDescendentes()) {
+            definirLimites(descendente);
+        }
+    }
+
+    // Divide 'total' itens em grupos de tamanho próximo de 'alvo', sem que nenhum fique abaixo
+    // de 'minimo' (exceto quando há um único grupo, que vira a raiz do nível)
+    static int[] dividirEmGrupos(int total, int alvo, int minimo) {
+        int grupos = (total + alvo - 1) / alvo;
+        grupos = Math.max(1, Math.min(grupos, total / Math.max(1, minimo)));
+        int[] tamanhos = new int[grupos];
+        int base = total / grupos;
+        int sobra = total % grupos;
+        for (int i = 0; i < grupos; i++) {
+            tamanhos[i] = base + (i < sobra ? 1 : 0);
+        }
+        return tamanhos;
+    }
+
+    private static int limitar(int valor, int minimo, int maximo) {
+        return Math.max(minimo, Math.min(maximo, valor));
+    }
+}
+
+// Árvore reconstruída fora do caminho das leituras, pronta para substituir a estrutura atual.
+// Imutável: passa do thread que a construiu para o que escreve na árvore sem cópia.
+class EstruturaReconstruida {
+    final NoBase raiz;
+    final long versaoOrigem; // Versão da árvore quando o conteúdo foi copiado
+
+    EstruturaReconstruida(NoBase raiz, long versaoOrigem) {
+        this.raiz = raiz;
+        this.versaoOrigem = versaoOrigem;
+    }
+}
+
+// --- VERIFICAÇÃO ESTRUTURAL DA ÁRVORE B+ ---
+
+// Percorre a árvore verificando ordenação das chaves, separadores, limites de cerca,
+// encadeamento das folhas e ocupação mínima. Não altera a árvore, então pode ser usado
+// tanto na árvore em uso quanto numa carregada só para diagnóstico.
+class AnalisadorArvoreBPlus {
+    private final ArvoreBPlus arvore;
+    private final int maxChaves;
+    private final RelatorioEstrutura relatorio = new RelatorioEstrutura("ArvoreBPlus");
+    private final List<NoFolha> folhasEmOrdem = new ArrayList<>();
+    private int profundidadeFolhas = -1;
+
+    public AnalisadorArvoreBPlus(ArvoreBPlus arvore) {
+        this.arvore = arvore;
+        this.maxChaves = arvore.obterMaxChaves();
+    }
+
+    public RelatorioEstrutura analisar() {
+        NoBase raiz = arvore.obterRaiz();
+        if (raiz == null) {
+            relatorio.registrarViolacao("Raiz nula: a árvore ficou inutilizável após esvaziar");
+            relatorio.definirEstatisticas(arvore.coletarEstatisticas());
+            return relatorio;
+        }
+        verificarNo(raiz, 0, Long.MIN_VALUE, Long.MAX_VALUE);
+        verificarEncadeamento();
+        relatorio.definirEstatisticas(arvore.coletarEstatisticas());
+        return relatorio;
+    }
+
+    // Todas as chaves do nó devem estar em [limiteInferior, limiteSuperior)
+    private void verificarNo(NoBase no, int nivel, long limiteInferior, long limiteSuperior) {
+        List<Integer> chaves = no.obterChaves();
+        String descricao = descrever(no, nivel);
+        relatorio.registrarNo(nivel, chaves.size(), maxChaves);
+        if (no.obterLimiteInferior() != limiteInferior || no.obterLimiteSuperior() != limiteSuperior) {
+            relatorio.registrarViolacao(descricao + ": limites de cerca [" + formatarLimite(no.obterLimiteInferior()) + ", "
+                    + formatarLimite(no.obterLimiteSuperior()) + ") diferentes dos separadores ["
+                    + formatarLimite(limiteInferior) + ", " + formatarLimite(limiteSuperior) + ")");
+        }
+
+        for (int i = 0; i < chaves.size(); i++) {
+            int chave = chaves.get(i);
+            if (i > 0 && chaves.get(i - 1) >= chave) {
+                relatorio.registrarViolacao(descricao + ": chaves fora de ordem (" + chaves.get(i - 1) + " >= " + chave + ")");
+            }
+            if (chave < limiteInferior || chave >= limiteSuperior) {
+                relatorio.registrarViolacao(descricao + ": chave " + chave + " fora do intervalo do separador ["
+                        + formatarLimite(limiteInferior) + ", " + formatarLimite(limiteSuperior) + ")");
+            }
+        }
+        if (chaves.size() > maxChaves) {
+            relatorio.registrarViolacao(descricao + ": acima da capacidade (" + chaves.size() + " chaves)");
+        }
+        if (no != arvore.obterRaiz() && !no.temMinimoDeChaves()) {
+            relatorio.registrarViolacao(descricao + ": abaixo da ocupação mínima (" + chaves.size() + " chaves)");
+        }
+
+        if (no.ehFolha()) {
+            NoFolha folha = (NoFolha) no;
+            if (folha.obterValores().size() != chaves.size()) {
+                relatorio.registrarViolacao(descricao + ": " + chaves.size() + " chaves e " + folha.obterValores().size() + " valores");
+            }
+            if (profundidadeFolhas == -1) {
+                profundidadeFolhas = nivel;
+            } else if (profundidadeFolhas != nivel) {
+                relatorio.registrarViolacao(descricao + ": folha no nível " + nivel + ", esperado " + profundidadeFolhas);
+            }
+            folhasEmOrdem.add(folha);
+            return;
+        }
+
+        NoInterno interno = (NoInterno) no;
+        List<NoBase> descendentes = interno.obterDescendentes();
+        if (descendentes.size() != chaves.size() + 1) {
+            relatorio.registrarViolacao(descricao + ": " + chaves.size() + " chaves e " + descendentes.size() + " descendentes");
+        }
+        for (int i = 0; i < descendentes.size(); i++) {
+            NoBase descendente = descendentes.get(i);
+            long inferior = i == 0 ? limiteInferior : (i - 1 < chaves.size() ? chaves.get(i - 1) : limiteSuperior);
+            long superior = i < chaves.size() ? chaves.get(i) : limiteSuperior;
+            verificarNo(descendente, nivel + 1, inferior, superior);
+        }
+    }
+
+    // O encadeamento proximo/anterior deve visitar as mesmas folhas do percurso em ordem
+    private void verificarEncadeamento() {
+        NoFolha primeira = arvore.obterPrimeiraFolha();
+        if (!folhasEmOrdem.isEmpty() && primeira != folhasEmOrdem.get(0)) {
+            relatorio.registrarViolacao("a descida pela menor chave não chega à primeira folha do percurso");
+        }
+        NoFolha anterior = null;
+        NoFolha atual = primeira;
+        int posicao = 0;
+        long ultimaChave = Long.MIN_VALUE;
+        while (atual != null && posicao <= folhasEmOrdem.size()) {
+            if (posicao < folhasEmOrdem.size() && atual != folhasEmOrdem.get(posicao)) {
+                relatorio.registrarViolacao("Encadeamento de folhas diverge da árvore na posição " + posicao);
+                return;
+            }
+            if (atual.obterAnterior() != anterior) {
+                relatorio.registrarViolacao("Ponteiro 'anterior' incorreto na folha " + posicao + " do encadeamento");
+            }
+            for (int chave : atual.obterChaves()) {
+                if (chave <= ultimaChave) {
+                    relatorio.registrarViolacao("Encadeamento fora de ordem: " + chave + " após " + ultimaChave);
+                }
+                ultimaChave = chave;
+            }
+            anterior = atual;
+            atual = atual.obterProximo();
+            posicao++;
+        }
+        if (posicao != folhasEmOrdem.size()) {
+            relatorio.registrarViolacao("Encadeamento com " + posicao + " folhas, árvore com " + folhasEmOrdem.size());
+        }
+    }
+
+    private static String descrever(NoBase no, int nivel) {
+        String tipo = no.ehFolha() ? "Folha" : "Nó interno";
+        String primeira = no.obterChaves().isEmpty() ? "vazio" : "primeira chave " + no.obterChaves().get(0);
+        return tipo + " (nível " + nivel + ", " + primeira + ")";
+    }
+
+    private static String formatarLimite(long limite) {
+        if (limite == Long.MIN_VALUE) return "-inf";
+        if (limite == Long.MAX_VALUE) return "+inf";
+        return String.valueOf(limite);
+    }
+}
+
 // --- CLASSE ARVORE B+ (Principal da Implementação) ---
-class ArvoreBPlus { // Não é public para permitir a classe externa ArvoreBPlusCompleta ser public
-    private NoBase raiz;
+class ArvoreBPlus implements IndiceOrdenado { // Não é public para permitir a classe externa ArvoreBPlusCompleta ser public
+    private volatile NoBase raiz; // Volátil para os leitores concorrentes verem a troca de raiz
     private int maxChaves; // Número máximo de chaves por nó (m-1 para ordem m)
-    private NoFolha primeiraFolha; // Primeira folha (para percorrer sequencialmente)
+    private MetricasArvore metricas; // Nulo enquanto as métricas estão desativadas
+    private RastreadorOperacoes rastreador; // Nulo enquanto o rastreamento de latência está desativado
+    private volatile long versao; // Incrementada a cada modificação; usada para validar compactações
+    private volatile FiltroBloom filtro; // Nulo enquanto o filtro de chaves ausentes está desativado
+    private double taxaFiltro;
+    private int remocoesDesdeFiltro; // Chaves removidas que ainda marcam bits no filtro
+    private RegistroAlteracoes alteracoes; // Nulo enquanto o modo de leitores concorrentes está desativado
+    // Caminho da última descida de escrita: ancestrais[i] é o nó interno do nível i e posicoes[i]
+    // o índice do descendente seguido nele. Divisões, empréstimos e fusões sobem por ele em vez de
+    // procurar o nó na lista do pai. Só escritas o preenchem, para que leituras concorrentes
+    // (otimistas) nunca o alterem no meio de um rebalanceamento.
+    private NoInterno[] ancestrais = new NoInterno[8];
+    private int[] posicoes = new int[8];
+    private int profundidade; // Quantidade de ancestrais no caminho
 
     public ArvoreBPlus(int ordem) { // Ordem 'm' da árvore
         this.maxChaves = ordem - 1; // Para ordem 3, maxChaves = 2
         this.raiz = new NoFolha(maxChaves);
-        this.primeiraFolha = (NoFolha) raiz;
     }
 
     public void inserirItem(int chave, String valor) {
-        NoFolha folha = encontrarNoFolha(chave);
-        folha.inserir(chave, valor);
-        if (folha.estaCheio()) {
-            dividirNoFolha(folha);
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        NoFolha folha = descerParaEscrita(chave);
+        int visitados = profundidade + 1;
+        if (metricas != null) metricas.registrarInsercao(visitados);
+        versao++;
+        marcar(folha);
+        // Chave existente: troca o valor no lugar, numa única escrita marcada da folha, para que
+        // um leitor concorrente veja o valor antigo ou o novo, nunca a chave ausente
+        boolean nova = !folha.substituir(chave, valor);
+        if (nova) {
+            // O filtro recebe a chave antes da folha: um leitor concorrente que já a veja na árvore
+            // não pode ser barrado por ele
+            if (filtro != null) {
+                filtro.adicionar(chave);
+            }
+            folha.inserir(chave, valor);
+            if (folha.transbordou()) {
+                dividirNoFolha(folha);
+            }
+        }
+        liberarMarcas();
+        if (nova && filtro != null && filtro.estaSaturado()) {
+            reconstruirFiltro();
+        }
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INSERCAO, System.nanoTime() - inicio, visitados);
+        }
+    }
+
+    // Troca o valor só se a chave existe, sem inserir; devolve se ela existia
+    public boolean atualizarItem(int chave, String valor) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        boolean atualizado = false;
+        int visitados = 0;
+        if (filtro == null || filtro.podeConter(chave)) {
+            NoFolha folha = descerParaEscrita(chave);
+            visitados = profundidade + 1;
+            marcar(folha);
+            atualizado = folha.substituir(chave, valor);
+            if (atualizado) versao++;
+            liberarMarcas();
+        }
+        if (metricas != null) metricas.registrarInsercao(visitados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INSERCAO, System.nanoTime() - inicio, visitados);
         }
+        return atualizado;
     }
 
     public String buscarItem(int chave) {
-        NoFolha folha = encontrarNoFolha(chave);
-        return folha.buscar(chave);
+        if (alteracoes != null) {
+            return buscarSemTrava(chave);
+        }
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        String valor = null;
+        boolean desceu = filtro == null || filtro.podeConter(chave); // Senão, respondida pelo filtro
+        if (desceu) {
+            valor = encontrarNoFolha(chave).buscar(chave);
+        }
+        if (metricas != null) metricas.registrarBusca(desceu ? nosPorDescida() : 0);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.BUSCA, System.nanoTime() - inicio, desceu ? nosPorDescida() : 0);
+        }
+        return valor;
     }
 
     public boolean removerItem(int chave) {
-        NoFolha folha = encontrarNoFolha(chave);
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        if (filtro != null && !filtro.podeConter(chave)) {
+            if (metricas != null) metricas.registrarRemocao(0);
+            if (rastreador != null) {
+                rastreador.registrar(RastreadorOperacoes.Operacao.REMOCAO, System.nanoTime() - inicio, 0);
+            }
+            return false;
+        }
+        NoFolha folha = descerParaEscrita(chave);
+        int visitados = profundidade + 1;
+        if (metricas != null) metricas.registrarRemocao(visitados);
+        marcar(folha);
         boolean removido = folha.remover(chave);
 
         if (removido) {
-            if (!folha.temMinimoDeChaves() && folha != raiz) {
-                lidarComSubutilizacaoFolha(folha);
+            versao++;
+            if (profundidade > 0 && !folha.temMinimoDeChaves()) {
+                lidarComSubutilizacao(profundidade - 1, folha);
             }
+            // Fusões tiram no máximo um separador da raiz; sem nenhum, o único descendente assume.
+            // A raiz antiga é marcada para que leitores que ainda partam dela desçam de novo.
             if (raiz.obterChaves().isEmpty() && !raiz.ehFolha()) {
-                raiz = ((NoInterno) raiz).obterDescendente(0);
-                raiz.definirPai(null);
-            } else if (raiz.obterChaves().isEmpty() && raiz.ehFolha()) {
-                this.raiz = null;
-                this.primeiraFolha = null;
+                NoBase novaRaiz = ((NoInterno) raiz).obterDescendente(0);
+                marcar(raiz);
+                marcar(novaRaiz);
+                novaRaiz.definirLimites(Long.MIN_VALUE, Long.MAX_VALUE);
+                raiz = novaRaiz;
             }
+            // Uma raiz folha vazia continua sendo a raiz, para que a árvore aceite novas inserções
+        }
+        liberarMarcas();
+        if (removido) {
+            if (filtro != null && ++remocoesDesdeFiltro > filtro.obterQuantidade() / 4) {
+                reconstruirFiltro();
+            }
+        }
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.REMOCAO, System.nanoTime() - inicio, visitados);
         }
         return removido;
     }
 
+    // Busca várias chaves em ordem crescente numa única passada: enquanto a próxima chave cabe
+    // na folha atual ou na seguinte, segue o encadeamento em vez de descer de novo desde a raiz
+    public void buscarVarios(int[] chavesOrdenadas, int quantidade, String[] resultados) {
+        if (raiz == null) {
+            Arrays.fill(resultados, 0, quantidade, null);
+            return;
+        }
+        NoFolha folha = null;
+        for (int i = 0; i < quantidade; i++) {
+            int chave = chavesOrdenadas[i];
+            if (folha != null && !cabeNaFolha(folha, chave)) {
+                NoFolha seguinte = folha.obterProximo();
+                folha = seguinte != null && cabeNaFolha(seguinte, chave) ? seguinte : null;
+            }
+            if (folha == null) {
+                folha = encontrarNoFolha(chave);
+                if (metricas != null) metricas.registrarBusca(nosPorDescida());
+            }
+            resultados[i] = folha.buscar(chave);
+        }
+    }
+
+    // A chave pertence à folha se não passa da primeira chave da folha seguinte
+    private boolean cabeNaFolha(NoFolha folha, int chave) {
+        List<Integer> chaves = folha.obterChaves();
+        if (chaves.isEmpty() || chave < chaves.get(0)) {
+            return false;
+        }
+        NoFolha seguinte = folha.obterProximo();
+        return seguinte == null || seguinte.obterChaves().isEmpty() || chave < seguinte.obterChaves().get(0);
+    }
+
     private NoFolha encontrarNoFolha(int chave) {
         NoBase atual = raiz;
+        while (!atual.ehFolha()) {
+            atual = ((NoInterno) atual).encontrarDescendente(chave);
+        }
+        return (NoFolha) atual;
+    }
+
+    // Nós visitados por uma descida até uma folha, que ficam todas no mesmo nível. Calculado por
+    // quem registra a operação, e não guardado num campo, para que leituras concorrentes não
+    // escrevam na árvore; só é chamado com métricas ou rastreamento ativos.
+    private int nosPorDescida() {
+        int niveis = 1;
+        for (NoBase no = raiz; !no.ehFolha(); no = ((NoInterno) no).obterDescendente(0)) {
+            niveis++;
+        }
+        return niveis;
+    }
+
+    // Como encontrarNoFolha, mas guardando o caminho para o rebalanceamento
+    private NoFolha descerParaEscrita(int chave) {
+        NoBase atual = raiz;
+        profundidade = 0;
         while (!atual.ehFolha()) {
             NoInterno interno = (NoInterno) atual;
-            int i = 0;
-            while (i < interno.obterChaves().size() && chave >= interno.obterChaves().get(i)) {
-                i++;
+            int indice = interno.encontrarIndiceDescendente(chave);
+            if (profundidade == ancestrais.length) {
+                ancestrais = Arrays.copyOf(ancestrais, profundidade * 2);
+                posicoes = Arrays.copyOf(posicoes, profundidade * 2);
             }
-            atual = interno.obterDescendentes().get(i);
+            ancestrais[profundidade] = interno;
+            posicoes[profundidade] = indice;
+            profundidade++;
+            atual = interno.obterDescendente(indice);
         }
         return (NoFolha) atual;
     }
 
     private void dividirNoFolha(NoFolha folha) {
         NoFolha novaFolha = folha.dividir();
+        if (metricas != null) metricas.registrarDivisao();
         int chavePromovida = novaFolha.obterChaves().get(0);
+        novaFolha.definirLimites(chavePromovida, folha.obterLimiteSuperior());
+        folha.definirLimites(folha.obterLimiteInferior(), chavePromovida);
+        inserirNoPai(profundidade - 1, folha, chavePromovida, novaFolha);
+    }
 
-        if (folha == raiz) {
+    // Coloca o separador e o novo irmão à direita de 'esquerdo' no ancestral do nível 'nivel'
+    // do caminho; nível -1 significa que 'esquerdo' era a raiz
+    private void inserirNoPai(int nivel, NoBase esquerdo, int chave, NoBase direito) {
+        if (nivel < 0) {
             NoInterno novaRaiz = new NoInterno(maxChaves);
-            novaRaiz.obterChaves().add(chavePromovida);
-            novaRaiz.adicionarDescendente(folha);
-            novaRaiz.adicionarDescendente(novaFolha);
+            novaRaiz.obterChaves().add(chave);
+            novaRaiz.adicionarDescendente(esquerdo);
+            novaRaiz.adicionarDescendente(direito);
             raiz = novaRaiz;
-        } else {
-            inserirNoPai(folha, chavePromovida, novaFolha);
+            return;
+        }
+        NoInterno pai = ancestrais[nivel];
+        int posicao = posicoes[nivel];
+        marcar(pai);
+        pai.obterChaves().add(posicao, chave);
+        pai.inserirDescendente(posicao + 1, direito);
+        if (pai.transbordou()) {
+            dividirNoInterno(nivel);
         }
     }
 
-    private void inserirNoPai(NoBase filhoEsquerdo, int chave, NoBase filhoDireito) {
-        NoInterno pai = (NoInterno) filhoEsquerdo.obterPai();
-        if (pai == null) {
-            NoInterno novaRaiz = new NoInterno(maxChaves);
-            novaRaiz.obterChaves().add(chave);
-            novaRaiz.adicionarDescendente(filhoEsquerdo);
-            novaRaiz.adicionarDescendente(filhoDireito);
-            filhoEsquerdo.definirPai(novaRaiz);
-            filhoDireito.definirPai(novaRaiz);
-            raiz = novaRaiz;
+    // Divide o ancestral do nível 'nivel': a chave do meio sobe, as da direita vão para o novo nó
+    private void dividirNoInterno(int nivel) {
+        NoInterno no = ancestrais[nivel];
+        List<Integer> chaves = no.obterChaves();
+        List<NoBase> descendentes = no.obterDescendentes();
+        int pontoMedio = chaves.size() / 2;
+        int chavePromovida = chaves.get(pontoMedio);
+        NoInterno novoNoInterno = new NoInterno(maxChaves);
+        if (metricas != null) metricas.registrarDivisao();
+
+        novoNoInterno.obterChaves().addAll(chaves.subList(pontoMedio + 1, chaves.size()));
+        novoNoInterno.obterDescendentes().addAll(descendentes.subList(pontoMedio + 1, descendentes.size()));
+        chaves.subList(pontoMedio, chaves.size()).clear();
+        descendentes.subList(pontoMedio + 1, descendentes.size()).clear();
+
+        // Os descendentes movidos mantêm seus limites; só as duas metades mudam
+        novoNoInterno.definirLimites(chavePromovida, no.obterLimiteSuperior());
+        no.definirLimites(no.obterLimiteInferior(), chavePromovida);
+        inserirNoPai(nivel - 1, no, chavePromovida, novoNoInterno);
+    }
+
+    // 'no' é o descendente do ancestral 'nivel' e ficou abaixo do mínimo: pega uma chave de um
+    // irmão que possa ceder ou, se nenhum pode, funde com um deles e repete o teste no ancestral
+    private void lidarComSubutilizacao(int nivel, NoBase no) {
+        NoInterno pai = ancestrais[nivel];
+        int indice = posicoes[nivel];
+        NoBase irmaoEsquerdo = indice > 0 ? pai.obterDescendente(indice - 1) : null;
+        NoBase irmaoDireito = indice < pai.obterDescendentes().size() - 1 ? pai.obterDescendente(indice + 1) : null;
+        marcar(pai); // Todo caminho abaixo muda um separador ou tira um descendente do pai
+
+        if (irmaoEsquerdo != null && irmaoEsquerdo.podeEmprestarChave()) {
+            emprestarDoIrmaoEsquerdo(pai, indice - 1, irmaoEsquerdo, no);
+            if (metricas != null) metricas.registrarRedistribuicao();
+            return;
+        }
+        if (irmaoDireito != null && irmaoDireito.podeEmprestarChave()) {
+            emprestarDoIrmaoDireito(pai, indice, no, irmaoDireito);
+            if (metricas != null) metricas.registrarRedistribuicao();
             return;
         }
 
-        int posInsercao = 0;
-        while (posInsercao < pai.obterChaves().size() && pai.obterChaves().get(posInsercao) < chave) {
-            posInsercao++;
+        if (irmaoEsquerdo != null) {
+            fundir(pai, indice - 1, irmaoEsquerdo, no);
+        } else if (irmaoDireito != null) {
+            fundir(pai, indice, no, irmaoDireito);
         }
-        pai.obterChaves().add(posInsercao, chave);
-        pai.inserirDescendente(posInsercao + 1, filhoDireito);
+        if (nivel > 0 && !pai.temMinimoDeChaves()) {
+            lidarComSubutilizacao(nivel - 1, pai);
+        }
+    }
 
-        if (pai.estaCheio()) {
-            dividirNoInterno(pai);
+    // Passa a última chave do irmão esquerdo para o início de 'no', acertando o separador no pai
+    private void emprestarDoIrmaoEsquerdo(NoInterno pai, int indiceSeparador, NoBase irmao, NoBase no) {
+        marcar(irmao);
+        marcar(no);
+        int ultima = irmao.obterChaves().size() - 1;
+        if (no.ehFolha()) {
+            NoFolha folha = (NoFolha) no;
+            folha.obterChaves().add(0, irmao.obterChaves().remove(ultima));
+            folha.obterValores().add(0, ((NoFolha) irmao).obterValores().remove(ultima));
+            pai.obterChaves().set(indiceSeparador, folha.obterChaves().get(0));
+        } else {
+            // Nó interno: o separador desce, a última chave do irmão sobe e leva junto seu último descendente
+            no.obterChaves().add(0, pai.obterChaves().get(indiceSeparador));
+            ((NoInterno) no).inserirDescendente(0, ((NoInterno) irmao).removerDescendente(ultima + 1));
+            pai.obterChaves().set(indiceSeparador, irmao.obterChaves().remove(ultima));
         }
+        int separador = pai.obterChaves().get(indiceSeparador);
+        irmao.definirLimites(irmao.obterLimiteInferior(), separador);
+        no.definirLimites(separador, no.obterLimiteSuperior());
     }
 
-    private void dividirNoInterno(NoInterno no) {
-        int pontoMedio = no.obterChaves().size() / 2;
-        int chavePromovida = no.obterChaves().get(pontoMedio);
-        NoInterno novoNoInterno = new NoInterno(maxChaves);
+    // Passa a primeira chave do irmão direito para o fim de 'no'
+    private void emprestarDoIrmaoDireito(NoInterno pai, int indiceSeparador, NoBase no, NoBase irmao) {
+        marcar(irmao);
+        marcar(no);
+        if (no.ehFolha()) {
+            NoFolha folhaIrmao = (NoFolha) irmao;
+            no.obterChaves().add(folhaIrmao.obterChaves().remove(0));
+            ((NoFolha) no).obterValores().add(folhaIrmao.obterValores().remove(0));
+            pai.obterChaves().set(indiceSeparador, folhaIrmao.obterChaves().get(0));
+        } else {
+            no.obterChaves().add(pai.obterChaves().get(indiceSeparador));
+            ((NoInterno) no).adicionarDescendente(((NoInterno) irmao).removerDescendente(0));
+            pai.obterChaves().set(indiceSeparador, irmao.obterChaves().remove(0));
+        }
+        int separador = pai.obterChaves().get(indiceSeparador);
+        no.definirLimites(no.obterLimiteInferior(), separador);
+        irmao.definirLimites(separador, irmao.obterLimiteSuperior());
+    }
 
-        for (int i = pontoMedio + 1; i < no.obterChaves().size(); i++) {
-            novoNoInterno.obterChaves().add(no.obterChaves().get(i));
+    // Junta 'direito' em 'esquerdo' e tira do pai o separador entre eles e o descendente 'direito'
+    private void fundir(NoInterno pai, int indiceSeparador, NoBase esquerdo, NoBase direito) {
+        if (metricas != null) metricas.registrarFusao();
+        // 'direito' não é alterado, mas sai da árvore: marcado, um leitor que já esteja nele recomeça
+        marcar(esquerdo);
+        marcar(direito);
+        int separador = pai.obterChaves().remove(indiceSeparador);
+        pai.removerDescendente(indiceSeparador + 1);
+        if (esquerdo.ehFolha()) {
+            NoFolha folhaEsquerda = (NoFolha) esquerdo;
+            NoFolha folhaDireita = (NoFolha) direito;
+            folhaEsquerda.obterChaves().addAll(folhaDireita.obterChaves());
+            folhaEsquerda.obterValores().addAll(folhaDireita.obterValores());
+            folhaEsquerda.definirProximo(folhaDireita.obterProximo());
+            if (folhaDireita.obterProximo() != null) {
+                folhaDireita.obterProximo().definirAnterior(folhaEsquerda);
+            }
+        } else {
+            // Nos nós internos o separador desce entre as chaves dos dois
+            esquerdo.obterChaves().add(separador);
+            esquerdo.obterChaves().addAll(direito.obterChaves());
+            ((NoInterno) esquerdo).obterDescendentes().addAll(((NoInterno) direito).obterDescendentes());
+        }
+        esquerdo.definirLimites(esquerdo.obterLimiteInferior(), direito.obterLimiteSuperior());
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        if (alteracoes != null) {
+            List<String> resultados = new ArrayList<>();
+            visitarIntervaloSemTrava(chaveInicio, chaveFim, new VisaoItem(), item -> resultados.add(item.obterValor()));
+            return resultados;
+        }
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        List<String> resultados = new ArrayList<>();
+        NoFolha atual = encontrarNoFolha(chaveInicio);
+        int folhasVisitadas = 0;
+        int posicao = atual.encontrarPosicao(chaveInicio);
+        // Pelos limites de cerca, uma folha ou fica toda dentro do intervalo (copiada sem comparar
+        // chaves), ou é a última a visitar, ou já começa depois de chaveFim
+        while (atual != null && atual.obterLimiteInferior() <= chaveFim) {
+            folhasVisitadas++;
+            List<Integer> chaves = atual.obterChaves();
+            List<String> valores = atual.obterValores();
+            if (atual.obterLimiteSuperior() <= (long) chaveFim + 1) {
+                resultados.addAll(valores.subList(posicao, valores.size()));
+            } else {
+                for (; posicao < chaves.size() && chaves.get(posicao) <= chaveFim; posicao++) {
+                    resultados.add(valores.get(posicao));
+                }
+                break;
+            }
+            atual = atual.obterProximo();
+            posicao = 0;
         }
-        for (int i = pontoMedio + 1; i < no.obterDescendentes().size(); i++) {
-            NoBase descendente = no.obterDescendentes().get(i);
-            novoNoInterno.adicionarDescendente(descendente);
+        if (rastreador != null) {
+            // A folha inicial já foi contada na descida
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio,
+                    nosPorDescida() + folhasVisitadas - 1);
         }
+        return resultados;
+    }
 
-        no.obterChaves().subList(pontoMedio, no.obterChaves().size()).clear();
-        no.obterDescendentes().subList(pontoMedio + 1, no.obterDescendentes().size()).clear();
+    // --- LEITORES CONCORRENTES ---
 
-        if (no == raiz) {
-            NoInterno novaRaiz = new NoInterno(maxChaves);
-            novaRaiz.obterChaves().add(chavePromovida);
-            novaRaiz.adicionarDescendente(no);
-            novaRaiz.adicionarDescendente(novoNoInterno);
-            raiz = novaRaiz;
-        } else {
-            inserirNoPai(no, chavePromovida, novoNoInterno);
+    // Um escritor por vez e vários leitores sem trava: com o modo ativo, inserirItem, atualizarItem
+    // e removerItem (de um thread só, ou serializados por uma trava de quem usa a árvore) marcam
+    // a versão de cada nó que alteram, e buscarItem, buscarIntervalo e existeNoIntervalo podem ser
+    // chamados de outros threads ao mesmo tempo. Ative antes de iniciar os leitores; as demais
+    // operações continuam exigindo exclusão com o escritor.
+    public void ativarLeitoresConcorrentes() {
+        if (alteracoes == null) {
+            alteracoes = new RegistroAlteracoes();
         }
     }
 
-    private void lidarComSubutilizacaoFolha(NoFolha folha) {
-        NoInterno pai = (NoInterno) folha.obterPai();
-        if (pai == null) return;
+    public void desativarLeitoresConcorrentes() {
+        alteracoes = null;
+    }
 
-        int indiceFolha = pai.obterDescendentes().indexOf(folha);
+    public boolean leitoresConcorrentesAtivos() {
+        return alteracoes != null;
+    }
 
-        if (indiceFolha > 0) {
-            NoFolha irmaoEsquerdo = (NoFolha) pai.obterDescendentes().get(indiceFolha - 1);
-            if (irmaoEsquerdo.obterChaves().size() > (maxChaves + 1) / 2) {
-                int chaveParaMover = irmaoEsquerdo.obterChaves().remove(irmaoEsquerdo.obterChaves().size() - 1);
-                String valorParaMover = irmaoEsquerdo.obterValores().remove(irmaoEsquerdo.obterValores().size() - 1);
-                folha.inserir(chaveParaMover, valorParaMover);
-                pai.obterChaves().set(indiceFolha - 1, folha.obterChaves().get(0));
-                return;
+    // Antes de alterar o nó; nada faz com o modo desativado
+    private void marcar(NoBase no) {
+        if (alteracoes != null) alteracoes.marcar(no);
+    }
+
+    // Ao fim de cada operação de escrita, depois da última alteração
+    private void liberarMarcas() {
+        if (alteracoes != null) alteracoes.liberar();
+    }
+
+    // Desce sem travas lendo a versão de cada descendente antes de conferir a do nó atual e
+    // recomeça da raiz se alguma mudou. Não escreve em campos da árvore.
+    private String buscarSemTrava(int chave) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        FiltroBloom filtroAtual = filtro;
+        String valor = null;
+        int visitados = 0;
+        if (filtroAtual == null || filtroAtual.podeConter(chave)) {
+            tentativa:
+            for (int tentativas = 0; ; tentativas++) {
+                if (tentativas > 0) Thread.onSpinWait();
+                try {
+                    NoBase no = raiz;
+                    long versaoNo = no.lerVersao();
+                    if (versaoNo < 0 || no != raiz) continue;
+                    visitados = 1;
+                    while (!no.ehFolha()) {
+                        NoBase descendente = ((NoInterno) no).encontrarDescendente(chave);
+                        long versaoDescendente = descendente.lerVersao();
+                        if (versaoDescendente < 0 || !no.validar(versaoNo)) continue tentativa;
+                        no = descendente;
+                        versaoNo = versaoDescendente;
+                        visitados++;
+                    }
+                    valor = ((NoFolha) no).buscar(chave);
+                    if (no.validar(versaoNo)) break;
+                } catch (RuntimeException e) {
+                    // Listas lidas no meio de um deslocamento; a versão não conferiria
+                }
             }
         }
+        if (metricas != null) metricas.registrarBusca(visitados);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.BUSCA, System.nanoTime() - inicio, visitados);
+        }
+        return valor;
+    }
 
-        if (indiceFolha < pai.obterDescendentes().size() - 1) {
-            NoFolha irmaoDireito = (NoFolha) pai.obterDescendentes().get(indiceFolha + 1);
-            if (irmaoDireito.obterChaves().size() > (maxChaves + 1) / 2) {
-                int chaveParaMover = irmaoDireito.obterChaves().remove(0);
-                String valorParaMover = irmaoDireito.obterValores().remove(0);
-                folha.inserir(chaveParaMover, valorParaMover);
-                pai.obterChaves().set(indiceFolha, irmaoDireito.obterChaves().get(0));
-                return;
+    // Desce até a folha do cursor e segue o encadeamento, lendo a versão da folha seguinte antes
+    // de conferir a da atual. Os itens de cada folha ficam guardados na visão e só são entregues
+    // depois que a versão confere; se não confere, são descartados e a descida recomeça pela
+    // chave seguinte à última entregue. Cada folha é lida numa versão estável, mas o intervalo
+    // inteiro não é um instantâneo.
+    private void visitarIntervaloSemTrava(int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        long cursor = chaveInicio; // Menor chave ainda não entregue
+        int visitados = 0;
+        descida:
+        for (int tentativas = 0; cursor <= chaveFim; tentativas++) {
+            if (tentativas > 0) Thread.onSpinWait();
+            try {
+                NoBase no = raiz;
+                long versaoNo = no.lerVersao();
+                if (versaoNo < 0 || no != raiz) continue;
+                while (!no.ehFolha()) {
+                    NoBase descendente = ((NoInterno) no).encontrarDescendente((int) cursor);
+                    long versaoDescendente = descendente.lerVersao();
+                    if (versaoDescendente < 0 || !no.validar(versaoNo)) continue descida;
+                    no = descendente;
+                    versaoNo = versaoDescendente;
+                    visitados++;
+                }
+                while (true) {
+                    visitados++;
+                    NoFolha folha = (NoFolha) no;
+                    List<Integer> chaves = folha.obterChaves();
+                    List<String> valores = folha.obterValores();
+                    long proximoCursor = cursor;
+                    boolean terminou = false;
+                    for (int i = folha.encontrarPosicao((int) cursor); i < chaves.size(); i++) {
+                        int chave = chaves.get(i);
+                        if (chave > chaveFim) {
+                            terminou = true;
+                            break;
+                        }
+                        visao.guardarLido(chave, valores.get(i));
+                        proximoCursor = chave + 1L;
+                    }
+                    NoFolha seguinte = terminou ? null : folha.obterProximo();
+                    long versaoSeguinte = seguinte == null ? 0 : seguinte.lerVersao();
+                    if (!folha.validar(versaoNo)) {
+                        visao.descartarLidos();
+                        continue descida;
+                    }
+                    cursor = proximoCursor;
+                    if (!visao.entregarLidos(visitante) || seguinte == null || cursor > chaveFim) break descida;
+                    if (versaoSeguinte < 0) continue descida;
+                    no = seguinte;
+                    versaoNo = versaoSeguinte;
+                }
+            } catch (RuntimeException e) {
+                visao.descartarLidos();
             }
         }
-
-        if (indiceFolha > 0) {
-            NoFolha irmaoEsquerdo = (NoFolha) pai.obterDescendentes().get(indiceFolha - 1);
-            mesclarNosFolha(irmaoEsquerdo, folha, pai, indiceFolha - 1);
-        } else if (indiceFolha < pai.obterDescendentes().size() - 1) {
-            NoFolha irmaoDireito = (NoFolha) pai.obterDescendentes().get(indiceFolha + 1);
-            mesclarNosFolha(folha, irmaoDireito, pai, indiceFolha);
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio, visitados);
         }
     }
 
-    private void mesclarNosFolha(NoFolha folhaEsquerda, NoFolha folhaDireita, NoInterno pai, int indiceChavePai) {
-        folhaEsquerda.obterChaves().addAll(folhaDireita.obterChaves());
-        folhaEsquerda.obterValores().addAll(folhaDireita.obterValores());
+    // --- VISITANTES ---
 
-        folhaEsquerda.definirProximo(folhaDireita.obterProximo());
-        if (folhaDireita.obterProximo() != null) {
-            folhaDireita.obterProximo().definirAnterior(folhaEsquerda);
+    // Entrega o item da chave, se existir, ao visitante pela visão reaproveitável, sem criar
+    // objetos: o valor entregue é o próprio guardado na folha. Devolve se a chave existe.
+    public boolean visitarItem(int chave, VisaoItem visao, VisaoItem.Visitante visitante) {
+        visao.iniciarContagem();
+        String valor = buscarItem(chave);
+        if (valor == null) {
+            return false;
         }
+        visao.entregar(chave, valor, visitante);
+        return true;
+    }
 
-        pai.obterChaves().remove(indiceChavePai);
-        pai.removerDescendente(folhaDireita);
-
-        if (pai != raiz && !pai.temMinimoDeChaves()) {
-            lidarComSubutilizacaoInterna(pai);
-        } else if (pai == raiz && pai.obterChaves().isEmpty()) {
-            raiz = folhaEsquerda;
-            folhaEsquerda.definirPai(null);
+    // Entrega em ordem os itens de [chaveInicio, chaveFim] até o visitante devolver false, sem
+    // criar objetos nem listas; devolve quantos itens foram entregues
+    public int visitarIntervalo(int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        visao.iniciarContagem();
+        if (chaveInicio > chaveFim) {
+            return 0;
+        }
+        if (alteracoes != null) {
+            visitarIntervaloSemTrava(chaveInicio, chaveFim, visao, visitante);
+            return visao.obterEntregues();
+        }
+        long inicio = rastreador != null ? System.nanoTime() : 0L;
+        NoFolha atual = encontrarNoFolha(chaveInicio);
+        int folhasVisitadas = 0;
+        int posicao = atual.encontrarPosicao(chaveInicio);
+        percorrer:
+        while (atual != null && atual.obterLimiteInferior() <= chaveFim) {
+            folhasVisitadas++;
+            List<Integer> chaves = atual.obterChaves();
+            List<String> valores = atual.obterValores();
+            // Pelos limites de cerca, uma folha toda dentro do intervalo dispensa comparar as chaves
+            int fim = atual.obterLimiteSuperior() <= (long) chaveFim + 1 ? chaves.size() : atual.encontrarPosicaoApos(chaveFim);
+            for (; posicao < fim; posicao++) {
+                if (!visao.entregar(chaves.get(posicao), valores.get(posicao), visitante)) {
+                    break percorrer;
+                }
+            }
+            if (fim < chaves.size()) {
+                break;
+            }
+            atual = atual.obterProximo();
+            posicao = 0;
         }
+        if (rastreador != null) {
+            rastreador.registrar(RastreadorOperacoes.Operacao.INTERVALO, System.nanoTime() - inicio,
+                    nosPorDescida() + folhasVisitadas - 1);
+        }
+        return visao.obterEntregues();
     }
 
-    private void lidarComSubutilizacaoInterna(NoInterno no) {
-        NoInterno pai = (NoInterno) no.obterPai();
-        if (pai == null) return;
+    // --- MÉTRICAS ---
 
-        int indiceNo = pai.obterDescendentes().indexOf(no);
+    // Ativa a coleta de métricas; chamadas repetidas devolvem a mesma instância
+    public MetricasArvore ativarMetricas() {
+        if (metricas == null) {
+            metricas = new MetricasArvore(this::coletarEstatisticas);
+        }
+        return metricas;
+    }
 
-        if (indiceNo > 0) {
-            NoInterno irmaoEsquerdo = (NoInterno) pai.obterDescendentes().get(indiceNo - 1);
-            if (irmaoEsquerdo.obterChaves().size() > (maxChaves + 1) / 2) {
-                int chaveDoPai = pai.obterChaves().remove(indiceNo - 1);
-                int chaveDoIrmao = irmaoEsquerdo.obterChaves().remove(irmaoEsquerdo.obterChaves().size() - 1);
-                NoBase filhoDoIrmao = irmaoEsquerdo.obterDescendentes().remove(irmaoEsquerdo.obterDescendentes().size() - 1);
+    public void desativarMetricas() {
+        metricas = null;
+    }
 
-                no.obterChaves().add(0, chaveDoPai);
-                no.inserirDescendente(0, filhoDoIrmao);
-                filhoDoIrmao.definirPai(no);
+    public MetricasArvore obterMetricas() {
+        return metricas;
+    }
 
-                pai.obterChaves().add(indiceNo - 1, chaveDoIrmao);
-                return;
+    // Percorre a árvore contando nós, chaves e memória estimada
+    public EstatisticasEstrutura coletarEstatisticas() {
+        if (raiz == null) {
+            return new EstatisticasEstrutura(0, 0, 0, 0, 0);
+        }
+        long[] acumulado = new long[4]; // nós, chaves, capacidade, bytes
+        int altura = acumularEstatisticas(raiz, acumulado);
+        return new EstatisticasEstrutura(altura, acumulado[0], acumulado[1], acumulado[2], acumulado[3]);
+    }
+
+    private int acumularEstatisticas(NoBase no, long[] acumulado) {
+        int quantidadeChaves = no.obterChaves().size();
+        acumulado[0]++;
+        acumulado[1] += quantidadeChaves;
+        acumulado[2] += maxChaves;
+        int encaixotadas = 0;
+        for (int chave : no.obterChaves()) {
+            if (chave < -128 || chave > 127) encaixotadas++;
+        }
+        if (no.ehFolha()) {
+            NoFolha folha = (NoFolha) no;
+            // Campos: chaves, valores, proximo, anterior, mais os dois limites de cerca (long)
+            acumulado[3] += MetricasArvore.estimarBytesNo(4, 2, maxChaves + 1, encaixotadas) + 16;
+            for (String valor : folha.obterValores()) {
+                acumulado[3] += MetricasArvore.estimarBytesTexto(valor);
             }
+            return 1;
+        }
+        NoInterno interno = (NoInterno) no;
+        // Campos: chaves, descendentes, mais os dois limites de cerca (long)
+        acumulado[3] += MetricasArvore.estimarBytesNo(2, 2, maxChaves + 1, encaixotadas) + 16;
+        int altura = 0;
+        for (NoBase descendente : interno.obterDescendentes()) {
+            altura = Math.max(altura, acumularEstatisticas(descendente, acumulado));
         }
+        return altura + 1;
+    }
 
-        if (indiceNo < pai.obterDescendentes().size() - 1) {
-            NoInterno irmaoDireito = (NoInterno) pai.obterDescendentes().get(indiceNo + 1);
-            if (irmaoDireito.obterChaves().size() > (maxChaves + 1) / 2) {
-                int chaveDoPai = pai.obterChaves().remove(indiceNo);
-                int chaveDoIrmao = irmaoDireito.obterChaves().remove(0);
-                NoBase filhoDoIrmao = irmaoDireito.obterDescendentes().remove(0);
+    // --- RASTREAMENTO DE LATÊNCIA ---
 
-                no.obterChaves().add(chaveDoPai);
-                no.adicionarDescendente(filhoDoIrmao);
-                filhoDoIrmao.definirPai(no);
+    // Ativa o registro da latência de cada operação; chamadas repetidas devolvem a mesma instância
+    public RastreadorOperacoes ativarRastreamento() {
+        if (rastreador == null) {
+            rastreador = new RastreadorOperacoes("ArvoreBPlus");
+        }
+        return rastreador;
+    }
 
-                pai.obterChaves().add(indiceNo, chaveDoIrmao);
-                return;
-            }
+    public void desativarRastreamento() {
+        if (rastreador != null) {
+            rastreador.pararRelatorioPeriodico();
+            rastreador = null;
         }
+    }
+
+    public RastreadorOperacoes obterRastreador() {
+        return rastreador;
+    }
+
+    // --- FILTRO DE CHAVES AUSENTES ---
+
+    // Liga um filtro de Bloom consultado antes de cada busca e remoção: um ID que não existe é
+    // respondido sem descer na árvore. Inserções alimentam o filtro; como ele não esquece chaves,
+    // é reconstruído quando as remoções passam de 1/4 das chaves que ele guarda.
+    public FiltroBloom ativarFiltro(double taxaFalsosPositivos) {
+        this.taxaFiltro = taxaFalsosPositivos;
+        reconstruirFiltro();
+        return filtro;
+    }
+
+    public void desativarFiltro() {
+        filtro = null;
+    }
+
+    public FiltroBloom obterFiltro() {
+        return filtro;
+    }
 
-        if (indiceNo > 0) {
-            NoInterno irmaoEsquerdo = (NoInterno) pai.obterDescendentes().get(indiceNo - 1);
-            mesclarNosInternos(irmaoEsquerdo, no, pai, indiceNo - 1);
-        } else if (indiceNo < pai.obterDescendentes().size() - 1) {
-            NoInterno irmaoDireito = (NoInterno) pai.obterDescendentes().get(indiceNo + 1);
-            mesclarNosInternos(no, irmaoDireito, pai, indiceNo);
+    // Refaz o filtro só com as chaves presentes, com folga para o dobro antes de saturar
+    private void reconstruirFiltro() {
+        int[] chaves = coletarEmOrdem(new ArrayList<>());
+        FiltroBloom novo = new FiltroBloom(Math.max(1024, 2 * chaves.length), taxaFiltro);
+        for (int chave : chaves) {
+            novo.adicionar(chave);
         }
+        filtro = novo;
+        remocoesDesdeFiltro = 0;
     }
 
-    private void mesclarNosInternos(NoInterno noEsquerdo, NoInterno noDireito, NoInterno pai, int indiceChavePai) {
-        noEsquerdo.obterChaves().add(pai.obterChaves().remove(indiceChavePai));
+    // --- COMPACTAÇÃO ---
 
-        noEsquerdo.obterChaves().addAll(noDireito.obterChaves());
-        for (NoBase descendente : noDireito.obterDescendentes()) {
-            noEsquerdo.adicionarDescendente(descendente);
+    // Reescreve as folhas com a ocupação desejada (entre 0 e 1) e reconstrói os níveis internos,
+    // trocando a raiz de uma só vez ao final
+    public EstatisticasEstrutura compactar(double fatorOcupacao) {
+        aplicarCompactacao(reconstruir(fatorOcupacao));
+        return coletarEstatisticas();
+    }
+
+    // Reconstrói a árvore em outra thread enquanto as buscas continuam na estrutura atual. O
+    // conteúdo é copiado aqui, no thread que escreve na árvore, porque percorrer as folhas enquanto
+    // ele as altera não é seguro; só a construção dos nós novos vai para o executor. A troca não é
+    // feita aqui: quem escreve chama aplicarCompactacao com o resultado, que é descartado se a
+    // árvore mudou desde a cópia.
+    public CompletableFuture<EstruturaReconstruida> prepararCompactacao(double fatorOcupacao, Executor executor) {
+        long versaoInicial = versao;
+        List<String> valores = new ArrayList<>();
+        int[] chavesOrdenadas = coletarEmOrdem(valores);
+        String[] valoresOrdenados = valores.toArray(new String[0]);
+        return CompletableFuture.supplyAsync(() -> construirOrdenados(chavesOrdenadas, valoresOrdenados,
+                chavesOrdenadas.length, fatorOcupacao, versaoInicial), executor);
+    }
+
+    // Troca a estrutura atual pela reconstruída; devolve false se ela já está desatualizada.
+    // A raiz é o único ponto de entrada (a primeira folha é achada descendo por ela), então a
+    // troca é uma única escrita volátil: quem lê vê a estrutura antiga ou a nova inteira.
+    public boolean aplicarCompactacao(EstruturaReconstruida estrutura) {
+        if (estrutura.versaoOrigem != versao) {
+            return false;
+        }
+        marcar(raiz); // Um leitor concorrente que esteja partindo da raiz antiga desce de novo pela nova
+        this.raiz = estrutura.raiz;
+        liberarMarcas();
+        versao++;
+        if (filtro != null) {
+            reconstruirFiltro(); // A estrutura nova pode vir de carregarOrdenados, com outras chaves
+        }
+        if (metricas != null) {
+            metricas.publicarEstrutura(); // A troca da raiz não passa por registrarInsercao
         }
-        pai.removerDescendente(noDireito);
+        return true;
+    }
 
-        if (pai != raiz && !pai.temMinimoDeChaves()) {
-            lidarComSubutilizacaoInterna(pai);
-        } else if (pai == raiz && pai.obterChaves().isEmpty()) {
-            raiz = noEsquerdo;
-            noEsquerdo.definirPai(null);
+    EstruturaReconstruida reconstruir(double fatorOcupacao) {
+        List<String> valores = new ArrayList<>();
+        int[] chavesOrdenadas = coletarEmOrdem(valores);
+        return construirOrdenados(chavesOrdenadas, valores.toArray(new String[0]), chavesOrdenadas.length, fatorOcupacao);
+    }
+
+    // Percorre o encadeamento de folhas devolvendo as chaves em ordem e preenchendo 'valores'
+    public int[] coletarEmOrdem(List<String> valores) {
+        List<Integer> chaves = new ArrayList<>();
+        NoFolha atual = raiz == null ? null : obterPrimeiraFolha();
+        while (atual != null) {
+            chaves.addAll(atual.obterChaves());
+            valores.addAll(atual.obterValores());
+            atual = atual.obterProximo();
         }
+        int[] chavesOrdenadas = new int[chaves.size()];
+        for (int i = 0; i < chavesOrdenadas.length; i++) {
+            chavesOrdenadas[i] = chaves.get(i);
+        }
+        return chavesOrdenadas;
     }
 
-    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
-        List<String> resultados = new ArrayList<>();
+    // Gera um índice somente leitura com chaves comprimidas (base + diferenças em bits) e
+    // separadores truncados. Escritas posteriores na árvore não se refletem nele.
+    public IndiceCompactado compactarParaLeitura(int chavesPorFolha, int fanout) {
+        List<String> valores = new ArrayList<>();
+        int[] chaves = coletarEmOrdem(valores);
+        return new IndiceCompactado(chaves, valores.toArray(new String[0]), chaves.length, chavesPorFolha, fanout);
+    }
+
+    // Congela o conteúdo atual numa árvore somente leitura organizada para o cache.
+    // Escritas posteriores não se refletem nela; para atualizá-la basta congelar de novo,
+    // o que custa uma passada pelo encadeamento de folhas.
+    public ArvoreBPlusCongelada congelar() {
+        List<String> valores = new ArrayList<>();
+        int[] chaves = coletarEmOrdem(valores);
+        return new ArvoreBPlusCongelada(chaves, valores.toArray(new String[0]), chaves.length);
+    }
+
+    // Substitui todo o conteúdo por uma árvore construída em lote a partir de chaves já ordenadas
+    void carregarOrdenados(int[] chavesOrdenadas, String[] valores, int quantidade, double fatorOcupacao) {
+        aplicarCompactacao(construirOrdenados(chavesOrdenadas, valores, quantidade, fatorOcupacao));
+    }
+
+    // Constrói a estrutura sem tocar na árvore; a troca fica para aplicarCompactacao
+    EstruturaReconstruida construirOrdenados(int[] chavesOrdenadas, String[] valores, int quantidade, double fatorOcupacao) {
+        return construirOrdenados(chavesOrdenadas, valores, quantidade, fatorOcupacao, versao);
+    }
+
+    private EstruturaReconstruida construirOrdenados(int[] chavesOrdenadas, String[] valores, int quantidade,
+                                                     double fatorOcupacao, long versaoOrigem) {
+        NoBase novaRaiz = new ConstrutorArvoreBPlus(maxChaves).construir(chavesOrdenadas, valores, quantidade, fatorOcupacao);
+        return new EstruturaReconstruida(novaRaiz, versaoOrigem);
+    }
+
+    // Como buscarIntervalo, mas devolvendo também as chaves
+    void coletarIntervalo(int chaveInicio, int chaveFim, List<Integer> chaves, List<String> valores) {
         NoFolha atual = encontrarNoFolha(chaveInicio);
-        while (atual != null) {
-            for (int i = 0; i < atual.obterChaves().size(); i++) {
-                int chave = atual.obterChaves().get(i);
-                if (chave >= chaveInicio && chave <= chaveFim) {
-                    resultados.add(atual.obterValores().get(i));
-                } else if (chave > chaveFim) {
-                    return resultados;
-                }
+        int posicao = atual.encontrarPosicao(chaveInicio);
+        while (atual != null && atual.obterLimiteInferior() <= chaveFim) {
+            int fim = atual.obterLimiteSuperior() <= (long) chaveFim + 1
+                    ? atual.obterChaves().size() : atual.encontrarPosicaoApos(chaveFim);
+            chaves.addAll(atual.obterChaves().subList(posicao, fim));
+            valores.addAll(atual.obterValores().subList(posicao, fim));
+            if (fim < atual.obterChaves().size()) {
+                return;
             }
             atual = atual.obterProximo();
+            posicao = 0;
         }
-        return resultados;
+    }
+
+    // Diz se há alguma chave em [chaveInicio, chaveFim] sem percorrer o intervalo: basta achar
+    // a primeira chave >= chaveInicio, pulando folhas vazias pelo encadeamento
+    public boolean existeNoIntervalo(int chaveInicio, int chaveFim) {
+        if (chaveInicio > chaveFim) {
+            return false;
+        }
+        if (alteracoes != null) {
+            return visitarIntervalo(chaveInicio, chaveFim, new VisaoItem(), item -> false) > 0;
+        }
+        NoFolha atual = encontrarNoFolha(chaveInicio);
+        if (metricas != null) metricas.registrarBusca(nosPorDescida());
+        int posicao = atual.encontrarPosicao(chaveInicio);
+        while (atual != null && atual.obterLimiteInferior() <= chaveFim) {
+            if (posicao < atual.obterChaves().size()) {
+                return atual.obterChaves().get(posicao) <= chaveFim;
+            }
+            atual = atual.obterProximo();
+            posicao = 0;
+        }
+        return false;
+    }
+
+    // --- VERIFICAÇÃO ESTRUTURAL ---
+
+    public RelatorioEstrutura verificarEstrutura() {
+        return new AnalisadorArvoreBPlus(this).analisar();
+    }
+
+    NoBase obterRaiz() {
+        return raiz;
+    }
+
+    // A folha mais à esquerda, pela borda esquerda a partir da raiz
+    NoFolha obterPrimeiraFolha() {
+        return encontrarNoFolha(Integer.MIN_VALUE);
+    }
+
+    // Folha onde uma busca pela chave terminaria, para varreduras feitas fora da classe
+    NoFolha localizarFolha(int chave) {
+        return encontrarNoFolha(chave);
+    }
+
+    int obterMaxChaves() {
+        return maxChaves;
     }
 
     public void imprimirEmOrdem() {
-        NoFolha atual = primeiraFolha;
+        NoFolha atual = obterPrimeiraFolha();
         System.out.print("Itens em ordem (B+): ");
         while (atual != null) {
             for (int i = 0; i < atual.obterChaves().size(); i++) {
@@ -479,10 +1332,25 @@ class ArvoreBPlus { // Não é public para permitir a classe externa ArvoreBPlus
 
     // --- LÓGICA PRINCIPAL DE EXECUÇÃO PARA ÁRVORE B+ ---
     private static final int ORDEM_ARVORE_BPLUS = 3;
+    private static final long SEMENTE_PADRAO = 42; // Sorteio dos IDs removidos; troque com --semente <n>
     private static final String ARQUIVO_DADOS = "produtos_corrigido.txt";
 
     public static void main(String[] args) {
         ArvoreBPlus arvoreBPlus = new ArvoreBPlus(ORDEM_ARVORE_BPLUS);
+        MetricasArvore metricas = arvoreBPlus.ativarMetricas();
+        try {
+            metricas.registrarJmx("ArvoreBPlus");
+        } catch (JMException e) {
+            System.err.println("Não foi possível registrar as métricas via JMX: " + e.getMessage());
+        }
+        // Com --rastrear, registra a latência de cada chamada e imprime os percentis a cada segundo
+        RastreadorOperacoes rastreador = null;
+        if (Arrays.asList(args).contains("--rastrear")) {
+            rastreador = arvoreBPlus.ativarRastreamento();
+            rastreador.iniciarRelatorioPeriodico(1, TimeUnit.SECONDS);
+        }
+        // Com --filtro, buscas e remoções de IDs inexistentes são respondidas pelo filtro de Bloom
+        FiltroBloom filtro = Arrays.asList(args).contains("--filtro") ? arvoreBPlus.ativarFiltro(0.01) : null;
         List<ItemProduto> itensParaProcessar = carregarItensDoArquivo(ARQUIVO_DADOS);
 
         System.out.println("--- Teste de Indexação com Árvore B+ (Ordem " + ORDEM_ARVORE_BPLUS + ") ---");
@@ -497,9 +1365,12 @@ class ArvoreBPlus { // Não é public para permitir a classe externa ArvoreBPlus
         long duracaoInsercao = (tempoFimInsercao - tempoInicioInsercao) / 1_000_000;
         System.out.println("Tempo de inserção de " + itensParaProcessar.size() + " produtos: " + duracaoInsercao + " ms");
 
-        // Testar remoção de 10 produtos aleatórios
-        System.out.println("\n--- Removendo 10 produtos aleatórios (IDs entre 1000 e 2000) ---");
-        Random geradorAleatorio = new Random();
+        // Testar remoção de 10 produtos aleatórios; a mesma semente sorteia sempre os mesmos IDs
+        int indiceSemente = Arrays.asList(args).indexOf("--semente");
+        long semente = indiceSemente >= 0 && indiceSemente + 1 < args.length
+                ? Long.parseLong(args[indiceSemente + 1]) : SEMENTE_PADRAO;
+        System.out.println("\n--- Removendo 10 produtos aleatórios (IDs entre 1000 e 2000, semente " + semente + ") ---");
+        Random geradorAleatorio = new Random(semente);
         List<Integer> chavesParaRemover = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
             chavesParaRemover.add(geradorAleatorio.nextInt(1001) + 1000); // IDs de 1000 a 2000
@@ -519,22 +1390,307 @@ class ArvoreBPlus { // Não é public para permitir a classe externa ArvoreBPlus
         long tempoFimRemocao = System.nanoTime();
         long duracaoRemocao = (tempoFimRemocao - tempoInicioRemocao) / 1_000_000;
         System.out.println("Tempo de remoção de 10 produtos: " + duracaoRemocao + " ms");
+        if (filtro != null) {
+            System.out.println(arvoreBPlus.obterFiltro());
+        }
+
+        // Com --fora-do-heap, repete a carga na variante com nós em memória direta e confere as buscas
+        if (Arrays.asList(args).contains("--fora-do-heap")) {
+            ArvoreBPlusForaDoHeap arvoreForaDoHeap = new ArvoreBPlusForaDoHeap(ORDEM_ARVORE_BPLUS);
+            long tempoInicioForaDoHeap = System.nanoTime();
+            for (ItemProduto item : itensParaProcessar) {
+                arvoreForaDoHeap.inserirItem(item.obterId(), item.obterInfoParaArvore());
+            }
+            long duracaoForaDoHeap = (System.nanoTime() - tempoInicioForaDoHeap) / 1_000_000;
+            for (int chave : chavesParaRemover) {
+                arvoreForaDoHeap.removerItem(chave);
+            }
+            int divergencias = 0;
+            for (ItemProduto item : itensParaProcessar) {
+                String esperado = arvoreBPlus.buscarItem(item.obterId());
+                if (esperado == null ? arvoreForaDoHeap.buscarItem(item.obterId()) != null
+                        : !esperado.equals(arvoreForaDoHeap.buscarItem(item.obterId()))) {
+                    divergencias++;
+                }
+            }
+            // Reinserir uma chave troca o valor: a varredura devolve um só valor e a remoção apaga a chave
+            int chaveRepetida = -1;
+            arvoreForaDoHeap.inserirItem(chaveRepetida, "repetido-1");
+            arvoreForaDoHeap.inserirItem(chaveRepetida, "repetido-2");
+            List<String> valoresRepetida = arvoreForaDoHeap.buscarIntervalo(chaveRepetida, chaveRepetida);
+            if (!valoresRepetida.equals(List.of("repetido-2"))) {
+                throw new IllegalStateException("Chave repetida guardada mais de uma vez: " + valoresRepetida);
+            }
+            arvoreForaDoHeap.removerItem(chaveRepetida);
+            if (arvoreForaDoHeap.buscarItem(chaveRepetida) != null) {
+                throw new IllegalStateException("Chave repetida continua visível após a remoção");
+            }
+            System.out.println("\n--- Árvore B+ fora do heap ---");
+            System.out.println("Tempo de inserção: " + duracaoForaDoHeap + " ms, altura: " + arvoreForaDoHeap.obterAltura()
+                    + ", nós: " + arvoreForaDoHeap.obterQuantidadeNos()
+                    + ", memória direta reservada: " + arvoreForaDoHeap.obterBytesForaDoHeap() + " bytes"
+                    + ", divergências: " + divergencias);
+        }
+
+        // Com --indice-compactado, gera o índice de chaves comprimidas e confere as buscas
+        if (Arrays.asList(args).contains("--indice-compactado")) {
+            IndiceCompactado indice = arvoreBPlus.compactarParaLeitura(64, 64);
+            int divergencias = 0;
+            for (ItemProduto item : itensParaProcessar) {
+                String esperado = arvoreBPlus.buscarItem(item.obterId());
+                String obtido = indice.buscarItem(item.obterId());
+                if (esperado == null ? obtido != null : !esperado.equals(obtido)) {
+                    divergencias++;
+                }
+            }
+            System.out.println("\n--- Índice compactado ---");
+            System.out.println("Altura: " + indice.obterAltura() + ", chaves: " + indice.obterQuantidadeChaves()
+                    + ", bytes das chaves: " + indice.estimarBytesChaves() + ", divergências: " + divergencias);
+        }
+
+        // Com --congelar, gera a cópia somente leitura organizada para o cache e compara as buscas
+        if (Arrays.asList(args).contains("--congelar")) {
+            long tempoInicioCongelamento = System.nanoTime();
+            ArvoreBPlusCongelada congelada = arvoreBPlus.congelar();
+            long duracaoCongelamento = (System.nanoTime() - tempoInicioCongelamento) / 1_000;
+            int divergencias = 0;
+            for (ItemProduto item : itensParaProcessar) {
+                String esperado = arvoreBPlus.buscarItem(item.obterId());
+                String obtido = congelada.buscarItem(item.obterId());
+                if (esperado == null ? obtido != null : !esperado.equals(obtido)) {
+                    divergencias++;
+                }
+            }
+            System.out.println("\n--- Árvore B+ congelada ---");
+            System.out.println("Congelada em " + duracaoCongelamento + " us, altura: " + congelada.obterAltura()
+                    + ", bytes do índice: " + congelada.estimarBytesIndice() + ", divergências: " + divergencias);
+        }
+
+        // Com --assincrono, dispara buscas concorrentes (duas por ID) pela interface assíncrona
+        if (Arrays.asList(args).contains("--assincrono")) {
+            ExecutorService clientes = Executors.newFixedThreadPool(8);
+            try (ConsultaAssincrona consulta = new ConsultaAssincrona(
+                    arvoreBPlus::buscarVarios, 200, TimeUnit.MICROSECONDS, 256)) {
+                List<CompletableFuture<String>> respostas = new ArrayList<>();
+                for (int repeticao = 0; repeticao < 2; repeticao++) {
+                    for (ItemProduto item : itensParaProcessar) {
+                        respostas.add(CompletableFuture.supplyAsync(() -> item.obterId(), clientes)
+                                .thenCompose(consulta::buscarItem));
+                    }
+                }
+                CompletableFuture.allOf(respostas.toArray(new CompletableFuture<?>[0])).join();
+                System.out.println("\n--- Consulta assíncrona ---");
+                System.out.println("Pedidos: " + respostas.size() + ", lotes: " + consulta.obterLotes()
+                        + ", chaves buscadas: " + consulta.obterChavesBuscadas()
+                        + ", pedidos agrupados: " + consulta.obterPedidosAgrupados());
+            } finally {
+                clientes.shutdown();
+            }
+        }
+
+        // Com --bufferizar, repete a carga e as remoções pelo buffer de escrita e compara as buscas
+        // e o trabalho estrutural (divisões e fusões) com o da árvore principal
+        if (Arrays.asList(args).contains("--bufferizar")) {
+            ArvoreBPlus arvoreComBuffer = new ArvoreBPlus(ORDEM_ARVORE_BPLUS);
+            MetricasArvore metricasComBuffer = arvoreComBuffer.ativarMetricas();
+            try (ArvoreBPlusBufferizada bufferizada = new ArvoreBPlusBufferizada(arvoreComBuffer, 4096, 10, TimeUnit.MILLISECONDS)) {
+                long tempoInicioBuffer = System.nanoTime();
+                for (ItemProduto item : itensParaProcessar) {
+                    bufferizada.inserirItem(item.obterId(), item.obterInfoParaArvore());
+                }
+                for (int chave : chavesParaRemover) {
+                    bufferizada.removerItem(chave);
+                }
+                long duracaoBuffer = (System.nanoTime() - tempoInicioBuffer) / 1_000;
+                bufferizada.descarregar();
+                int divergencias = 0;
+                for (ItemProduto item : itensParaProcessar) {
+                    String esperado = arvoreBPlus.buscarItem(item.obterId());
+                    String obtido = bufferizada.buscarItem(item.obterId());
+                    if (esperado == null ? obtido != null : !esperado.equals(obtido)) {
+                        divergencias++;
+                    }
+                }
+                System.out.println("\n--- Árvore B+ com buffer de escrita ---");
+                System.out.println("Escritas no buffer em " + duracaoBuffer + " us, lotes aplicados: " + bufferizada.obterLotesAplicados()
+                        + " (" + bufferizada.obterReconstrucoes() + " por reconstrução), divergências: " + divergencias);
+                System.out.println("Divisões: " + metricasComBuffer.getDivisoes() + " (sem buffer: " + metricas.getDivisoes()
+                        + "), fusões: " + metricasComBuffer.getFusoes() + " (sem buffer: " + metricas.getFusoes() + ")");
+            }
+        }
+
+        // Com --sincronizar <arquivo>, aplica numa árvore à parte as alterações acrescentadas ao
+        // arquivo desde o último ponto de controle, partindo do instantâneo salvo nele (ou do arquivo
+        // de produtos completo, na primeira vez)
+        int indiceSincronizar = Arrays.asList(args).indexOf("--sincronizar");
+        if (indiceSincronizar >= 0 && indiceSincronizar + 1 < args.length) {
+            Path arquivoAlteracoes = Paths.get(args[indiceSincronizar + 1]);
+            Path pontoDeControle = Paths.get(args[indiceSincronizar + 1] + ".ponto");
+            Path instantaneo = SincronizadorCatalogo.arquivoInstantaneo(pontoDeControle);
+            ArvoreBPlus arvoreSincronizada = new ArvoreBPlus(ORDEM_ARVORE_BPLUS);
+            boolean partindoDoInstantaneo = Files.exists(instantaneo);
+            List<ItemProduto> itensIniciais = partindoDoInstantaneo
+                    ? carregarItensDoArquivo(instantaneo.toString()) : itensParaProcessar;
+            for (ItemProduto item : itensIniciais) {
+                arvoreSincronizada.inserirItem(item.obterId(), item.obterInfoParaArvore());
+            }
+            SincronizadorCatalogo.Destino destino = lote -> {
+                for (SincronizadorCatalogo.Alteracao alteracao : lote) {
+                    if (alteracao.ehRemocao()) {
+                        arvoreSincronizada.removerItem(alteracao.obterId());
+                    } else {
+                        arvoreSincronizada.inserirItem(alteracao.obterId(), alteracao.obterInfo());
+                    }
+                }
+            };
+            SincronizadorCatalogo.Exportador exportador = saida -> {
+                List<String> valores = new ArrayList<>();
+                int[] chaves = arvoreSincronizada.coletarEmOrdem(valores);
+                for (int i = 0; i < chaves.length; i++) {
+                    saida.aceitar(chaves[i], valores.get(i));
+                }
+            };
+            try (SincronizadorCatalogo sincronizador = new SincronizadorCatalogo(
+                    arquivoAlteracoes, pontoDeControle, 256, destino, exportador)) {
+                long posicaoInicial = sincronizador.obterPosicao();
+                long tempoInicioSincronizacao = System.nanoTime();
+                int aplicadas = sincronizador.sincronizar();
+                long duracaoSincronizacao = (System.nanoTime() - tempoInicioSincronizacao) / 1_000;
+                System.out.println("\n--- Sincronização incremental (" + arquivoAlteracoes + ") ---");
+                System.out.println("Partindo de " + itensIniciais.size() + " produtos"
+                        + (partindoDoInstantaneo ? " do instantâneo" : " do arquivo completo")
+                        + ", posição " + posicaoInicial + " -> " + sincronizador.obterPosicao()
+                        + ": " + aplicadas + " alterações em " + duracaoSincronizacao + " us"
+                        + ", linhas inválidas: " + sincronizador.obterLinhasInvalidas());
+            } catch (IOException e) {
+                System.err.println("Erro na sincronização do catálogo: " + e.getMessage());
+            }
+        }
+
+        // Com --colunar, conta produtos por categoria pela varredura colunar e pelo caminho antigo
+        // (separando as Strings de buscarIntervalo), e grava a árvore num arquivo colunar: o caminho
+        // dado depois da opção, ou um arquivo temporário apagado ao final
+        int indiceColunar = Arrays.asList(args).indexOf("--colunar");
+        if (indiceColunar >= 0) {
+            long tempoInicioColunar = System.nanoTime();
+            Map<String, Long> porCategoria = VarreduraColunar.contarPorCategoria(arvoreBPlus, 1000, 2000);
+            long duracaoColunar = (System.nanoTime() - tempoInicioColunar) / 1_000;
+            long tempoInicioTexto = System.nanoTime();
+            Map<String, Long> porCategoriaTexto = new TreeMap<>();
+            for (String valor : arvoreBPlus.buscarIntervalo(1000, 2000)) {
+                porCategoriaTexto.merge(valor.substring(valor.lastIndexOf(", ") + 2), 1L, Long::sum);
+            }
+            long duracaoTexto = (System.nanoTime() - tempoInicioTexto) / 1_000;
+            long[] histograma = VarreduraColunar.histogramaIds(arvoreBPlus, 1000, 2000, 100);
+            System.out.println("\n--- Varredura colunar (IDs 1000 a 2000) ---");
+            System.out.println("Por categoria: " + porCategoria + " em " + duracaoColunar + " us (separando Strings: "
+                    + duracaoTexto + " us, " + (porCategoria.equals(porCategoriaTexto) ? "iguais" : "DIFERENTES") + ")");
+            System.out.println("Histograma de IDs (faixas de 100): " + Arrays.toString(histograma));
+            boolean temporario = indiceColunar + 1 >= args.length || args[indiceColunar + 1].startsWith("--");
+            Path arquivoColunar = null;
+            try {
+                arquivoColunar = temporario ? Files.createTempFile("produtos", ".colunar") : Paths.get(args[indiceColunar + 1]);
+                long linhas = VarreduraColunar.exportar(arvoreBPlus, Integer.MIN_VALUE, Integer.MAX_VALUE, arquivoColunar);
+                long[] linhasLidas = new long[1];
+                VarreduraColunar.ler(arquivoColunar, lote -> linhasLidas[0] += lote.obterQuantidade());
+                System.out.println("Arquivo colunar: " + linhas + " linhas, " + Files.size(arquivoColunar)
+                        + " bytes (" + linhasLidas[0] + " linhas lidas de volta)");
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o arquivo colunar: " + e.getMessage());
+            } finally {
+                if (temporario && arquivoColunar != null) {
+                    try {
+                        Files.deleteIfExists(arquivoColunar);
+                    } catch (IOException e) {
+                        System.err.println("Erro ao apagar o arquivo colunar temporário: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // Com --verificar, confere os invariantes da árvore após a carga e as remoções
+        if (Arrays.asList(args).contains("--verificar")) {
+            System.out.println();
+            System.out.println(arvoreBPlus.verificarEstrutura());
+        }
+
+        // Com --compactar, reconstrói a árvore com as folhas o mais cheias possível
+        if (Arrays.asList(args).contains("--compactar")) {
+            long tempoInicioCompactacao = System.nanoTime();
+            EstatisticasEstrutura aposCompactacao = arvoreBPlus.compactar(1.0);
+            long duracaoCompactacao = (System.nanoTime() - tempoInicioCompactacao) / 1_000_000;
+            System.out.println("\n--- Compactação concluída em " + duracaoCompactacao + " ms ---");
+            System.out.println(aposCompactacao);
+        }
+
+        // Com --visitantes, conta os produtos por categoria buscando cada ID e o intervalo que
+        // começa nele pelas APIs de visitante, e mede quanto o thread alocou na última rodada,
+        // depois que as anteriores aquecem o JIT
+        if (Arrays.asList(args).contains("--visitantes")) {
+            DicionarioCategorias dicionario = new DicionarioCategorias();
+            VisaoItem visao = new VisaoItem(dicionario);
+            long[] porCategoria = new long[256];
+            VisaoItem.Visitante contar = item -> {
+                porCategoria[item.obterCodigoCategoria()]++;
+                return true;
+            };
+            long bytesAlocados = 0;
+            long visitados = 0;
+            for (int rodada = 0; rodada < 10; rodada++) {
+                Arrays.fill(porCategoria, 0);
+                visitados = 0;
+                long antes = MetricasArvore.bytesAlocadosNoThread();
+                for (int i = 0; i < itensParaProcessar.size(); i++) {
+                    int id = itensParaProcessar.get(i).obterId();
+                    arvoreBPlus.visitarItem(id, visao, contar);
+                    visitados += 1 + arvoreBPlus.visitarIntervalo(id, id + 32, visao, contar);
+                }
+                bytesAlocados = MetricasArvore.bytesAlocadosNoThread() - antes;
+            }
+            System.out.println("\n--- Visitantes sem alocação ---");
+            for (int codigo = 0; codigo < dicionario.obterQuantidade(); codigo++) {
+                System.out.println(dicionario.obterCategoria(codigo) + ": " + porCategoria[codigo]);
+            }
+            System.out.println(2 * itensParaProcessar.size() + " chamadas, " + visitados + " itens visitados, bytes alocados: "
+                    + bytesAlocados);
+        }
+
+        // Com --leitores-concorrentes <n>, mede buscas sem trava de 1 até n leitores numa árvore à
+        // parte enquanto este thread insere e remove sem parar, conferindo cada resposta
+        int indiceLeitores = Arrays.asList(args).indexOf("--leitores-concorrentes");
+        if (indiceLeitores >= 0 && indiceLeitores + 1 < args.length) {
+            ArvoreBPlus arvoreConcorrente = new ArvoreBPlus(ORDEM_ARVORE_BPLUS);
+            arvoreConcorrente.ativarLeitoresConcorrentes();
+            System.out.println("\n--- Leitores concorrentes sem trava ---");
+            try {
+                LeitoresConcorrentes.medir(arvoreConcorrente, itensParaProcessar.size(),
+                        Integer.parseInt(args[indiceLeitores + 1]), 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println(arvoreConcorrente.verificarEstrutura());
+        }
+
+        System.out.println("\n--- Métricas da Árvore B+ ---");
+        metricas.publicarEstrutura(); // Fim das escritas: o relatório mostra o estado final
+        System.out.println(metricas);
+        if (rastreador != null) {
+            rastreador.pararRelatorioPeriodico();
+            System.out.println(rastreador.gerarRelatorio(false));
+        }
 
         System.out.println("\n--- Teste da Árvore B+ Concluído ---");
     }
 
     // Método auxiliar para carregar dados do arquivo
-    private static List<ItemProduto> carregarItensDoArquivo(String nomeArquivo) {
+    static List<ItemProduto> carregarItensDoArquivo(String nomeArquivo) {
         List<ItemProduto> itens = new ArrayList<>();
         String linha;
         try (BufferedReader br = new BufferedReader(new FileReader(nomeArquivo))) {
             while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(",");
-                if (dados.length == 3) {
-                    int id = Integer.parseInt(dados[0].trim());
-                    String nome = dados[1].trim();
-                    String categoria = dados[2].trim();
-                    itens.add(new ItemProduto(id, nome, categoria));
+                ItemProduto item = ItemProduto.interpretarLinha(linha);
+                if (item != null) {
+                    itens.add(item);
                 }
             }
         } catch (IOException e) {
@@ -0,0 +1,129 @@
+// ArvoreBPlusCongelada.java
+// Cópia somente leitura de uma Árvore B+ organizada para o cache (CSS-tree): os separadores
+// ficam num único int[] em ordem de nível, com os descendentes calculados por aritmética em
+// vez de referências, e as folhas são um vetor ordenado contínuo de chaves. Cada nó interno
+// ocupa exatamente uma linha de cache, então uma busca custa uma ou duas faltas por nível.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ArvoreBPlusCongelada {
+    // 16 separadores de 4 bytes = 64 bytes, o tamanho de uma linha de cache comum
+    static final int CHAVES_POR_NO = 16;
+    private static final int DESCENDENTES_POR_NO = CHAVES_POR_NO + 1;
+    static final int CHAVES_POR_FOLHA = 16;
+
+    private final int[] separadores; // Nó k ocupa separadores[k * CHAVES_POR_NO .. + CHAVES_POR_NO)
+    private final int[] chaves;      // Todas as chaves em ordem; a folha f são as posições f * CHAVES_POR_FOLHA..
+    private final String[] valores;
+    private final int quantidade;
+    private final int quantidadeFolhas;
+    private final int niveisInternos;
+    private final int nosInternos;   // Os nós de índice >= nosInternos são folhas, na mesma numeração
+
+    // 'chavesOrdenadas' deve estar em ordem crescente
+    public ArvoreBPlusCongelada(int[] chavesOrdenadas, String[] valoresOrdenados, int quantidade) {
+        this.quantidade = quantidade;
+        this.chaves = Arrays.copyOf(chavesOrdenadas, quantidade);
+        this.valores = Arrays.copyOf(valoresOrdenados, quantidade);
+        this.quantidadeFolhas = Math.max(1, (quantidade + CHAVES_POR_FOLHA - 1) / CHAVES_POR_FOLHA);
+
+        // Árvore completa de grau DESCENDENTES_POR_NO com folhas suficientes
+        int niveis = 0;
+        long folhasCobertas = 1;
+        long totalInternos = 0;
+        while (folhasCobertas < quantidadeFolhas) {
+            totalInternos += folhasCobertas;
+            folhasCobertas *= DESCENDENTES_POR_NO;
+            niveis++;
+        }
+        if (totalInternos * CHAVES_POR_NO > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chaves demais para congelar: " + quantidade);
+        }
+        this.niveisInternos = niveis;
+        this.nosInternos = (int) totalInternos;
+        this.separadores = new int[nosInternos * CHAVES_POR_NO];
+
+        // Cada separador é a menor chave da folha mais à esquerda do descendente à sua direita;
+        // descendentes que não existem recebem Integer.MAX_VALUE
+        int no = 0;
+        long folhasPorDescendente = folhasCobertas;
+        for (int nivel = 0; nivel < niveis; nivel++) {
+            long nosNoNivel = pow(DESCENDENTES_POR_NO, nivel);
+            folhasPorDescendente /= DESCENDENTES_POR_NO;
+            for (long posicao = 0; posicao < nosNoNivel; posicao++, no++) {
+                long primeiraFolha = posicao * folhasPorDescendente * DESCENDENTES_POR_NO;
+                for (int i = 0; i < CHAVES_POR_NO; i++) {
+                    long folha = primeiraFolha + (i + 1) * folhasPorDescendente;
+                    separadores[no * CHAVES_POR_NO + i] = folha < quantidadeFolhas
+                            ? chaves[(int) folha * CHAVES_POR_FOLHA]
+                            : Integer.MAX_VALUE;
+                }
+            }
+        }
+    }
+
+    private int encontrarFolha(int chave) {
+        int no = 0;
+        for (int nivel = 0; nivel < niveisInternos; nivel++) {
+            int inicio = no * CHAVES_POR_NO;
+            int descendente = 0;
+            // Varredura linear sem desvios dentro da linha de cache do nó
+            for (int i = 0; i < CHAVES_POR_NO; i++) {
+                descendente += chave >= separadores[inicio + i] ? 1 : 0;
+            }
+            no = no * DESCENDENTES_POR_NO + 1 + descendente;
+        }
+        return Math.min(no - nosInternos, quantidadeFolhas - 1);
+    }
+
+    // Posição da chave no vetor de folhas, ou -(ponto de inserção) - 1
+    private int buscarPosicao(int chave) {
+        int folha = encontrarFolha(chave);
+        int inicio = folha * CHAVES_POR_FOLHA;
+        int fim = Math.min(inicio + CHAVES_POR_FOLHA, quantidade);
+        return Arrays.binarySearch(chaves, inicio, fim, chave);
+    }
+
+    public String buscarItem(int chave) {
+        if (quantidade == 0) return null;
+        int posicao = buscarPosicao(chave);
+        return posicao >= 0 ? valores[posicao] : null;
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        List<String> resultados = new ArrayList<>();
+        if (quantidade == 0) return resultados;
+        int posicao = buscarPosicao(chaveInicio);
+        if (posicao < 0) posicao = -(posicao + 1);
+        // Chaves repetidas podem ter ficado antes do separador
+        while (posicao > 0 && chaves[posicao - 1] >= chaveInicio) {
+            posicao--;
+        }
+        for (; posicao < quantidade && chaves[posicao] <= chaveFim; posicao++) {
+            resultados.add(valores[posicao]);
+        }
+        return resultados;
+    }
+
+    public int obterQuantidadeChaves() {
+        return quantidade;
+    }
+
+    public int obterAltura() {
+        return niveisInternos + 1;
+    }
+
+    public long estimarBytesIndice() {
+        return 16L + 4L * separadores.length + 16L + 4L * chaves.length;
+    }
+
+    private static long pow(int base, int expoente) {
+        long resultado = 1;
+        for (int i = 0; i < expoente; i++) {
+            resultado *= base;
+        }
+        return resultado;
+    }
+}
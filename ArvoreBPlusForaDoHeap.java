@@ -0,0 +1,661 @@
+// ArvoreBPlusForaDoHeap.java
+// Variante da Árvore B+ cujos nós ficam fora do heap, em blocos de memória direta.
+// Cada nó ocupa uma posição de tamanho fixo num bloco; ponteiros para descendentes e
+// folhas vizinhas são endereços (deslocamentos) em vez de referências Java, e nós liberados
+// por fusões voltam para uma lista livre. O coletor de lixo enxerga apenas os blocos.
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// --- ALOCADOR DE NÓS ---
+
+// Aloca posições de tamanho fixo em blocos de memória direta. Posições liberadas formam
+// uma lista encadeada gravada nos próprios nós livres, sem objetos no heap.
+class AlocadorNos {
+    static final long NULO = -1L;
+    private static final int NOS_POR_BLOCO = 4096;
+
+    private final int tamanhoNo;
+    private final int bytesPorBloco;
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private long proximaPosicao;           // Próximo endereço nunca usado
+    private long listaLivre = NULO;        // Primeiro nó livre (reaproveitado antes de crescer)
+    private long nosEmUso;
+
+    public AlocadorNos(int tamanhoNo) {
+        this.tamanhoNo = tamanhoNo;
+        this.bytesPorBloco = tamanhoNo * NOS_POR_BLOCO;
+    }
+
+    public long alocar() {
+        long endereco;
+        if (listaLivre != NULO) {
+            endereco = listaLivre;
+            listaLivre = lerLong(endereco, 0);
+        } else {
+            if (proximaPosicao == (long) blocos.size() * bytesPorBloco) {
+                blocos.add(ByteBuffer.allocateDirect(bytesPorBloco));
+            }
+            endereco = proximaPosicao;
+            proximaPosicao += tamanhoNo;
+        }
+        nosEmUso++;
+        return endereco;
+    }
+
+    public void liberar(long endereco) {
+        gravarLong(endereco, 0, listaLivre);
+        listaLivre = endereco;
+        nosEmUso--;
+    }
+
+    public int lerInt(long endereco, int deslocamento) {
+        return bloco(endereco).getInt(posicao(endereco) + deslocamento);
+    }
+
+    public void gravarInt(long endereco, int deslocamento, int valor) {
+        bloco(endereco).putInt(posicao(endereco) + deslocamento, valor);
+    }
+
+    public long lerLong(long endereco, int deslocamento) {
+        return bloco(endereco).getLong(posicao(endereco) + deslocamento);
+    }
+
+    public void gravarLong(long endereco, int deslocamento, long valor) {
+        bloco(endereco).putLong(posicao(endereco) + deslocamento, valor);
+    }
+
+    public long obterNosEmUso() {
+        return nosEmUso;
+    }
+
+    public long obterBytesReservados() {
+        return (long) blocos.size() * bytesPorBloco;
+    }
+
+    private ByteBuffer bloco(long endereco) {
+        return blocos.get((int) (endereco / bytesPorBloco));
+    }
+
+    private int posicao(long endereco) {
+        return (int) (endereco % bytesPorBloco);
+    }
+}
+
+// --- ARENA DE VALORES ---
+
+// Guarda os valores como [tamanho][bytes UTF-8] em blocos de memória direta, apenas anexando.
+// Valores removidos não liberam espaço na hora: a árvore copia os vivos para uma arena nova
+// (compactarValores) quando os liberados passam da metade do que foi gravado.
+class ArenaValores {
+    private static final int BYTES_POR_BLOCO = 1 << 20;
+
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private int posicaoNoBloco = BYTES_POR_BLOCO; // Força a criação do primeiro bloco
+    private long bytesGravados;
+    private long bytesLiberados;
+
+    public long gravar(String valor) {
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        long endereco = reservar(bytes.length);
+        ByteBuffer bloco = blocos.get(blocos.size() - 1);
+        int posicao = (int) (endereco % BYTES_POR_BLOCO);
+        bloco.putInt(posicao, bytes.length);
+        bloco.put(posicao + 4, bytes);
+        return endereco;
+    }
+
+    // Copia o valor de 'endereco' em 'origem' byte a byte, sem passar por uma String
+    public long copiarDe(ArenaValores origem, long endereco) {
+        ByteBuffer blocoOrigem = origem.blocos.get((int) (endereco / BYTES_POR_BLOCO));
+        int posicaoOrigem = (int) (endereco % BYTES_POR_BLOCO);
+        int tamanho = blocoOrigem.getInt(posicaoOrigem);
+        long novo = reservar(tamanho);
+        ByteBuffer bloco = blocos.get(blocos.size() - 1);
+        int posicao = (int) (novo % BYTES_POR_BLOCO);
+        bloco.putInt(posicao, tamanho);
+        bloco.put(posicao + 4, blocoOrigem, posicaoOrigem + 4, tamanho);
+        return novo;
+    }
+
+    // Reserva [tamanho][bytes] no bloco atual, abrindo outro se não couber
+    private long reservar(int tamanho) {
+        int necessario = 4 + tamanho;
+        if (necessario > BYTES_POR_BLOCO) {
+            throw new IllegalArgumentException("Valor grande demais para a arena: " + tamanho + " bytes");
+        }
+        if (posicaoNoBloco + necessario > BYTES_POR_BLOCO) {
+            blocos.add(ByteBuffer.allocateDirect(BYTES_POR_BLOCO));
+            posicaoNoBloco = 0;
+        }
+        long endereco = (long) (blocos.size() - 1) * BYTES_POR_BLOCO + posicaoNoBloco;
+        posicaoNoBloco += necessario;
+        bytesGravados += necessario;
+        return endereco;
+    }
+
+    public String ler(long endereco) {
+        ByteBuffer bloco = blocos.get((int) (endereco / BYTES_POR_BLOCO));
+        int posicao = (int) (endereco % BYTES_POR_BLOCO);
+        byte[] bytes = new byte[bloco.getInt(posicao)];
+        bloco.get(posicao + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void liberar(long endereco) {
+        ByteBuffer bloco = blocos.get((int) (endereco / BYTES_POR_BLOCO));
+        bytesLiberados += 4 + bloco.getInt((int) (endereco % BYTES_POR_BLOCO));
+    }
+
+    public long obterBytesReservados() {
+        return (long) blocos.size() * BYTES_POR_BLOCO;
+    }
+
+    public long obterBytesLiberados() {
+        return bytesLiberados;
+    }
+
+    // Vale compactar quando mais da metade do gravado já foi liberada e há ao menos um bloco a ganhar
+    public boolean valeCompactar() {
+        return bytesLiberados > BYTES_POR_BLOCO && 2 * bytesLiberados > bytesGravados;
+    }
+}
+
+// --- CLASSE ARVORE B+ FORA DO HEAP ---
+
+// Mesma interface e mesmas regras de empréstimo e fusão da ArvoreBPlus. Os nós só são
+// divididos quando passam de maxChaves (com ordem 3, dividir ao atingir 2 chaves deixaria
+// um nó interno sem chaves). Sem ponteiros para o pai: inserções e remoções guardam o
+// caminho percorrido na descida.
+public class ArvoreBPlusForaDoHeap {
+    private static final long NULO = AlocadorNos.NULO;
+
+    // Layout de um nó: [tipo:int][quantidade:int][proximo:long][anterior:long][chaves:int...][referencias:long...]
+    // Nas folhas as referências apontam para a arena de valores; nos internos, para os descendentes.
+    private static final int DESLOC_TIPO = 0;
+    private static final int DESLOC_QUANTIDADE = 4;
+    private static final int DESLOC_PROXIMO = 8;
+    private static final int DESLOC_ANTERIOR = 16;
+    private static final int DESLOC_CHAVES = 24;
+    private static final int TIPO_INTERNO = 0;
+    private static final int TIPO_FOLHA = 1;
+
+    private final int maxChaves;
+    private final int minChavesFolha;
+    private final int minChavesInterno;
+    private final int deslocReferencias;
+    private final AlocadorNos alocador;
+    private ArenaValores arena = new ArenaValores();
+    private long raiz;
+    private int altura = 1;
+    private int compactacoesValores;
+
+    // Caminho da última descida de escrita: endereços dos nós e índice do descendente escolhido em
+    // cada um. As leituras descem por descerAteFolha e não tocam nestes campos.
+    private long[] caminhoNos = new long[64];
+    private int[] caminhoIndices = new int[64];
+
+    public ArvoreBPlusForaDoHeap(int ordem) {
+        this.maxChaves = ordem - 1;
+        // Mínimos da ArvoreBPlus: ceil(maxChaves/2) nas folhas e ceil(ordem/2) - 1 nos internos,
+        // de modo que nenhuma fusão passe de maxChaves
+        this.minChavesFolha = (maxChaves + 1) / 2;
+        this.minChavesInterno = maxChaves / 2;
+        // Um nó só guarda maxChaves + 1 chaves entre a inserção que transborda e a divisão
+        this.deslocReferencias = alinhar(DESLOC_CHAVES + 4 * (maxChaves + 1));
+        this.alocador = new AlocadorNos(alinhar(deslocReferencias + 8 * (maxChaves + 2)));
+        this.raiz = novoNo(TIPO_FOLHA);
+    }
+
+    // --- Acesso aos campos dos nós ---
+
+    private long novoNo(int tipo) {
+        long no = alocador.alocar();
+        alocador.gravarInt(no, DESLOC_TIPO, tipo);
+        alocador.gravarInt(no, DESLOC_QUANTIDADE, 0);
+        alocador.gravarLong(no, DESLOC_PROXIMO, NULO);
+        alocador.gravarLong(no, DESLOC_ANTERIOR, NULO);
+        return no;
+    }
+
+    private boolean ehFolha(long no) {
+        return alocador.lerInt(no, DESLOC_TIPO) == TIPO_FOLHA;
+    }
+
+    private int quantidade(long no) {
+        return alocador.lerInt(no, DESLOC_QUANTIDADE);
+    }
+
+    private void definirQuantidade(long no, int quantidade) {
+        alocador.gravarInt(no, DESLOC_QUANTIDADE, quantidade);
+    }
+
+    private int chave(long no, int i) {
+        return alocador.lerInt(no, DESLOC_CHAVES + 4 * i);
+    }
+
+    private void definirChave(long no, int i, int chave) {
+        alocador.gravarInt(no, DESLOC_CHAVES + 4 * i, chave);
+    }
+
+    private long referencia(long no, int i) {
+        return alocador.lerLong(no, deslocReferencias + 8 * i);
+    }
+
+    private void definirReferencia(long no, int i, long referencia) {
+        alocador.gravarLong(no, deslocReferencias + 8 * i, referencia);
+    }
+
+    private long proximo(long folha) {
+        return alocador.lerLong(folha, DESLOC_PROXIMO);
+    }
+
+    private void definirProximo(long folha, long proximo) {
+        alocador.gravarLong(folha, DESLOC_PROXIMO, proximo);
+    }
+
+    private void definirAnterior(long folha, long anterior) {
+        alocador.gravarLong(folha, DESLOC_ANTERIOR, anterior);
+    }
+
+    // Desloca chaves [de, quantidade) uma posição para a direita
+    private void abrirEspacoChave(long no, int de, int quantidade) {
+        for (int i = quantidade; i > de; i--) {
+            definirChave(no, i, chave(no, i - 1));
+        }
+    }
+
+    private void abrirEspacoReferencia(long no, int de, int total) {
+        for (int i = total; i > de; i--) {
+            definirReferencia(no, i, referencia(no, i - 1));
+        }
+    }
+
+    private void fecharEspacoChave(long no, int posicao, int quantidade) {
+        for (int i = posicao; i < quantidade - 1; i++) {
+            definirChave(no, i, chave(no, i + 1));
+        }
+    }
+
+    private void fecharEspacoReferencia(long no, int posicao, int total) {
+        for (int i = posicao; i < total - 1; i++) {
+            definirReferencia(no, i, referencia(no, i + 1));
+        }
+    }
+
+    // Posição da primeira chave >= 'chave' (busca binária)
+    private int encontrarPosicao(long no, int chave) {
+        int inicio = 0;
+        int fim = quantidade(no);
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (chave(no, meio) < chave) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    // Posição da primeira chave > 'chave': índice do descendente nos nós internos
+    private int encontrarPosicaoApos(long no, int chave) {
+        return chave == Integer.MAX_VALUE ? quantidade(no) : encontrarPosicao(no, chave + 1);
+    }
+
+    // --- Descida ---
+
+    // Desce até a folha da chave guardando o caminho; devolve a profundidade da folha no caminho
+    private int descer(int chave) {
+        long atual = raiz;
+        int nivel = 0;
+        while (!ehFolha(atual)) {
+            int i = encontrarPosicaoApos(atual, chave);
+            caminhoNos[nivel] = atual;
+            caminhoIndices[nivel] = i;
+            nivel++;
+            atual = referencia(atual, i);
+        }
+        caminhoNos[nivel] = atual;
+        return nivel;
+    }
+
+    // Descida das leituras: não guarda o caminho
+    private long descerAteFolha(int chave) {
+        long atual = raiz;
+        while (!ehFolha(atual)) {
+            atual = referencia(atual, encontrarPosicaoApos(atual, chave));
+        }
+        return atual;
+    }
+
+    private int posicaoNaFolha(long folha, int chave) {
+        int posicao = encontrarPosicao(folha, chave);
+        return posicao < quantidade(folha) && chave(folha, posicao) == chave ? posicao : -1;
+    }
+
+    // --- Operações ---
+
+    public String buscarItem(int chave) {
+        long folha = descerAteFolha(chave);
+        int posicao = posicaoNaFolha(folha, chave);
+        return posicao != -1 ? arena.ler(referencia(folha, posicao)) : null;
+    }
+
+    public void inserirItem(int chave, String valor) {
+        int nivelFolha = descer(chave);
+        long folha = caminhoNos[nivelFolha];
+        int n = quantidade(folha);
+        int posicao = encontrarPosicao(folha, chave);
+        // Chave já presente: troca o valor na arena sem abrir posição nova
+        if (posicao < n && chave(folha, posicao) == chave) {
+            arena.liberar(referencia(folha, posicao));
+            definirReferencia(folha, posicao, arena.gravar(valor));
+            return;
+        }
+        abrirEspacoChave(folha, posicao, n);
+        abrirEspacoReferencia(folha, posicao, n);
+        definirChave(folha, posicao, chave);
+        definirReferencia(folha, posicao, arena.gravar(valor));
+        definirQuantidade(folha, n + 1);
+
+        if (n + 1 > maxChaves) {
+            dividirFolha(folha, nivelFolha);
+        }
+    }
+
+    private void dividirFolha(long folha, int nivelFolha) {
+        int n = quantidade(folha);
+        int pontoMedio = n / 2;
+        long novaFolha = novoNo(TIPO_FOLHA);
+        for (int i = pontoMedio; i < n; i++) {
+            definirChave(novaFolha, i - pontoMedio, chave(folha, i));
+            definirReferencia(novaFolha, i - pontoMedio, referencia(folha, i));
+        }
+        definirQuantidade(novaFolha, n - pontoMedio);
+        definirQuantidade(folha, pontoMedio);
+
+        long seguinte = proximo(folha);
+        definirProximo(novaFolha, seguinte);
+        definirAnterior(novaFolha, folha);
+        if (seguinte != NULO) {
+            definirAnterior(seguinte, novaFolha);
+        }
+        definirProximo(folha, novaFolha);
+
+        inserirNoPai(nivelFolha, chave(novaFolha, 0), novaFolha);
+    }
+
+    // Insere (chave, filhoDireito) no pai do nó que está em caminhoNos[nivel]
+    private void inserirNoPai(int nivel, int chave, long filhoDireito) {
+        if (nivel == 0) {
+            long novaRaiz = novoNo(TIPO_INTERNO);
+            definirChave(novaRaiz, 0, chave);
+            definirReferencia(novaRaiz, 0, caminhoNos[0]);
+            definirReferencia(novaRaiz, 1, filhoDireito);
+            definirQuantidade(novaRaiz, 1);
+            raiz = novaRaiz;
+            altura++;
+            garantirCapacidadeCaminho();
+            return;
+        }
+        long pai = caminhoNos[nivel - 1];
+        int indiceFilho = caminhoIndices[nivel - 1];
+        int n = quantidade(pai);
+        abrirEspacoChave(pai, indiceFilho, n);
+        abrirEspacoReferencia(pai, indiceFilho + 1, n + 1);
+        definirChave(pai, indiceFilho, chave);
+        definirReferencia(pai, indiceFilho + 1, filhoDireito);
+        definirQuantidade(pai, n + 1);
+
+        if (n + 1 > maxChaves) {
+            dividirInterno(pai, nivel - 1);
+        }
+    }
+
+    private void dividirInterno(long no, int nivel) {
+        int n = quantidade(no);
+        int pontoMedio = n / 2;
+        int chavePromovida = chave(no, pontoMedio);
+        long novoNo = novoNo(TIPO_INTERNO);
+        for (int i = pontoMedio + 1; i < n; i++) {
+            definirChave(novoNo, i - pontoMedio - 1, chave(no, i));
+        }
+        for (int i = pontoMedio + 1; i <= n; i++) {
+            definirReferencia(novoNo, i - pontoMedio - 1, referencia(no, i));
+        }
+        definirQuantidade(novoNo, n - pontoMedio - 1);
+        definirQuantidade(no, pontoMedio);
+        inserirNoPai(nivel, chavePromovida, novoNo);
+    }
+
+    public boolean removerItem(int chave) {
+        int nivelFolha = descer(chave);
+        long folha = caminhoNos[nivelFolha];
+        int posicao = posicaoNaFolha(folha, chave);
+        if (posicao == -1) {
+            return false;
+        }
+        int n = quantidade(folha);
+        arena.liberar(referencia(folha, posicao));
+        fecharEspacoChave(folha, posicao, n);
+        fecharEspacoReferencia(folha, posicao, n);
+        definirQuantidade(folha, n - 1);
+
+        if (nivelFolha > 0 && n - 1 < minChavesFolha) {
+            lidarComSubutilizacaoFolha(nivelFolha);
+        }
+        // A raiz interna sem chaves é substituída pelo seu único descendente
+        while (!ehFolha(raiz) && quantidade(raiz) == 0) {
+            long antiga = raiz;
+            raiz = referencia(raiz, 0);
+            alocador.liberar(antiga);
+            altura--;
+        }
+        if (arena.valeCompactar()) {
+            compactarValores();
+        }
+        return true;
+    }
+
+    // Copia os valores vivos, folha a folha, para uma arena nova e troca as referências das folhas.
+    // Os blocos da arena antiga voltam ao sistema quando o coletor recolhe os ByteBuffers.
+    public void compactarValores() {
+        ArenaValores nova = new ArenaValores();
+        long folha = descerAteFolha(Integer.MIN_VALUE);
+        while (folha != NULO) {
+            int n = quantidade(folha);
+            for (int i = 0; i < n; i++) {
+                definirReferencia(folha, i, nova.copiarDe(arena, referencia(folha, i)));
+            }
+            folha = proximo(folha);
+        }
+        arena = nova;
+        compactacoesValores++;
+    }
+
+    private void lidarComSubutilizacaoFolha(int nivelFolha) {
+        long folha = caminhoNos[nivelFolha];
+        long pai = caminhoNos[nivelFolha - 1];
+        int indice = caminhoIndices[nivelFolha - 1];
+        int filhosPai = quantidade(pai) + 1;
+
+        if (indice > 0) {
+            long esquerda = referencia(pai, indice - 1);
+            int nEsquerda = quantidade(esquerda);
+            if (nEsquerda > minChavesFolha) {
+                int n = quantidade(folha);
+                abrirEspacoChave(folha, 0, n);
+                abrirEspacoReferencia(folha, 0, n);
+                definirChave(folha, 0, chave(esquerda, nEsquerda - 1));
+                definirReferencia(folha, 0, referencia(esquerda, nEsquerda - 1));
+                definirQuantidade(folha, n + 1);
+                definirQuantidade(esquerda, nEsquerda - 1);
+                definirChave(pai, indice - 1, chave(folha, 0));
+                return;
+            }
+        }
+        if (indice < filhosPai - 1) {
+            long direita = referencia(pai, indice + 1);
+            int nDireita = quantidade(direita);
+            if (nDireita > minChavesFolha) {
+                int n = quantidade(folha);
+                definirChave(folha, n, chave(direita, 0));
+                definirReferencia(folha, n, referencia(direita, 0));
+                definirQuantidade(folha, n + 1);
+                fecharEspacoChave(direita, 0, nDireita);
+                fecharEspacoReferencia(direita, 0, nDireita);
+                definirQuantidade(direita, nDireita - 1);
+                definirChave(pai, indice, chave(direita, 0));
+                return;
+            }
+        }
+        if (indice > 0) {
+            mesclarFolhas(referencia(pai, indice - 1), folha, nivelFolha - 1, indice - 1);
+        } else if (indice < filhosPai - 1) {
+            mesclarFolhas(folha, referencia(pai, indice + 1), nivelFolha - 1, indice);
+        }
+    }
+
+    // Move tudo da folha direita para a esquerda e libera a direita
+    private void mesclarFolhas(long esquerda, long direita, int nivelPai, int indiceChavePai) {
+        int nEsquerda = quantidade(esquerda);
+        int nDireita = quantidade(direita);
+        for (int i = 0; i < nDireita; i++) {
+            definirChave(esquerda, nEsquerda + i, chave(direita, i));
+            definirReferencia(esquerda, nEsquerda + i, referencia(direita, i));
+        }
+        definirQuantidade(esquerda, nEsquerda + nDireita);
+        long seguinte = proximo(direita);
+        definirProximo(esquerda, seguinte);
+        if (seguinte != NULO) {
+            definirAnterior(seguinte, esquerda);
+        }
+        alocador.liberar(direita);
+        removerDoPai(nivelPai, indiceChavePai);
+    }
+
+    // Remove a chave 'indiceChave' e o descendente à sua direita do nó caminhoNos[nivel]
+    private void removerDoPai(int nivel, int indiceChave) {
+        long pai = caminhoNos[nivel];
+        int n = quantidade(pai);
+        fecharEspacoChave(pai, indiceChave, n);
+        fecharEspacoReferencia(pai, indiceChave + 1, n + 1);
+        definirQuantidade(pai, n - 1);
+        if (nivel > 0 && n - 1 < minChavesInterno) {
+            lidarComSubutilizacaoInterna(nivel);
+        }
+    }
+
+    private void lidarComSubutilizacaoInterna(int nivel) {
+        long no = caminhoNos[nivel];
+        long pai = caminhoNos[nivel - 1];
+        int indice = caminhoIndices[nivel - 1];
+        int filhosPai = quantidade(pai) + 1;
+
+        if (indice > 0) {
+            long esquerda = referencia(pai, indice - 1);
+            int nEsquerda = quantidade(esquerda);
+            if (nEsquerda > minChavesInterno) {
+                int n = quantidade(no);
+                abrirEspacoChave(no, 0, n);
+                abrirEspacoReferencia(no, 0, n + 1);
+                definirChave(no, 0, chave(pai, indice - 1));
+                definirReferencia(no, 0, referencia(esquerda, nEsquerda));
+                definirQuantidade(no, n + 1);
+                definirChave(pai, indice - 1, chave(esquerda, nEsquerda - 1));
+                definirQuantidade(esquerda, nEsquerda - 1);
+                return;
+            }
+        }
+        if (indice < filhosPai - 1) {
+            long direita = referencia(pai, indice + 1);
+            int nDireita = quantidade(direita);
+            if (nDireita > minChavesInterno) {
+                int n = quantidade(no);
+                definirChave(no, n, chave(pai, indice));
+                definirReferencia(no, n + 1, referencia(direita, 0));
+                definirQuantidade(no, n + 1);
+                definirChave(pai, indice, chave(direita, 0));
+                fecharEspacoChave(direita, 0, nDireita);
+                fecharEspacoReferencia(direita, 0, nDireita + 1);
+                definirQuantidade(direita, nDireita - 1);
+                return;
+            }
+        }
+        if (indice > 0) {
+            mesclarInternos(referencia(pai, indice - 1), no, nivel - 1, indice - 1);
+        } else if (indice < filhosPai - 1) {
+            mesclarInternos(no, referencia(pai, indice + 1), nivel - 1, indice);
+        }
+    }
+
+    private void mesclarInternos(long esquerdo, long direito, int nivelPai, int indiceChavePai) {
+        int nEsquerdo = quantidade(esquerdo);
+        int nDireito = quantidade(direito);
+        definirChave(esquerdo, nEsquerdo, chave(caminhoNos[nivelPai], indiceChavePai));
+        for (int i = 0; i < nDireito; i++) {
+            definirChave(esquerdo, nEsquerdo + 1 + i, chave(direito, i));
+        }
+        for (int i = 0; i <= nDireito; i++) {
+            definirReferencia(esquerdo, nEsquerdo + 1 + i, referencia(direito, i));
+        }
+        definirQuantidade(esquerdo, nEsquerdo + 1 + nDireito);
+        alocador.liberar(direito);
+        removerDoPai(nivelPai, indiceChavePai);
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        List<String> resultados = new ArrayList<>();
+        long atual = descerAteFolha(chaveInicio);
+        int i = encontrarPosicao(atual, chaveInicio);
+        while (atual != NULO) {
+            int n = quantidade(atual);
+            for (; i < n; i++) {
+                if (chave(atual, i) > chaveFim) {
+                    return resultados;
+                }
+                resultados.add(arena.ler(referencia(atual, i)));
+            }
+            atual = proximo(atual);
+            i = 0;
+        }
+        return resultados;
+    }
+
+    public int obterAltura() {
+        return altura;
+    }
+
+    public long obterQuantidadeNos() {
+        return alocador.obterNosEmUso();
+    }
+
+    // Memória direta reservada para nós e valores (não conta como heap)
+    public long obterBytesForaDoHeap() {
+        return alocador.obterBytesReservados() + arena.obterBytesReservados();
+    }
+
+    // Bytes de valores removidos que ainda ocupam a arena atual
+    public long obterBytesValoresLiberados() {
+        return arena.obterBytesLiberados();
+    }
+
+    public int obterCompactacoesValores() {
+        return compactacoesValores;
+    }
+
+    private void garantirCapacidadeCaminho() {
+        if (altura >= caminhoNos.length) {
+            caminhoNos = Arrays.copyOf(caminhoNos, caminhoNos.length * 2);
+            caminhoIndices = Arrays.copyOf(caminhoIndices, caminhoIndices.length * 2);
+        }
+    }
+
+    private static int alinhar(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
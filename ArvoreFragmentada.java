@@ -0,0 +1,597 @@
+// ArvoreFragmentada.java
+// Divide o espaço de IDs em fragmentos por intervalo, cada um com sua própria ArvoreBPlus e uma
+// única thread escritora, para que escritas em fragmentos diferentes não disputem a mesma raiz.
+// As leituras não tomam trava: usam a leitura otimista de um StampedLock e só recorrem à trava
+// de leitura se uma escrita aconteceu no meio. Buscas por intervalo percorrem os fragmentos em
+// ordem e concatenam os resultados, que já saem ordenados porque os intervalos não se sobrepõem.
+// Quando o tamanho dos fragmentos fica desequilibrado, uma thread de rebalanceamento divide o
+// maior pela mediana ou funde vizinhos pequenos, reconstruindo as árvores em lote.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+public class ArvoreFragmentada implements AutoCloseable {
+    private static final int TAMANHO_MAXIMO_LOTE = 64;        // Escritas aplicadas por aquisição da trava
+    private static final double FATOR_DESEQUILIBRIO = 2.0;   // Divide a partir de 2x a média, funde abaixo de 1/2
+    private static final int TAMANHO_MINIMO_DIVISAO = 256;    // Fragmentos menores nunca são divididos
+    private static final int MAXIMO_PASSOS_REBALANCEAMENTO = 64;
+    private static final double OCUPACAO_RECONSTRUCAO = 0.7;  // Deixa espaço nas folhas para as próximas escritas
+
+    private enum Tipo { INSERIR, REMOVER, BARREIRA, PAUSAR, ENCERRAR }
+
+    private static final class Escrita {
+        final Tipo tipo;
+        final int chave;
+        final String valor;
+        final CompletableFuture<Boolean> resultado = new CompletableFuture<>();
+        final CountDownLatch liberacao; // Só em PAUSAR: o escritor espera por ela depois de parar
+        boolean removido;
+        RuntimeException falha;
+
+        Escrita(Tipo tipo, int chave, String valor) {
+            this.tipo = tipo;
+            this.chave = chave;
+            this.valor = valor;
+            this.liberacao = tipo == Tipo.PAUSAR ? new CountDownLatch(1) : null;
+        }
+    }
+
+    // Fragmento responsável pelas chaves em [limiteInferior, limiteSuperior).
+    // Escritas só entram na fila com o monitor do fragmento; o rebalanceamento toma o mesmo
+    // monitor para mover as pendentes e aposentá-lo, então nenhuma escrita se perde.
+    private final class Fragmento {
+        final long limiteInferior;
+        final long limiteSuperior;
+        final ArvoreBPlus arvore;
+        final StampedLock trava = new StampedLock();
+        final BlockingDeque<Escrita> fila = new LinkedBlockingDeque<>();
+        final Thread escritor;
+        volatile int tamanho; // Só a thread escritora (ou o rebalanceamento, com ela pausada) altera
+        volatile boolean aposentado;
+
+        Fragmento(long limiteInferior, long limiteSuperior, ArvoreBPlus arvore, int tamanho) {
+            this.limiteInferior = limiteInferior;
+            this.limiteSuperior = limiteSuperior;
+            this.arvore = arvore;
+            this.tamanho = tamanho;
+            this.escritor = new Thread(this::escrever, "fragmento-" + limiteInferior);
+            this.escritor.setDaemon(true);
+        }
+
+        private void escrever() {
+            List<Escrita> lote = new ArrayList<>(TAMANHO_MAXIMO_LOTE);
+            try {
+                while (true) {
+                    lote.add(fila.take());
+                    fila.drainTo(lote, TAMANHO_MAXIMO_LOTE - 1);
+                    Escrita controle = aplicar(lote);
+                    if (controle != null) {
+                        // Devolve ao início da fila o que chegou depois da escrita de controle
+                        for (int i = lote.size() - 1; lote.get(i) != controle; i--) {
+                            fila.offerFirst(lote.get(i));
+                        }
+                    }
+                    lote.clear();
+                    if (controle != null) {
+                        controle.resultado.complete(true);
+                        if (controle.tipo == Tipo.ENCERRAR) return;
+                        // Pausado: o rebalanceamento lê a árvore e decide se este fragmento continua
+                        controle.liberacao.await();
+                        if (aposentado) return;
+                    }
+                    if (tamanho >= limiteDivisao || tamanho < limiteFusao) {
+                        agendarRebalanceamento();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Aplica o lote com uma única aquisição da trava de escrita e completa os resultados depois
+        // de soltá-la, para que continuações encadeadas não rodem com a trava tomada.
+        // Devolve a escrita de controle (PAUSAR ou ENCERRAR) que encerra o lote, se houver.
+        private Escrita aplicar(List<Escrita> lote) {
+            Escrita controle = null;
+            int aplicadas = 0;
+            long carimbo = trava.writeLock();
+            try {
+                for (Escrita escrita : lote) {
+                    aplicadas++;
+                    if (escrita.tipo == Tipo.PAUSAR || escrita.tipo == Tipo.ENCERRAR) {
+                        controle = escrita;
+                        break;
+                    }
+                    try {
+                        if (escrita.tipo == Tipo.INSERIR) {
+                            // inserirItem substitui uma chave existente: só uma chave nova aumenta o tamanho
+                            if (!arvore.atualizarItem(escrita.chave, escrita.valor)) {
+                                arvore.inserirItem(escrita.chave, escrita.valor);
+                                tamanho++;
+                            }
+                        } else if (escrita.tipo == Tipo.REMOVER) {
+                            escrita.removido = arvore.removerItem(escrita.chave);
+                            if (escrita.removido) tamanho--;
+                        }
+                    } catch (RuntimeException e) {
+                        escrita.falha = e;
+                    }
+                }
+            } finally {
+                trava.unlockWrite(carimbo);
+            }
+            for (int i = 0; i < aplicadas; i++) {
+                Escrita escrita = lote.get(i);
+                if (escrita == controle) break;
+                if (escrita.falha != null) {
+                    escrita.resultado.completeExceptionally(escrita.falha);
+                } else {
+                    escrita.resultado.complete(escrita.tipo == Tipo.REMOVER ? escrita.removido : Boolean.TRUE);
+                }
+            }
+            return controle;
+        }
+
+        // Leitura otimista; se uma escrita invalidou o carimbo (ou a leitura viu a árvore num estado
+        // intermediário e falhou), repete com a trava de leitura
+        <T> T ler(Function<ArvoreBPlus, T> leitura) {
+            long carimbo = trava.tryOptimisticRead();
+            if (carimbo != 0) {
+                try {
+                    T resultado = leitura.apply(arvore);
+                    if (trava.validate(carimbo)) return resultado;
+                } catch (RuntimeException e) {
+                    if (trava.validate(carimbo)) throw e;
+                }
+            }
+            carimbo = trava.readLock();
+            try {
+                return leitura.apply(arvore);
+            } finally {
+                trava.unlockRead(carimbo);
+            }
+        }
+
+        // Espera as escritas já enfileiradas e para o escritor. Não segura o monitor enquanto espera:
+        // continuações executadas pelo escritor podem enfileirar novas escritas.
+        Escrita pausar() {
+            Escrita pausa = new Escrita(Tipo.PAUSAR, 0, null);
+            fila.add(pausa);
+            pausa.resultado.join();
+            return pausa;
+        }
+    }
+
+    private final int ordem;
+    private volatile Fragmento[] fragmentos; // Em ordem de limiteInferior, cobrindo todo o espaço de int
+    private volatile int limiteDivisao = TAMANHO_MINIMO_DIVISAO;
+    private volatile int limiteFusao = 0;
+    private volatile boolean encerrada;
+    private final AtomicBoolean rebalanceamentoAgendado = new AtomicBoolean();
+    private final ExecutorService rebalanceador = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "rebalanceamento-fragmentos");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder divisoes = new LongAdder();
+    private final LongAdder fusoes = new LongAdder();
+
+    // Cria 'quantidadeFragmentos' fragmentos de mesma largura sobre [chaveMinima, chaveMaxima];
+    // o primeiro e o último se estendem até os extremos do int
+    public ArvoreFragmentada(int ordem, int quantidadeFragmentos, int chaveMinima, int chaveMaxima) {
+        if (quantidadeFragmentos < 1 || chaveMinima > chaveMaxima) {
+            throw new IllegalArgumentException("Fragmentação inválida: " + quantidadeFragmentos
+                    + " fragmentos sobre [" + chaveMinima + ", " + chaveMaxima + "]");
+        }
+        this.ordem = ordem;
+        long largura = Math.max(1, ((long) chaveMaxima - chaveMinima + 1) / quantidadeFragmentos);
+        List<Fragmento> iniciais = new ArrayList<>();
+        long inferior = Integer.MIN_VALUE;
+        for (int i = 1; i < quantidadeFragmentos; i++) {
+            long superior = chaveMinima + i * largura;
+            if (superior > chaveMaxima) break;
+            iniciais.add(new Fragmento(inferior, superior, new ArvoreBPlus(ordem), 0));
+            inferior = superior;
+        }
+        iniciais.add(new Fragmento(inferior, (long) Integer.MAX_VALUE + 1, new ArvoreBPlus(ordem), 0));
+        this.fragmentos = iniciais.toArray(new Fragmento[0]);
+        for (Fragmento fragmento : fragmentos) {
+            fragmento.escritor.start();
+        }
+    }
+
+    // --- ESCRITAS (assíncronas, aplicadas pela thread do fragmento) ---
+
+    public CompletableFuture<Boolean> inserirItem(int chave, String valor) {
+        return enfileirar(new Escrita(Tipo.INSERIR, chave, valor));
+    }
+
+    // O futuro indica se a chave existia
+    public CompletableFuture<Boolean> removerItem(int chave) {
+        return enfileirar(new Escrita(Tipo.REMOVER, chave, null));
+    }
+
+    // Completa quando todas as escritas enfileiradas antes desta chamada tiverem sido aplicadas
+    public CompletableFuture<Void> sincronizar() {
+        List<CompletableFuture<Boolean>> barreiras = new ArrayList<>();
+        enfileirarBarreiras(Integer.MIN_VALUE, (long) Integer.MAX_VALUE + 1, barreiras);
+        return CompletableFuture.allOf(barreiras.toArray(new CompletableFuture<?>[0]));
+    }
+
+    // Uma barreira em cada fragmento que cobre [inferior, superior). Se um deles foi aposentado
+    // nesse meio tempo, suas escritas já estão nos substitutos: cobre de novo a faixa dele
+    private void enfileirarBarreiras(long inferior, long superior, List<CompletableFuture<Boolean>> barreiras) {
+        Fragmento[] atuais = fragmentos;
+        for (int i = indiceDoFragmento(atuais, (int) inferior); i < atuais.length && atuais[i].limiteInferior < superior; i++) {
+            Fragmento fragmento = atuais[i];
+            Escrita barreira = new Escrita(Tipo.BARREIRA, (int) fragmento.limiteInferior, null);
+            synchronized (fragmento) {
+                if (!fragmento.aposentado) {
+                    fragmento.fila.add(barreira);
+                    barreiras.add(barreira.resultado);
+                    continue;
+                }
+            }
+            if (encerrada) {
+                barreiras.add(CompletableFuture.failedFuture(new IllegalStateException("Árvore fragmentada encerrada")));
+                continue;
+            }
+            enfileirarBarreiras(fragmento.limiteInferior, fragmento.limiteSuperior, barreiras);
+        }
+    }
+
+    private CompletableFuture<Boolean> enfileirar(Escrita escrita) {
+        while (true) {
+            Fragmento fragmento = localizar(escrita.chave);
+            synchronized (fragmento) {
+                if (!fragmento.aposentado) {
+                    fragmento.fila.add(escrita);
+                    return escrita.resultado;
+                }
+            }
+            // Fragmento substituído: o novo já está publicado, basta localizar de novo
+            if (encerrada) {
+                escrita.resultado.completeExceptionally(new IllegalStateException("Árvore fragmentada encerrada"));
+                return escrita.resultado;
+            }
+        }
+    }
+
+    // --- LEITURAS (sem trava no caso comum) ---
+
+    public String buscarItem(int chave) {
+        return localizar(chave).ler(arvore -> arvore.buscarItem(chave));
+    }
+
+    // Não é um retrato único: cada fragmento é lido no seu próprio momento
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        List<String> resultados = new ArrayList<>();
+        if (chaveInicio > chaveFim) return resultados;
+        Fragmento[] atuais = fragmentos;
+        for (int i = indiceDoFragmento(atuais, chaveInicio); i < atuais.length && atuais[i].limiteInferior <= chaveFim; i++) {
+            resultados.addAll(atuais[i].ler(arvore -> arvore.buscarIntervalo(chaveInicio, chaveFim)));
+        }
+        return resultados;
+    }
+
+    private Fragmento localizar(int chave) {
+        Fragmento[] atuais = fragmentos;
+        return atuais[indiceDoFragmento(atuais, chave)];
+    }
+
+    // Último fragmento com limiteInferior <= chave
+    private static int indiceDoFragmento(Fragmento[] atuais, int chave) {
+        int inicio = 0;
+        int fim = atuais.length - 1;
+        while (inicio < fim) {
+            int meio = (inicio + fim + 1) >>> 1;
+            if (atuais[meio].limiteInferior <= chave) {
+                inicio = meio;
+            } else {
+                fim = meio - 1;
+            }
+        }
+        return inicio;
+    }
+
+    // --- REBALANCEAMENTO ---
+
+    private void agendarRebalanceamento() {
+        if (!encerrada && rebalanceamentoAgendado.compareAndSet(false, true)) {
+            try {
+                rebalanceador.execute(() -> {
+                    rebalanceamentoAgendado.set(false);
+                    rebalancear();
+                });
+            } catch (RejectedExecutionException e) {
+                // Encerrando: não há mais rebalanceamento
+            }
+        }
+    }
+
+    // Um passo por vez: funde o par vizinho mais leve se somar menos que metade da média, senão
+    // divide o maior fragmento se chegar ao dobro da média. Dividir deixa duas metades acima da
+    // média e fundir gera um fragmento abaixo dela, então os passos não se desfazem.
+    private void rebalancear() {
+        for (int passo = 0; passo < MAXIMO_PASSOS_REBALANCEAMENTO && !encerrada; passo++) {
+            Fragmento[] atuais = fragmentos;
+            long total = 0;
+            int maior = 0;
+            for (int i = 0; i < atuais.length; i++) {
+                total += atuais[i].tamanho;
+                if (atuais[i].tamanho > atuais[maior].tamanho) maior = i;
+            }
+            double media = (double) total / atuais.length;
+
+            int parMaisLeve = -1;
+            long menorSoma = Long.MAX_VALUE;
+            for (int i = 0; i + 1 < atuais.length; i++) {
+                long soma = (long) atuais[i].tamanho + atuais[i + 1].tamanho;
+                if (soma < menorSoma) {
+                    menorSoma = soma;
+                    parMaisLeve = i;
+                }
+            }
+
+            if (parMaisLeve >= 0 && menorSoma < media / FATOR_DESEQUILIBRIO) {
+                fundir(atuais[parMaisLeve], atuais[parMaisLeve + 1]);
+            } else if (atuais[maior].tamanho >= Math.max(TAMANHO_MINIMO_DIVISAO, FATOR_DESEQUILIBRIO * media)) {
+                if (!dividir(atuais[maior])) break;
+            } else {
+                break;
+            }
+        }
+        Fragmento[] atuais = fragmentos;
+        long total = 0;
+        for (Fragmento fragmento : atuais) {
+            total += fragmento.tamanho;
+        }
+        double media = (double) total / atuais.length;
+        limiteDivisao = (int) Math.min(Integer.MAX_VALUE, Math.max(TAMANHO_MINIMO_DIVISAO, FATOR_DESEQUILIBRIO * media));
+        limiteFusao = (int) (media / (2 * FATOR_DESEQUILIBRIO));
+    }
+
+    // Divide o fragmento na mediana; devolve false se todas as chaves são iguais
+    private boolean dividir(Fragmento fragmento) {
+        Escrita pausa = fragmento.pausar();
+        List<String> valores = new ArrayList<>();
+        int[] chaves = fragmento.arvore.coletarEmOrdem(valores);
+        // Chaves repetidas ficam do mesmo lado
+        int meio = chaves.length / 2;
+        while (meio < chaves.length && meio > 0 && chaves[meio] == chaves[meio - 1]) meio++;
+        if (meio == 0 || meio == chaves.length) {
+            pausa.liberacao.countDown();
+            return false;
+        }
+        String[] todosValores = valores.toArray(new String[0]);
+        Fragmento esquerdo = criarFragmento(fragmento.limiteInferior, chaves[meio], chaves, todosValores, 0, meio);
+        Fragmento direito = criarFragmento(chaves[meio], fragmento.limiteSuperior, chaves, todosValores, meio, chaves.length);
+        substituir(new Fragmento[] { fragmento }, new Fragmento[] { esquerdo, direito });
+        pausa.liberacao.countDown();
+        divisoes.increment();
+        return true;
+    }
+
+    private void fundir(Fragmento esquerdo, Fragmento direito) {
+        Escrita pausaEsquerda = esquerdo.pausar();
+        Escrita pausaDireita = direito.pausar();
+        List<String> valores = new ArrayList<>();
+        int[] chavesEsquerda = esquerdo.arvore.coletarEmOrdem(valores);
+        int[] chavesDireita = direito.arvore.coletarEmOrdem(valores);
+        int[] chaves = Arrays.copyOf(chavesEsquerda, chavesEsquerda.length + chavesDireita.length);
+        System.arraycopy(chavesDireita, 0, chaves, chavesEsquerda.length, chavesDireita.length);
+        Fragmento fundido = criarFragmento(esquerdo.limiteInferior, direito.limiteSuperior,
+                chaves, valores.toArray(new String[0]), 0, chaves.length);
+        substituir(new Fragmento[] { esquerdo, direito }, new Fragmento[] { fundido });
+        pausaEsquerda.liberacao.countDown();
+        pausaDireita.liberacao.countDown();
+        fusoes.increment();
+    }
+
+    private Fragmento criarFragmento(long limiteInferior, long limiteSuperior, int[] chaves, String[] valores, int de, int ate) {
+        ArvoreBPlus arvore = new ArvoreBPlus(ordem);
+        arvore.carregarOrdenados(Arrays.copyOfRange(chaves, de, ate), Arrays.copyOfRange(valores, de, ate),
+                ate - de, OCUPACAO_RECONSTRUCAO);
+        return new Fragmento(limiteInferior, limiteSuperior, arvore, ate - de);
+    }
+
+    // Com os antigos pausados: move para os novos as escritas que chegaram depois da pausa (na
+    // mesma ordem), publica o novo vetor e aposenta os antigos, tudo com os monitores dos antigos.
+    // Quem esperava num monitor encontra o fragmento aposentado e localiza o substituto; quem já
+    // vê o novo vetor enfileira depois das escritas movidas, então a ordem por chave se mantém.
+    // Os escritores dos novos só começam depois da publicação: uma escrita movida (ou a barreira
+    // depois dela) não pode terminar enquanto os leitores ainda enxergam os antigos.
+    private void substituir(Fragmento[] antigos, Fragmento[] novos) {
+        synchronized (antigos[0]) {
+            if (antigos.length == 1) {
+                publicar(antigos, novos);
+            } else {
+                synchronized (antigos[1]) {
+                    publicar(antigos, novos);
+                }
+            }
+        }
+        for (Fragmento novo : novos) {
+            novo.escritor.start();
+        }
+    }
+
+    private void publicar(Fragmento[] antigos, Fragmento[] novos) {
+        List<Escrita> pendentes = new ArrayList<>();
+        for (Fragmento antigo : antigos) {
+            antigo.fila.drainTo(pendentes);
+        }
+        for (Escrita escrita : pendentes) {
+            if (escrita.tipo == Tipo.BARREIRA) {
+                // A barreira cobria o fragmento inteiro: vale para todos os que o substituem
+                CompletableFuture<?>[] partes = new CompletableFuture<?>[novos.length];
+                for (int i = 0; i < novos.length; i++) {
+                    Escrita parte = new Escrita(Tipo.BARREIRA, (int) novos[i].limiteInferior, null);
+                    novos[i].fila.add(parte);
+                    partes[i] = parte.resultado;
+                }
+                CompletableFuture.allOf(partes).thenRun(() -> escrita.resultado.complete(true));
+            } else {
+                novos[indiceDoFragmento(novos, escrita.chave)].fila.add(escrita);
+            }
+        }
+        Fragmento[] atuais = fragmentos;
+        int posicao = Arrays.asList(atuais).indexOf(antigos[0]);
+        Fragmento[] resultado = new Fragmento[atuais.length - antigos.length + novos.length];
+        System.arraycopy(atuais, 0, resultado, 0, posicao);
+        System.arraycopy(novos, 0, resultado, posicao, novos.length);
+        System.arraycopy(atuais, posicao + antigos.length, resultado, posicao + novos.length,
+                atuais.length - posicao - antigos.length);
+        fragmentos = resultado;
+        for (Fragmento antigo : antigos) {
+            antigo.aposentado = true;
+        }
+    }
+
+    // --- ESTATÍSTICAS ---
+
+    public int obterQuantidadeFragmentos() {
+        return fragmentos.length;
+    }
+
+    public long obterQuantidadeChaves() {
+        long total = 0;
+        for (Fragmento fragmento : fragmentos) {
+            total += fragmento.tamanho;
+        }
+        return total;
+    }
+
+    public long obterDivisoes() {
+        return divisoes.sum();
+    }
+
+    public long obterFusoes() {
+        return fusoes.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Fragmentos (" + fragmentos.length + "):");
+        for (Fragmento fragmento : fragmentos) {
+            sb.append(String.format("%n  [%s, %s): %d chaves",
+                    fragmento.limiteInferior == Integer.MIN_VALUE ? "-inf" : String.valueOf(fragmento.limiteInferior),
+                    fragmento.limiteSuperior > Integer.MAX_VALUE ? "+inf" : String.valueOf(fragmento.limiteSuperior),
+                    fragmento.tamanho));
+        }
+        return sb.toString();
+    }
+
+    // Aplica as escritas pendentes e encerra as threads escritoras
+    @Override
+    public void close() {
+        encerrada = true;
+        rebalanceador.shutdown();
+        try {
+            rebalanceador.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Fragmento fragmento : fragmentos) {
+            Escrita encerrar = new Escrita(Tipo.ENCERRAR, 0, null);
+            synchronized (fragmento) {
+                fragmento.aposentado = true;
+                fragmento.fila.add(encerrar);
+            }
+            encerrar.resultado.join();
+        }
+    }
+
+    // --- DEMONSTRAÇÃO ---
+
+    // Uso: java ArvoreFragmentada [chaves] [threadsProdutoras]
+    // Carrega os produtos com uma divisão inicial ruim (só um fragmento recebe os IDs) para mostrar
+    // o rebalanceamento, e depois compara a vazão de escrita com um e com vários fragmentos.
+    public static void main(String[] args) {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int produtoras = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<ItemProduto> itens = ArvoreBPlus.carregarItensDoArquivo("produtos_corrigido.txt");
+        try (ArvoreFragmentada arvore = new ArvoreFragmentada(3, 4, 0, 8000)) {
+            List<CompletableFuture<Boolean>> insercoes = new ArrayList<>();
+            for (ItemProduto item : itens) {
+                insercoes.add(arvore.inserirItem(item.obterId(), item.obterInfoParaArvore()));
+            }
+            CompletableFuture.allOf(insercoes.toArray(new CompletableFuture<?>[0])).join();
+            arvore.sincronizar().join();
+            int encontrados = 0;
+            for (ItemProduto item : itens) {
+                if (arvore.buscarItem(item.obterId()) != null) encontrados++;
+            }
+            System.out.println("--- Árvore B+ fragmentada (produtos) ---");
+            System.out.println("Produtos: " + itens.size() + ", encontrados: " + encontrados
+                    + ", no intervalo 1000..2000: " + arvore.buscarIntervalo(1000, 2000).size()
+                    + ", divisões: " + arvore.obterDivisoes() + ", fusões: " + arvore.obterFusoes());
+            System.out.println(arvore);
+        }
+
+        // Reinserir a mesma chave só troca o valor: o fragmento continua com uma chave
+        try (ArvoreFragmentada arvore = new ArvoreFragmentada(3, 4, 0, 8000)) {
+            CompletableFuture<Boolean> ultima = null;
+            for (int i = 0; i < 1000; i++) {
+                ultima = arvore.inserirItem(7, "v" + i);
+            }
+            ultima.join();
+            arvore.sincronizar().join();
+            long chaves = arvore.obterQuantidadeChaves();
+            System.out.println("\n--- Reinserção da chave 7 (1000 vezes) ---");
+            System.out.println("Chaves reportadas: " + chaves + ", valor: " + arvore.buscarItem(7)
+                    + ", fragmentos: " + arvore.obterQuantidadeFragmentos());
+            if (chaves != 1 || !"v999".equals(arvore.buscarItem(7))) {
+                throw new IllegalStateException("Reinserções contadas como chaves novas: " + chaves);
+            }
+        }
+
+        System.out.println("\n--- Vazão de escrita: " + quantidade + " chaves, " + produtoras + " threads produtoras ---");
+        for (int quantidadeFragmentos : new int[] { 1, produtoras }) {
+            try (ArvoreFragmentada arvore = new ArvoreFragmentada(32, quantidadeFragmentos, 0, quantidade)) {
+                long inicio = System.nanoTime();
+                List<Thread> threads = new ArrayList<>();
+                for (int p = 0; p < produtoras; p++) {
+                    final int semente = p;
+                    Thread thread = new Thread(() -> {
+                        Random aleatorio = new Random(semente);
+                        CompletableFuture<Boolean> ultima = null;
+                        for (int i = semente; i < quantidade; i += produtoras) {
+                            ultima = arvore.inserirItem(aleatorio.nextInt(quantidade), "v" + i);
+                        }
+                        if (ultima != null) ultima.join();
+                    });
+                    threads.add(thread);
+                    thread.start();
+                }
+                for (Thread thread : threads) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                arvore.sincronizar().join();
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                System.out.printf("%d fragmento(s) iniciais: %.0f inserções/s, %d fragmentos ao final%n",
+                        quantidadeFragmentos, quantidade / segundos, arvore.obterQuantidadeFragmentos());
+            }
+        }
+    }
+}
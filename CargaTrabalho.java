@@ -0,0 +1,263 @@
+// CargaTrabalho.java
+// Gerador determinístico de cargas no estilo do YCSB para as árvores do catálogo: a mesma semente
+// e a mesma configuração produzem sempre a mesma sequência de operações, que pode ser gravada num
+// arquivo de traço e reproduzida depois pelo ReprodutorCarga. As chaves são IDs de produto a partir
+// de ID_INICIAL e os valores seguem ItemProduto.obterInfoParaArvore, com nome e categoria derivados
+// do próprio ID, então o traço não precisa guardá-los.
+//
+// Distribuições das chaves buscadas, atualizadas, removidas ou que iniciam um intervalo:
+//   UNIFORME    qualquer ID já inserido com a mesma chance
+//   ZIPF        poucos IDs concentram a maior parte dos acessos (theta 0.99), espalhados pelos IDs
+//   RECENTE     os IDs inseridos por último são os mais acessados
+//   SEQUENCIAL  percorre os IDs em ordem, recomeçando do início
+// Inserções sempre criam o próximo ID, como no YCSB.
+//
+// Arquivo de traço: [int ASSINATURA][long semente][int chavesIniciais][long quantidade] e, por
+// operação, [byte tipo][int chave], mais [int fim] nos intervalos.
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class CargaTrabalho implements FonteOperacoes {
+    public static final int ID_INICIAL = 1000;
+    private static final int ASSINATURA = 0x43415247; // "CARG"
+    private static final double THETA_ZIPF = 0.99;
+    private static final String[] NOMES = { "Smart TV", "Smartphone", "Notebook", "Monitor", "Teclado", "Mouse",
+            "Headset", "Webcam", "SSD", "Roteador", "Impressora", "Tablet", "Console", "Drone", "Projetor", "Soundbar" };
+    private static final String[] CATEGORIAS = { "Acessórios", "Armazenamento", "Casa Inteligente", "Componentes",
+            "Entretenimento", "Imagem", "Informática", "Periféricos", "Redes", "Áudio" };
+
+    public enum Distribuicao { UNIFORME, ZIPF, RECENTE, SEQUENCIAL }
+
+    // ATUALIZACAO troca o valor de um ID existente; INTERVALO busca [chave, fim]
+    public enum Operacao { BUSCA, INSERCAO, ATUALIZACAO, REMOCAO, INTERVALO }
+
+    private static final Operacao[] OPERACOES = Operacao.values(); // values() copia o vetor a cada chamada
+
+    private final long semente;
+    private final int chavesIniciais;
+    private final Distribuicao distribuicao;
+    private final double[] proporcoesAcumuladas; // Por Operacao.ordinal()
+    private final int tamanhoMaximoIntervalo;
+    private final SplittableRandom aleatorio;
+    private final GeradorZipf zipf = new GeradorZipf(THETA_ZIPF);
+    private int proximoId;  // Próximo ID a inserir
+    private long sequencial;
+    private Operacao operacao;
+    private int chave;
+    private int chaveFim;
+
+    // 'proporcoes' tem um peso por Operacao, na ordem do enum; não precisa somar 1
+    public CargaTrabalho(long semente, int chavesIniciais, Distribuicao distribuicao, double[] proporcoes,
+                         int tamanhoMaximoIntervalo) {
+        if (proporcoes.length != Operacao.values().length) {
+            throw new IllegalArgumentException("Esperado um peso por operação: " + Arrays.toString(Operacao.values()));
+        }
+        this.semente = semente;
+        this.chavesIniciais = chavesIniciais;
+        this.distribuicao = distribuicao;
+        this.tamanhoMaximoIntervalo = Math.max(1, tamanhoMaximoIntervalo);
+        this.aleatorio = new SplittableRandom(semente);
+        this.proximoId = ID_INICIAL + chavesIniciais;
+        this.proporcoesAcumuladas = new double[proporcoes.length];
+        double total = 0;
+        for (double proporcao : proporcoes) {
+            total += proporcao;
+        }
+        double acumulado = 0;
+        for (int i = 0; i < proporcoes.length; i++) {
+            acumulado += proporcoes[i] / total;
+            proporcoesAcumuladas[i] = acumulado;
+        }
+    }
+
+    // Pesos dos perfis A a E do YCSB: A 50% busca/50% atualização, B 95/5, C só buscas,
+    // D 95% busca/5% inserção (use com RECENTE), E 95% intervalo/5% inserção
+    public static double[] perfil(char letra) {
+        switch (Character.toUpperCase(letra)) {
+            case 'A': return new double[] { 0.5, 0, 0.5, 0, 0 };
+            case 'B': return new double[] { 0.95, 0, 0.05, 0, 0 };
+            case 'C': return new double[] { 1, 0, 0, 0, 0 };
+            case 'D': return new double[] { 0.95, 0.05, 0, 0, 0 };
+            case 'E': return new double[] { 0, 0.05, 0, 0, 0.95 };
+            default: throw new IllegalArgumentException("Perfil desconhecido: " + letra + " (use A a E)");
+        }
+    }
+
+    // Valor gravado para um ID: sempre o mesmo, no formato de ItemProduto.obterInfoParaArvore
+    public static String valorPara(int id) {
+        long hash = misturar(id);
+        return new ItemProduto(id, NOMES[(int) Long.remainderUnsigned(hash, NOMES.length)],
+                CATEGORIAS[(int) Long.remainderUnsigned(hash >>> 32, CATEGORIAS.length)]).obterInfoParaArvore();
+    }
+
+    // Insere os IDs [ID_INICIAL, ID_INICIAL + quantidade), o estado inicial de toda reprodução
+    public static void carregarIniciais(IndiceOrdenado indice, int quantidade) {
+        for (int id = ID_INICIAL; id < ID_INICIAL + quantidade; id++) {
+            indice.inserirItem(id, valorPara(id));
+        }
+    }
+
+    // --- GERAÇÃO ---
+
+    public boolean avancar() {
+        double sorteio = aleatorio.nextDouble();
+        int tipo = 0;
+        while (tipo < proporcoesAcumuladas.length - 1 && sorteio >= proporcoesAcumuladas[tipo]) {
+            tipo++;
+        }
+        operacao = OPERACOES[tipo];
+        if (operacao == Operacao.INSERCAO) {
+            chave = proximoId++;
+        } else {
+            chave = escolherExistente();
+            if (operacao == Operacao.INTERVALO) {
+                chaveFim = (int) Math.min(Integer.MAX_VALUE, (long) chave + aleatorio.nextInt(tamanhoMaximoIntervalo));
+            }
+        }
+        return true;
+    }
+
+    // Um dos IDs já inseridos (talvez removido depois), segundo a distribuição
+    private int escolherExistente() {
+        int quantidade = proximoId - ID_INICIAL;
+        if (quantidade == 0) {
+            return ID_INICIAL;
+        }
+        switch (distribuicao) {
+            case ZIPF:
+                // Os IDs populares ficam espalhados em vez de serem os primeiros
+                return ID_INICIAL + (int) Long.remainderUnsigned(misturar(zipf.proximo(quantidade, aleatorio)), quantidade);
+            case RECENTE:
+                return proximoId - 1 - (int) zipf.proximo(quantidade, aleatorio);
+            case SEQUENCIAL:
+                return ID_INICIAL + (int) (sequencial++ % quantidade);
+            default:
+                return ID_INICIAL + aleatorio.nextInt(quantidade);
+        }
+    }
+
+    public Operacao obterOperacao() {
+        return operacao;
+    }
+
+    public int obterChave() {
+        return chave;
+    }
+
+    public int obterChaveFim() {
+        return chaveFim;
+    }
+
+    public int obterChavesIniciais() {
+        return chavesIniciais;
+    }
+
+    // Finalizador do SplitMix64
+    private static long misturar(long valor) {
+        long z = valor * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // --- ARQUIVO DE TRAÇO ---
+
+    // Grava as próximas 'quantidade' operações no arquivo de traço
+    public void gravar(Path arquivo, long quantidade) throws IOException {
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(arquivo), 1 << 16))) {
+            saida.writeInt(ASSINATURA);
+            saida.writeLong(semente);
+            saida.writeInt(chavesIniciais);
+            saida.writeLong(quantidade);
+            for (long i = 0; i < quantidade; i++) {
+                avancar();
+                saida.writeByte(operacao.ordinal());
+                saida.writeInt(chave);
+                if (operacao == Operacao.INTERVALO) {
+                    saida.writeInt(chaveFim);
+                }
+            }
+        }
+    }
+
+    public static LeitorTraco abrir(Path arquivo) throws IOException {
+        return new LeitorTraco(arquivo);
+    }
+
+    // Lê de volta um traço gravado, na mesma ordem
+    public static final class LeitorTraco implements FonteOperacoes, AutoCloseable {
+        private final DataInputStream entrada;
+        private final long semente;
+        private final int chavesIniciais;
+        private final long quantidade;
+        private long lidas;
+        private Operacao operacao;
+        private int chave;
+        private int chaveFim;
+
+        private LeitorTraco(Path arquivo) throws IOException {
+            entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 1 << 16));
+            if (entrada.readInt() != ASSINATURA) {
+                entrada.close();
+                throw new IOException("Arquivo de traço inválido: " + arquivo);
+            }
+            semente = entrada.readLong();
+            chavesIniciais = entrada.readInt();
+            quantidade = entrada.readLong();
+        }
+
+        public boolean avancar() throws IOException {
+            if (lidas == quantidade) {
+                return false;
+            }
+            lidas++;
+            int tipo = entrada.readByte();
+            if (tipo < 0 || tipo >= OPERACOES.length) {
+                throw new IOException("Tipo de operação inválido no traço: " + tipo + " (operação " + lidas + ")");
+            }
+            operacao = OPERACOES[tipo];
+            chave = entrada.readInt();
+            if (operacao == Operacao.INTERVALO) {
+                chaveFim = entrada.readInt();
+            }
+            return true;
+        }
+
+        public Operacao obterOperacao() {
+            return operacao;
+        }
+
+        public int obterChave() {
+            return chave;
+        }
+
+        public int obterChaveFim() {
+            return chaveFim;
+        }
+
+        public long obterSemente() {
+            return semente;
+        }
+
+        public int obterChavesIniciais() {
+            return chavesIniciais;
+        }
+
+        public long obterQuantidade() {
+            return quantidade;
+        }
+
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+    }
+}
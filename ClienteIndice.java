@@ -0,0 +1,155 @@
+// ClienteIndice.java
+// Cliente bloqueante do ServidorIndice. Além das chamadas simples (um pedido, uma resposta),
+// permite enviar vários pedidos de uma vez e só depois ler as respostas (pipelining).
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClienteIndice implements AutoCloseable {
+    private final SocketChannel canal;
+    private ByteBuffer envio = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer recebimento = ByteBuffer.allocate(64 * 1024);
+
+    public ClienteIndice(String host, int porta) throws IOException {
+        canal = SocketChannel.open(new InetSocketAddress(host, porta));
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        recebimento.limit(0);
+    }
+
+    public String buscarItem(int chave) throws IOException {
+        enfileirarBusca(chave);
+        enviar();
+        return lerRespostaBusca();
+    }
+
+    public String[] buscarVarios(int[] chaves) throws IOException {
+        garantirEspaco(9 + 4 * chaves.length);
+        envio.putInt(5 + 4 * chaves.length).put(ServidorIndice.OP_BUSCAR_VARIOS).putInt(chaves.length);
+        for (int chave : chaves) envio.putInt(chave);
+        enviar();
+        ByteBuffer resposta = lerQuadro();
+        verificarStatus(resposta.get());
+        String[] valores = new String[resposta.getInt()];
+        for (int i = 0; i < valores.length; i++) valores[i] = lerTexto(resposta);
+        return valores;
+    }
+
+    public void inserirItem(int chave, String valor) throws IOException {
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > ServidorIndice.TAMANHO_MAXIMO_TEXTO) {
+            throw new IllegalArgumentException("Valor grande demais para o protocolo: " + bytes.length + " bytes");
+        }
+        garantirEspaco(11 + bytes.length);
+        envio.putInt(7 + bytes.length).put(ServidorIndice.OP_INSERIR).putInt(chave).putShort((short) bytes.length).put(bytes);
+        enviar();
+        verificarStatus(lerQuadro().get());
+    }
+
+    public boolean removerItem(int chave) throws IOException {
+        garantirEspaco(9);
+        envio.putInt(5).put(ServidorIndice.OP_REMOVER).putInt(chave);
+        enviar();
+        byte status = lerQuadro().get();
+        if (status == ServidorIndice.STATUS_NAO_ENCONTRADO) return false;
+        verificarStatus(status);
+        return true;
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) throws IOException {
+        garantirEspaco(13);
+        envio.putInt(9).put(ServidorIndice.OP_INTERVALO).putInt(chaveInicio).putInt(chaveFim);
+        enviar();
+        ByteBuffer resposta = lerQuadro();
+        verificarStatus(resposta.get());
+        int quantidade = resposta.getInt();
+        List<String> valores = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) valores.add(lerTexto(resposta));
+        return valores;
+    }
+
+    // --- Pipelining: enfileira buscas, envia todas e lê as respostas na mesma ordem ---
+
+    public void enfileirarBusca(int chave) {
+        garantirEspaco(9);
+        envio.putInt(5).put(ServidorIndice.OP_BUSCAR).putInt(chave);
+    }
+
+    public void enviar() throws IOException {
+        envio.flip();
+        while (envio.hasRemaining()) {
+            canal.write(envio);
+        }
+        envio.clear();
+    }
+
+    public String lerRespostaBusca() throws IOException {
+        ByteBuffer resposta = lerQuadro();
+        byte status = resposta.get();
+        if (status == ServidorIndice.STATUS_NAO_ENCONTRADO) return null;
+        verificarStatus(status);
+        return lerTexto(resposta);
+    }
+
+    // Devolve o conteúdo do próximo quadro de resposta (após o campo de tamanho)
+    private ByteBuffer lerQuadro() throws IOException {
+        garantirRecebidos(4);
+        int tamanho = recebimento.getInt();
+        garantirRecebidos(tamanho);
+        ByteBuffer quadro = recebimento.slice();
+        quadro.limit(tamanho);
+        recebimento.position(recebimento.position() + tamanho);
+        return quadro;
+    }
+
+    private void garantirRecebidos(int bytes) throws IOException {
+        if (recebimento.remaining() >= bytes) return;
+        recebimento.compact();
+        if (recebimento.capacity() < bytes) {
+            ByteBuffer maior = ByteBuffer.allocate(Math.max(bytes, recebimento.capacity() * 2));
+            recebimento.flip();
+            maior.put(recebimento);
+            recebimento = maior;
+        }
+        while (recebimento.position() < bytes) {
+            if (canal.read(recebimento) == -1) {
+                throw new EOFException("Conexão encerrada pelo servidor");
+            }
+        }
+        recebimento.flip();
+    }
+
+    private void garantirEspaco(int bytes) {
+        if (envio.remaining() < bytes) {
+            ByteBuffer maior = ByteBuffer.allocate(Math.max(envio.capacity() * 2, envio.position() + bytes));
+            envio.flip();
+            maior.put(envio);
+            envio = maior;
+        }
+    }
+
+    private static String lerTexto(ByteBuffer buffer) {
+        int tamanho = buffer.getShort() & 0xFFFF;
+        if (tamanho == ServidorIndice.TEXTO_AUSENTE) return null;
+        byte[] bytes = new byte[tamanho];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void verificarStatus(byte status) throws IOException {
+        if (status != ServidorIndice.STATUS_OK) {
+            throw new IOException("Servidor respondeu com erro (status " + status + ")");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
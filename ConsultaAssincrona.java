@@ -0,0 +1,218 @@
+// ConsultaAssincrona.java
+// Interface assíncrona (CompletableFuture) sobre uma árvore, pensada para serviços que
+// atendem cada pedido numa thread leve. Toda leitura e escrita na árvore acontece numa única
+// thread despachante, então a árvore dispensa travas e quem chama nunca bloqueia nela.
+// Buscas simultâneas pela mesma chave são atendidas por um único acesso, e buscas que chegam
+// dentro de uma janela curta são ordenadas e resolvidas numa única descida.
+// Depois de close, novos pedidos falham com IllegalStateException; os que já estavam na fila
+// são atendidos antes de o despachante parar.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class ConsultaAssincrona implements AutoCloseable {
+
+    // Busca as chaves (em ordem crescente) e grava em resultados[i] o valor da chave i, ou null
+    public interface BuscaEmLote {
+        void buscar(int[] chavesOrdenadas, int quantidade, String[] resultados);
+    }
+
+    // Qualquer árvore com busca por intervalo
+    public interface ArvoreIntervalo {
+        List<String> buscarIntervalo(int chaveInicio, int chaveFim);
+    }
+
+    private static final Object ENCERRAR = new Object();
+
+    // Operação enfileirada por executar, com o futuro que ela completa
+    private static final class Tarefa<T> implements Runnable {
+        final Supplier<T> operacao;
+        final CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        Tarefa(Supplier<T> operacao) {
+            this.operacao = operacao;
+        }
+
+        @Override
+        public void run() {
+            try {
+                resultado.complete(operacao.get());
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final BuscaEmLote buscaEmLote;
+    private final long janelaNanos;
+    private final int tamanhoMaximoLote;
+    private final BlockingQueue<Object> fila = new LinkedBlockingQueue<>(); // Chaves (Integer) ou tarefas
+    private final ConcurrentHashMap<Integer, CompletableFuture<String>> pendentes = new ConcurrentHashMap<>();
+    private final Thread despachante;
+    private volatile boolean encerrada;
+
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder chavesBuscadas = new LongAdder();
+    private final LongAdder pedidosAgrupados = new LongAdder(); // Pedidos atendidos por uma busca já pendente
+
+    public ConsultaAssincrona(BuscaEmLote buscaEmLote, long janela, TimeUnit unidade, int tamanhoMaximoLote) {
+        this.buscaEmLote = buscaEmLote;
+        this.janelaNanos = unidade.toNanos(janela);
+        this.tamanhoMaximoLote = tamanhoMaximoLote;
+        this.despachante = new Thread(this::despachar, "consulta-assincrona");
+        this.despachante.setDaemon(true);
+        this.despachante.start();
+    }
+
+    public CompletableFuture<String> buscarItem(int chave) {
+        verificarAberta();
+        CompletableFuture<String> novo = new CompletableFuture<>();
+        CompletableFuture<String> existente = pendentes.putIfAbsent(chave, novo);
+        if (existente != null) {
+            pedidosAgrupados.increment();
+            return existente;
+        }
+        Integer pedido = chave;
+        enfileirar(pedido);
+        return novo;
+    }
+
+    // Executa uma operação qualquer na árvore (busca por intervalo, inserção, remoção) na thread
+    // despachante, em ordem com as buscas enfileiradas antes dela
+    public <T> CompletableFuture<T> executar(Supplier<T> operacao) {
+        verificarAberta();
+        Tarefa<T> tarefa = new Tarefa<>(operacao);
+        enfileirar(tarefa);
+        return tarefa.resultado;
+    }
+
+    public CompletableFuture<List<String>> buscarIntervalo(ArvoreIntervalo arvore, int chaveInicio, int chaveFim) {
+        return executar(() -> arvore.buscarIntervalo(chaveInicio, chaveFim));
+    }
+
+    private void verificarAberta() {
+        if (encerrada) {
+            throw new IllegalStateException("Consulta assíncrona encerrada");
+        }
+    }
+
+    // Se close correu entre a verificação e a fila, o despachante pode já ter esvaziado a fila e
+    // parado: quem consegue tirar o próprio pedido de volta o desfaz e falha
+    private void enfileirar(Object pedido) {
+        fila.add(pedido);
+        if (encerrada && fila.remove(pedido)) {
+            if (pedido instanceof Integer) {
+                CompletableFuture<String> futuro = pendentes.remove(pedido);
+                if (futuro != null) futuro.completeExceptionally(new IllegalStateException("Consulta assíncrona encerrada"));
+            }
+            throw new IllegalStateException("Consulta assíncrona encerrada");
+        }
+    }
+
+    private void despachar() {
+        int[] chaves = new int[tamanhoMaximoLote];
+        String[] resultados = new String[tamanhoMaximoLote];
+        try {
+            while (true) {
+                Object pedido = fila.take();
+                if (pedido == ENCERRAR) {
+                    return;
+                }
+                if (pedido instanceof Runnable) {
+                    ((Runnable) pedido).run();
+                    continue;
+                }
+                // Junta as chaves que chegarem dentro da janela, até o tamanho máximo do lote;
+                // uma tarefa interrompe o lote para preservar a ordem em relação a ela
+                int quantidade = 0;
+                chaves[quantidade++] = (Integer) pedido;
+                Object interrupcao = null;
+                long prazo = System.nanoTime() + janelaNanos;
+                while (quantidade < tamanhoMaximoLote) {
+                    long restante = prazo - System.nanoTime();
+                    Object proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+                    if (proximo == null) break;
+                    if (!(proximo instanceof Integer)) {
+                        interrupcao = proximo;
+                        break;
+                    }
+                    chaves[quantidade++] = (Integer) proximo;
+                }
+                resolverLote(chaves, quantidade, resultados);
+                if (interrupcao == ENCERRAR) {
+                    return;
+                }
+                if (interrupcao != null) {
+                    ((Runnable) interrupcao).run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Só sobra algo aqui se o despachante foi interrompido ou um pedido correu com close
+            encerrada = true;
+            IllegalStateException erro = new IllegalStateException("Consulta assíncrona encerrada");
+            List<Object> restantes = new ArrayList<>();
+            fila.drainTo(restantes);
+            for (Object restante : restantes) {
+                if (restante instanceof Tarefa) {
+                    ((Tarefa<?>) restante).resultado.completeExceptionally(erro);
+                }
+            }
+            pendentes.values().forEach(futuro -> futuro.completeExceptionally(erro));
+        }
+    }
+
+    private void resolverLote(int[] chaves, int quantidade, String[] resultados) {
+        Arrays.sort(chaves, 0, quantidade);
+        lotes.increment();
+        chavesBuscadas.add(quantidade);
+        try {
+            buscaEmLote.buscar(chaves, quantidade, resultados);
+            for (int i = 0; i < quantidade; i++) {
+                CompletableFuture<String> futuro = pendentes.remove(chaves[i]);
+                if (futuro != null) futuro.complete(resultados[i]);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < quantidade; i++) {
+                CompletableFuture<String> futuro = pendentes.remove(chaves[i]);
+                if (futuro != null) futuro.completeExceptionally(e);
+            }
+        }
+        Arrays.fill(resultados, 0, quantidade, null);
+    }
+
+    public long obterLotes() {
+        return lotes.sum();
+    }
+
+    public long obterChavesBuscadas() {
+        return chavesBuscadas.sum();
+    }
+
+    public long obterPedidosAgrupados() {
+        return pedidosAgrupados.sum();
+    }
+
+    @Override
+    public void close() {
+        if (encerrada) {
+            return;
+        }
+        encerrada = true;
+        fila.add(ENCERRAR);
+        try {
+            despachante.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+// DicionarioCategorias.java
+// Dicionário de categorias para as varreduras colunares: cada categoria distinta recebe um
+// código inteiro sequencial. A busca compara um trecho do valor guardado na árvore direto com as
+// categorias já conhecidas, então só uma categoria nova cria uma String.
+
+import java.util.Arrays;
+
+public class DicionarioCategorias {
+    private String[] categorias = new String[16];
+    private int quantidade;
+    private int[] tabela = novaTabela(64); // Endereçamento aberto: código da categoria ou -1
+
+    public int codificar(String categoria) {
+        return codificar(categoria, 0, categoria.length());
+    }
+
+    // Código da categoria texto[inicio, fim), criando um novo se ela ainda não existe
+    public int codificar(String texto, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        int hash = 0;
+        for (int i = inicio; i < fim; i++) {
+            hash = 31 * hash + texto.charAt(i); // Mesmo cálculo de String.hashCode
+        }
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(hash) & mascara;
+        while (tabela[posicao] != -1) {
+            String existente = categorias[tabela[posicao]];
+            if (existente.length() == tamanho && existente.regionMatches(0, texto, inicio, tamanho)) {
+                return tabela[posicao];
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        if (quantidade == categorias.length) {
+            categorias = Arrays.copyOf(categorias, quantidade * 2);
+        }
+        int codigo = quantidade++;
+        categorias[codigo] = texto.substring(inicio, fim);
+        tabela[posicao] = codigo;
+        if (quantidade * 2 > tabela.length) {
+            redimensionar();
+        }
+        return codigo;
+    }
+
+    public String obterCategoria(int codigo) {
+        return categorias[codigo];
+    }
+
+    public int obterQuantidade() {
+        return quantidade;
+    }
+
+    private void redimensionar() {
+        tabela = novaTabela(tabela.length * 2);
+        int mascara = tabela.length - 1;
+        for (int codigo = 0; codigo < quantidade; codigo++) {
+            int posicao = espalhar(categorias[codigo].hashCode()) & mascara;
+            while (tabela[posicao] != -1) {
+                posicao = (posicao + 1) & mascara;
+            }
+            tabela[posicao] = codigo;
+        }
+    }
+
+    private static int espalhar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] novaTabela(int tamanho) {
+        int[] tabela = new int[tamanho];
+        Arrays.fill(tabela, -1);
+        return tabela;
+    }
+}
@@ -0,0 +1,46 @@
+// EstatisticasEstrutura.java
+// Retrato da estrutura de uma árvore (altura, nós, ocupação e memória estimada).
+
+// Estatísticas estruturais de uma árvore num dado instante
+public class EstatisticasEstrutura {
+    private final int altura;
+    private final long quantidadeNos;
+    private final long quantidadeChaves;
+    private final long capacidadeTotal;
+    private final long bytesEstimados;
+
+    public EstatisticasEstrutura(int altura, long quantidadeNos, long quantidadeChaves, long capacidadeTotal, long bytesEstimados) {
+        this.altura = altura;
+        this.quantidadeNos = quantidadeNos;
+        this.quantidadeChaves = quantidadeChaves;
+        this.capacidadeTotal = capacidadeTotal;
+        this.bytesEstimados = bytesEstimados;
+    }
+
+    public int obterAltura() {
+        return altura;
+    }
+
+    public long obterQuantidadeNos() {
+        return quantidadeNos;
+    }
+
+    public long obterQuantidadeChaves() {
+        return quantidadeChaves;
+    }
+
+    // Razão entre chaves armazenadas e a capacidade máxima de todos os nós
+    public double obterFatorOcupacaoMedio() {
+        return capacidadeTotal == 0 ? 0.0 : (double) quantidadeChaves / capacidadeTotal;
+    }
+
+    public long obterBytesEstimados() {
+        return bytesEstimados;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Altura: %d, Nós: %d, Chaves: %d, Ocupação média: %.1f%%, Memória estimada: %d bytes",
+                altura, quantidadeNos, quantidadeChaves, obterFatorOcupacaoMedio() * 100, bytesEstimados);
+    }
+}
@@ -0,0 +1,102 @@
+// FiltroBloom.java
+// Filtro de Bloom para chaves int, usado pelas árvores para responder a buscas por IDs que não
+// existem sem descer até uma folha. Nunca dá falso negativo: se diz que a chave não está, ela não
+// está. Não aceita remoções, então a árvore o reconstrói depois de uma parcela de remoções, e
+// também quando passa da capacidade para a qual foi dimensionado.
+// Um único escritor por vez (o da árvore) e leitores sem trava: as palavras são gravadas com
+// setRelease e lidas com getAcquire, então um leitor nunca vê uma palavra rasgada e, depois de
+// ver uma escrita publicada após a inserção, vê os bits dela.
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class FiltroBloom {
+    private static final VarHandle PALAVRA = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] palavras;
+    private final int mascara;   // Quantidade de bits - 1 (potência de 2)
+    private final int funcoes;   // Posições testadas por chave
+    private final int capacidade;
+    private int quantidade;
+    private long consultas;      // Contadores simples: sob leituras concorrentes são aproximados
+    private long negativas;
+
+    // Dimensiona para 'capacidade' chaves com a taxa de falsos positivos desejada:
+    // m = -n ln(p) / ln(2)^2 bits e k = (m / n) ln(2) funções
+    public FiltroBloom(int capacidade, double taxaFalsosPositivos) {
+        this.capacidade = Math.max(1, capacidade);
+        double bitsIdeais = -this.capacidade * Math.log(taxaFalsosPositivos) / (Math.log(2) * Math.log(2));
+        int bits = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(64, Math.ceil(bitsIdeais))) * 2 - 1);
+        this.mascara = bits - 1;
+        this.palavras = new long[Math.max(1, bits / 64)];
+        this.funcoes = Math.max(1, (int) Math.round((double) bits / this.capacidade * Math.log(2)));
+    }
+
+    public void adicionar(int chave) {
+        long hash = misturar(chave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            int bit = (h1 + i * h2) & mascara;
+            int indice = bit >>> 6;
+            PALAVRA.setRelease(palavras, indice, palavras[indice] | (1L << bit)); // Só o escritor grava
+        }
+        quantidade++;
+    }
+
+    public boolean podeConter(int chave) {
+        consultas++;
+        long hash = misturar(chave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            int bit = (h1 + i * h2) & mascara;
+            if (((long) PALAVRA.getAcquire(palavras, bit >>> 6) & (1L << bit)) == 0) {
+                negativas++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Finalizador do SplitMix64: espalha IDs sequenciais por todos os bits
+    private static long misturar(int chave) {
+        long z = chave * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public boolean estaSaturado() {
+        return quantidade > capacidade;
+    }
+
+    // (1 - e^(-k n / m))^k para as chaves adicionadas até agora
+    public double estimarTaxaFalsosPositivos() {
+        return Math.pow(1 - Math.exp(-(double) funcoes * quantidade / (mascara + 1.0)), funcoes);
+    }
+
+    public int obterQuantidade() {
+        return quantidade;
+    }
+
+    public long obterConsultas() {
+        return consultas;
+    }
+
+    // Consultas respondidas pelo filtro sem tocar na árvore
+    public long obterNegativas() {
+        return negativas;
+    }
+
+    public long obterBytes() {
+        return 8L * palavras.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Filtro de Bloom: %d chaves, %d bytes, %d funções, falsos positivos estimados: %.2f%%, "
+                        + "consultas: %d, evitadas: %d",
+                quantidade, obterBytes(), funcoes, 100 * estimarTaxaFalsosPositivos(), consultas, negativas);
+    }
+}
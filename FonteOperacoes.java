@@ -0,0 +1,17 @@
+// FonteOperacoes.java
+// Sequência de operações lida uma a uma, sem criar objetos por operação: o gerador CargaTrabalho
+// ou um traço gravado (CargaTrabalho.LeitorTraco)
+
+import java.io.IOException;
+
+interface FonteOperacoes {
+    // Avança para a próxima operação; false quando a fonte acabou
+    boolean avancar() throws IOException;
+
+    CargaTrabalho.Operacao obterOperacao();
+
+    int obterChave();
+
+    // Última chave do intervalo; só vale em INTERVALO
+    int obterChaveFim();
+}
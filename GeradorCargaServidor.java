@@ -0,0 +1,94 @@
+// GeradorCargaServidor.java
+// Gerador de carga para o ServidorIndice. Sem host informado, sobe um servidor local com o
+// arquivo de produtos e mede por loopback. Cada cliente mantém 'profundidade' buscas em voo
+// (pipelining) e registra a latência de cada uma, do envio do lote até a leitura da resposta.
+//
+// Uso: java GeradorCargaServidor [clientes] [profundidade] [segundos] [host:porta]
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GeradorCargaServidor {
+    private static final int ID_MINIMO = 1000;
+    private static final int ID_MAXIMO = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int profundidade = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        String host = "127.0.0.1";
+        int porta;
+        ServidorIndice servidorLocal = null;
+        if (args.length > 3) {
+            String[] endereco = args[3].split(":");
+            host = endereco[0];
+            porta = Integer.parseInt(endereco[1]);
+        } else {
+            ArvoreBPlus arvore = new ArvoreBPlus(3);
+            for (ItemProduto item : ArvoreBPlus.carregarItensDoArquivo("produtos_corrigido.txt")) {
+                arvore.inserirItem(item.obterId(), item.obterInfoParaArvore());
+            }
+            servidorLocal = new ServidorIndice(arvore, 0);
+            porta = servidorLocal.obterPorta();
+            Thread threadServidor = new Thread(servidorLocal, "servidor-indice");
+            threadServidor.setDaemon(true);
+            threadServidor.start();
+        }
+
+        System.out.println("--- Carga no servidor do índice (" + host + ":" + porta + ") ---");
+        System.out.println("Clientes: " + clientes + ", buscas em voo por cliente: " + profundidade + ", duração: " + segundos + " s");
+
+        HistogramaLatencia latencias = new HistogramaLatencia();
+        LongAdder encontrados = new LongAdder();
+        long fim = System.nanoTime() + segundos * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> falhas = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            final int semente = c;
+            final String hostFinal = host;
+            Thread thread = new Thread(() -> {
+                Random aleatorio = new Random(semente);
+                try (ClienteIndice cliente = new ClienteIndice(hostFinal, porta)) {
+                    while (System.nanoTime() < fim) {
+                        for (int i = 0; i < profundidade; i++) {
+                            cliente.enfileirarBusca(ID_MINIMO + aleatorio.nextInt(ID_MAXIMO - ID_MINIMO + 1));
+                        }
+                        long envio = System.nanoTime();
+                        cliente.enviar();
+                        for (int i = 0; i < profundidade; i++) {
+                            if (cliente.lerRespostaBusca() != null) encontrados.increment();
+                            latencias.registrar(System.nanoTime() - envio);
+                        }
+                    }
+                } catch (IOException e) {
+                    synchronized (falhas) {
+                        falhas.add(e);
+                    }
+                }
+            }, "cliente-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        long inicio = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double duracao = (System.nanoTime() - inicio) / 1e9;
+
+        long total = latencias.obterTotal();
+        System.out.printf("Buscas: %d (%d encontradas), vazão: %.0f buscas/s%n", total, encontrados.sum(), total / duracao);
+        System.out.printf("Latência: p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                latencias.obterPercentil(50) / 1000.0, latencias.obterPercentil(99) / 1000.0,
+                latencias.obterPercentil(99.9) / 1000.0, latencias.obterMaximo() / 1000.0);
+        for (Exception falha : falhas) {
+            System.err.println("Falha de cliente: " + falha.getMessage());
+        }
+        if (servidorLocal != null) {
+            servidorLocal.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+// GeradorZipf.java
+// Gerador Zipfian de Gray et al. (o mesmo do YCSB): devolve posições em [0, n) com a posição 0 a
+// mais frequente. Quando n cresce, a constante zeta(n) é estendida só com os termos novos.
+
+import java.util.SplittableRandom;
+
+class GeradorZipf {
+    private final double theta;
+    private final double alfa;
+    private final double zeta2;
+    private long contadoEmZeta;
+    private double zetaN;
+    private double eta;
+
+    GeradorZipf(double theta) {
+        this.theta = theta;
+        this.alfa = 1.0 / (1.0 - theta);
+        this.zeta2 = 1 + Math.pow(0.5, theta);
+    }
+
+    long proximo(long n, SplittableRandom aleatorio) {
+        if (n != contadoEmZeta) {
+            atualizarZeta(n);
+        }
+        double u = aleatorio.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) return 0;
+        if (uz < zeta2) return Math.min(1, n - 1);
+        return Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alfa)));
+    }
+
+    private void atualizarZeta(long n) {
+        if (n < contadoEmZeta) {
+            zetaN = 0;
+            contadoEmZeta = 0;
+        }
+        for (long i = contadoEmZeta + 1; i <= n; i++) {
+            zetaN += 1.0 / Math.pow(i, theta);
+        }
+        contadoEmZeta = n;
+        eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetaN);
+    }
+}
@@ -0,0 +1,103 @@
+// HistogramaLatencia.java
+// Histograma log-linear de latências (em nanossegundos), no estilo do HdrHistogram:
+// cada potência de 2 é dividida em 128 faixas lineares, o que garante erro relativo
+// abaixo de 1% em toda a escala. O registro é um incremento atômico, sem travas.
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class HistogramaLatencia {
+    private static final int BITS_SUBFAIXA = 8;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;       // 256 valores exatos no início da escala
+    private static final int MEIAS_SUBFAIXAS = SUBFAIXAS / 2;       // 128 faixas por potência de 2 depois disso
+    private static final int TOTAL_FAIXAS = (64 - BITS_SUBFAIXA + 1) * MEIAS_SUBFAIXAS + MEIAS_SUBFAIXAS;
+
+    private final AtomicLongArray faixas = new AtomicLongArray(TOTAL_FAIXAS);
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long valor) {
+        if (valor < 0) valor = 0;
+        faixas.incrementAndGet(indiceDe(valor));
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+
+    static int indiceDe(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = (63 - Long.numberOfLeadingZeros(valor)) - (BITS_SUBFAIXA - 1);
+        int subfaixa = (int) (valor >>> expoente);
+        return (expoente + 1) * MEIAS_SUBFAIXAS + (subfaixa - MEIAS_SUBFAIXAS);
+    }
+
+    // Maior valor que cai na mesma faixa do índice informado
+    static long valorMaximoDaFaixa(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+        int expoente = indice / MEIAS_SUBFAIXAS - 1;
+        long subfaixa = indice % MEIAS_SUBFAIXAS + MEIAS_SUBFAIXAS;
+        return ((subfaixa + 1) << expoente) - 1;
+    }
+
+    public long obterTotal() {
+        long total = 0;
+        for (int i = 0; i < faixas.length(); i++) {
+            total += faixas.get(i);
+        }
+        return total;
+    }
+
+    public long obterMaximo() {
+        return maximo.get();
+    }
+
+    // Valor abaixo do qual está a fração 'percentil' (entre 0 e 100) dos registros
+    public long obterPercentil(double percentil) {
+        long total = obterTotal();
+        if (total == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < faixas.length(); i++) {
+            acumulado += faixas.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(valorMaximoDaFaixa(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    // Soma os registros de outro histograma a este
+    public void adicionar(HistogramaLatencia outro) {
+        for (int i = 0; i < faixas.length(); i++) {
+            long contagem = outro.faixas.get(i);
+            if (contagem != 0) faixas.addAndGet(i, contagem);
+        }
+        long atual = maximo.get();
+        long maximoOutro = outro.maximo.get();
+        while (maximoOutro > atual && !maximo.compareAndSet(atual, maximoOutro)) {
+            atual = maximo.get();
+        }
+    }
+
+    // Move os registros para um novo histograma e zera este; usado nos relatórios por intervalo
+    public HistogramaLatencia extrairEZerar() {
+        HistogramaLatencia copia = new HistogramaLatencia();
+        for (int i = 0; i < faixas.length(); i++) {
+            long contagem = faixas.getAndSet(i, 0);
+            if (contagem != 0) copia.faixas.set(i, contagem);
+        }
+        copia.maximo.set(maximo.getAndSet(0));
+        return copia;
+    }
+
+    public void zerar() {
+        for (int i = 0; i < faixas.length(); i++) {
+            faixas.set(i, 0);
+        }
+        maximo.set(0);
+    }
+}
@@ -0,0 +1,335 @@
+// IndiceAdaptativo.java
+// Índice que alterna entre a Árvore B+ e a B* conforme a carga: conta buscas, escritas e
+// varreduras por intervalo em janelas e, quando a mistura pede a outra estrutura por algumas
+// janelas seguidas, migra o conteúdo sem parar o atendimento. A B* (nós com ao menos 2/3 de
+// ocupação, árvore mais baixa) fica para as horas de leitura pontual; a B+ (folhas encadeadas,
+// divisões mais baratas) para varreduras e para as horas de sincronização em lote.
+//
+// Migração: sob a trava de leitura tira um instantâneo em ordem e passa a registrar as escritas
+// num mapa de deltas; constrói a nova estrutura em lote fora da trava; por fim, sob a trava de
+// escrita, reaplica os deltas nela e troca a referência. As leituras seguem a árvore antiga até a
+// troca. Inserir uma chave existente substitui o valor nas duas estruturas.
+//
+// As duas árvores rodam no modo de leitores concorrentes: escritas são exclusivas entre si (trava
+// de escrita) e as leituras pontuais e por intervalo não tomam trava nenhuma. Uma árvore antiga
+// deixa de receber escritas na troca, então quem ainda a lê termina sobre um estado consistente.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+public class IndiceAdaptativo implements IndiceOrdenado, AutoCloseable {
+    public enum Estrutura { BPLUS, BESTRELA }
+
+    // Lápide: comparada por identidade, nunca é um valor gravado por quem usa a classe
+    private static final String LAPIDE = new String("<removido>");
+    private static final long OPERACOES_MINIMAS_JANELA = 1000;   // Janelas com menos operações não decidem nada
+    private static final double FRACAO_VARREDURAS_BPLUS = 0.2;   // Varreduras a partir disso pedem B+
+    private static final double FRACAO_ESCRITAS_BPLUS = 0.5;     // Escritas a partir disso também
+    private static final double FRACAO_BUSCAS_BESTRELA = 0.8;    // Buscas pontuais a partir disso pedem B*
+    private static final double OCUPACAO_DENSA = 0.85;           // Uma B+ já ocupada assim ganha pouco com a B*
+    private static final int JANELAS_PARA_MIGRAR = 2;            // Evita migrar por causa de um pico isolado
+    private static final double OCUPACAO_RECONSTRUCAO_BPLUS = 0.7; // Deixa espaço nas folhas para as escritas
+    private static final double FRACAO_ESCRITAS_NOVA_AMOSTRA = 0.1; // Escritas (sobre o tamanho) que invalidam a ocupação medida
+
+    private final int ordem;
+    private final StampedLock trava = new StampedLock(); // Escritas e a troca são exclusivas; coletas leem com a trava
+    private volatile IndiceOrdenado atual;
+    private volatile Estrutura estrutura;
+    private TreeMap<Integer, String> deltas; // Escritas durante uma migração, ou null; só com a trava
+
+    private final LongAdder buscas = new LongAdder();
+    private final LongAdder escritas = new LongAdder();
+    private final LongAdder varreduras = new LongAdder();
+    private final LongAdder migracoes = new LongAdder();
+    private long[] ultimaJanela = new long[3]; // Buscas, escritas e varreduras da última janela avaliada
+    private Estrutura estruturaPedida;
+    private int janelasPedindo;
+    // Ocupação da B+ medida na última amostra (NaN: medir de novo) e escritas desde então
+    private double ocupacaoAmostrada = Double.NaN;
+    private long chavesAmostradas;
+    private long escritasDesdeAmostra;
+    private ScheduledExecutorService agendador;
+
+    public IndiceAdaptativo(int ordem, Estrutura inicial) {
+        this.ordem = ordem;
+        this.estrutura = inicial;
+        this.atual = construir(inicial, new int[0], new String[0]);
+    }
+
+    // --- OPERAÇÕES ---
+
+    public void inserirItem(int chave, String valor) {
+        escritas.increment();
+        long carimbo = trava.writeLock();
+        try {
+            atual.inserirItem(chave, valor);
+            if (deltas != null) deltas.put(chave, valor);
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    public boolean atualizarItem(int chave, String valor) {
+        escritas.increment();
+        long carimbo = trava.writeLock();
+        try {
+            boolean atualizado = atual.atualizarItem(chave, valor);
+            if (atualizado && deltas != null) deltas.put(chave, valor);
+            return atualizado;
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    public boolean removerItem(int chave) {
+        escritas.increment();
+        long carimbo = trava.writeLock();
+        try {
+            if (deltas != null) deltas.put(chave, LAPIDE);
+            return atual.removerItem(chave);
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+    }
+
+    public String buscarItem(int chave) {
+        buscas.increment();
+        return lerArvore(arvore -> arvore.buscarItem(chave));
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        varreduras.increment();
+        return lerArvore(arvore -> arvore.buscarIntervalo(chaveInicio, chaveFim));
+    }
+
+    public boolean existeNoIntervalo(int chaveInicio, int chaveFim) {
+        buscas.increment();
+        return lerArvore(arvore -> arvore.existeNoIntervalo(chaveInicio, chaveFim));
+    }
+
+    // Com a trava de leitura: uma tentativa otimista repetida deixaria valores duplicados na lista
+    public int[] coletarEmOrdem(List<String> valores) {
+        long carimbo = trava.readLock();
+        try {
+            return atual.coletarEmOrdem(valores);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    public EstatisticasEstrutura coletarEstatisticas() {
+        long carimbo = trava.readLock();
+        try {
+            return atual.coletarEstatisticas();
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    // Sem trava: a árvore em uso valida as próprias leituras pelas versões dos nós
+    private <T> T lerArvore(Function<IndiceOrdenado, T> leitura) {
+        return leitura.apply(atual);
+    }
+
+    // --- ESCOLHA DA ESTRUTURA ---
+
+    // Fecha a janela atual e devolve a estrutura em uso depois dela; se a mesma troca foi pedida
+    // por JANELAS_PARA_MIGRAR janelas seguidas, migra antes de devolver
+    public synchronized Estrutura avaliar() {
+        ultimaJanela = new long[] { buscas.sumThenReset(), escritas.sumThenReset(), varreduras.sumThenReset() };
+        escritasDesdeAmostra += ultimaJanela[1];
+        Estrutura pedida = escolher(ultimaJanela[0], ultimaJanela[1], ultimaJanela[2]);
+        if (pedida == estrutura) {
+            estruturaPedida = null;
+            janelasPedindo = 0;
+            return estrutura;
+        }
+        janelasPedindo = pedida == estruturaPedida ? janelasPedindo + 1 : 1;
+        estruturaPedida = pedida;
+        if (janelasPedindo >= JANELAS_PARA_MIGRAR) {
+            migrarPara(pedida);
+        }
+        return estrutura;
+    }
+
+    private Estrutura escolher(long quantidadeBuscas, long quantidadeEscritas, long quantidadeVarreduras) {
+        long total = quantidadeBuscas + quantidadeEscritas + quantidadeVarreduras;
+        if (total < OPERACOES_MINIMAS_JANELA) {
+            return estrutura;
+        }
+        if (quantidadeVarreduras >= FRACAO_VARREDURAS_BPLUS * total || quantidadeEscritas >= FRACAO_ESCRITAS_BPLUS * total) {
+            return Estrutura.BPLUS;
+        }
+        if (quantidadeBuscas >= FRACAO_BUSCAS_BESTRELA * total && estrutura == Estrutura.BPLUS
+                && ocupacaoAmostrada() < OCUPACAO_DENSA) {
+            return Estrutura.BESTRELA;
+        }
+        return estrutura;
+    }
+
+    // Percorrer a árvore toda a cada janela custaria uma coleta completa sob a trava de leitura;
+    // a ocupação só muda de verdade com escritas, então a medida vale até que elas somem uma
+    // fração do tamanho medido (ou até a próxima migração)
+    private double ocupacaoAmostrada() {
+        if (Double.isNaN(ocupacaoAmostrada) || escritasDesdeAmostra > FRACAO_ESCRITAS_NOVA_AMOSTRA * chavesAmostradas) {
+            EstatisticasEstrutura estatisticas = coletarEstatisticas();
+            ocupacaoAmostrada = estatisticas.obterFatorOcupacaoMedio();
+            chavesAmostradas = estatisticas.obterQuantidadeChaves();
+            escritasDesdeAmostra = 0;
+        }
+        return ocupacaoAmostrada;
+    }
+
+    // Reconstrói o conteúdo na estrutura 'destino' e troca a árvore em uso. Leituras e escritas
+    // continuam durante a construção; só o instantâneo (sem escritas) e a troca (exclusiva) travam.
+    public synchronized void migrarPara(Estrutura destino) {
+        if (destino == estrutura) {
+            return;
+        }
+        List<String> valores = new ArrayList<>();
+        int[] chaves;
+        long carimbo = trava.readLock();
+        try {
+            chaves = atual.coletarEmOrdem(valores);
+            deltas = new TreeMap<>();
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+
+        IndiceOrdenado nova = construir(destino, chaves, valores.toArray(new String[0]));
+
+        carimbo = trava.writeLock();
+        try {
+            for (Map.Entry<Integer, String> delta : deltas.entrySet()) {
+                if (delta.getValue() == LAPIDE) {
+                    nova.removerItem(delta.getKey());
+                } else {
+                    nova.inserirItem(delta.getKey(), delta.getValue());
+                }
+            }
+            deltas = null;
+            atual = nova;
+            estrutura = destino;
+            ocupacaoAmostrada = Double.NaN;
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        migracoes.increment();
+    }
+
+    private IndiceOrdenado construir(Estrutura tipo, int[] chaves, String[] valores) {
+        if (tipo == Estrutura.BPLUS) {
+            ArvoreBPlus arvore = new ArvoreBPlus(ordem);
+            arvore.carregarOrdenados(chaves, valores, chaves.length, OCUPACAO_RECONSTRUCAO_BPLUS);
+            arvore.ativarLeitoresConcorrentes();
+            return arvore;
+        }
+        ArvoreBEstrelaCompleta arvore = new ArvoreBEstrelaCompleta(ordem);
+        arvore.carregarOrdenados(chaves, valores, chaves.length);
+        arvore.ativarLeitoresConcorrentes();
+        return arvore;
+    }
+
+    // Avalia a carga a cada 'periodo' numa thread própria, que também executa as migrações
+    public synchronized void iniciar(long periodo, TimeUnit unidade) {
+        if (agendador != null) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "avaliador-indice");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                avaliar();
+            } catch (RuntimeException e) {
+                // Uma migração que falhou deixa a árvore antiga em uso; tenta de novo na próxima janela
+                System.err.println("Erro ao avaliar o índice adaptativo: " + e.getMessage());
+            }
+        }, periodo, periodo, unidade);
+    }
+
+    // --- ESTATÍSTICAS ---
+
+    public Estrutura obterEstrutura() {
+        return estrutura;
+    }
+
+    public long obterMigracoes() {
+        return migracoes.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Índice adaptativo: %s, migrações: %d; última janela: %d buscas, %d escritas, %d varreduras",
+                estrutura == Estrutura.BPLUS ? "B+" : "B*", migracoes.sum(), ultimaJanela[0], ultimaJanela[1], ultimaJanela[2]);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService atualAgendador;
+        synchronized (this) {
+            atualAgendador = agendador;
+            agendador = null;
+        }
+        if (atualAgendador != null) {
+            atualAgendador.shutdown();
+            try {
+                atualAgendador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // --- DEMONSTRAÇÃO ---
+
+    // Uso: java IndiceAdaptativo [operacoesPorJanela]
+    // Carrega os produtos e simula as horas de sincronização em lote, de leitura e de relatórios,
+    // avaliando duas janelas por fase para mostrar as migrações.
+    public static void main(String[] args) {
+        int operacoes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<ItemProduto> itens = ArvoreBPlus.carregarItensDoArquivo("produtos_corrigido.txt");
+        Random aleatorio = new Random(42);
+        try (IndiceAdaptativo indice = new IndiceAdaptativo(32, Estrutura.BPLUS)) {
+            for (ItemProduto item : itens) {
+                indice.inserirItem(item.obterId(), item.obterInfoParaArvore());
+            }
+            int maiorId = 0;
+            for (ItemProduto item : itens) {
+                maiorId = Math.max(maiorId, item.obterId());
+            }
+            System.out.println("--- Índice adaptativo (" + itens.size() + " produtos) ---");
+            String[] fases = { "Sincronização em lote", "Horas de leitura", "Relatórios por intervalo" };
+            for (int fase = 0; fase < fases.length; fase++) {
+                long inicio = System.nanoTime();
+                for (int janela = 0; janela < JANELAS_PARA_MIGRAR; janela++) {
+                    for (int i = 0; i < operacoes; i++) {
+                        ItemProduto item = itens.get(aleatorio.nextInt(itens.size()));
+                        if (fase == 0 && i % 4 != 0) {
+                            indice.inserirItem(item.obterId(), item.obterInfoParaArvore());
+                        } else if (fase == 2 && i % 2 == 0) {
+                            indice.buscarIntervalo(item.obterId(), item.obterId() + maiorId / 100);
+                        } else {
+                            indice.buscarItem(item.obterId());
+                        }
+                    }
+                    indice.avaliar();
+                }
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                System.out.printf("%s: %.0f operações/s%n  %s%n  %s%n", fases[fase],
+                        JANELAS_PARA_MIGRAR * operacoes / segundos, indice, indice.coletarEstatisticas());
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+// IndiceCompactado.java
+// Índice somente leitura com chaves comprimidas, gerado a partir de uma árvore já carregada.
+// Cada nó guarda uma chave base e as diferenças para ela empacotadas em bits (frame of
+// reference); os separadores internos são truncados para o valor mais "redondo" que ainda
+// separa as folhas vizinhas. A busca decodifica as chaves direto dos bits, sem descompactar o nó.
+
+import java.util.ArrayList;
+import java.util.List;
+
+// --- BLOCO DE CHAVES COMPACTADAS ---
+
+// Sequência ordenada de chaves guardada como base + (chave - base) >>> deslocamento,
+// com 'bits' bits por chave. O deslocamento aproveita zeros finais comuns a todas as
+// diferenças, o que é frequente em separadores truncados.
+class BlocoChavesCompactadas {
+    private final int base;
+    private final int bits;
+    private final int deslocamento;
+    private final int quantidade;
+    private final long[] palavras;
+
+    public BlocoChavesCompactadas(int[] chaves, int inicio, int quantidade) {
+        this.quantidade = quantidade;
+        this.base = quantidade == 0 ? 0 : chaves[inicio];
+        long maiorDiferenca = 0;
+        long diferencasCombinadas = 0;
+        for (int i = 0; i < quantidade; i++) {
+            long diferenca = (long) chaves[inicio + i] - base;
+            maiorDiferenca = Math.max(maiorDiferenca, diferenca);
+            diferencasCombinadas |= diferenca;
+        }
+        this.deslocamento = diferencasCombinadas == 0 ? 0 : Long.numberOfTrailingZeros(diferencasCombinadas);
+        this.bits = 64 - Long.numberOfLeadingZeros(maiorDiferenca >>> deslocamento);
+        this.palavras = new long[(int) (((long) quantidade * bits + 63) / 64)];
+        for (int i = 0; i < quantidade; i++) {
+            gravar(i, ((long) chaves[inicio + i] - base) >>> deslocamento);
+        }
+    }
+
+    private void gravar(int indice, long valor) {
+        if (bits == 0) return;
+        long posicaoBit = (long) indice * bits;
+        int palavra = (int) (posicaoBit >>> 6);
+        int bit = (int) (posicaoBit & 63);
+        palavras[palavra] |= valor << bit;
+        if (bit + bits > 64) {
+            palavras[palavra + 1] |= valor >>> (64 - bit);
+        }
+    }
+
+    public int obter(int indice) {
+        if (bits == 0) return base;
+        long posicaoBit = (long) indice * bits;
+        int palavra = (int) (posicaoBit >>> 6);
+        int bit = (int) (posicaoBit & 63);
+        long valor = palavras[palavra] >>> bit;
+        if (bit + bits > 64) {
+            valor |= palavras[palavra + 1] << (64 - bit);
+        }
+        long mascara = bits == 64 ? -1L : (1L << bits) - 1;
+        return (int) (base + ((valor & mascara) << deslocamento));
+    }
+
+    public int tamanho() {
+        return quantidade;
+    }
+
+    // Posição da chave, ou -(ponto de inserção) - 1 se ela não existe
+    public int buscarPosicao(int chave) {
+        int inicio = 0;
+        int fim = quantidade - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            int atual = obter(meio);
+            if (atual < chave) {
+                inicio = meio + 1;
+            } else if (atual > chave) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(inicio + 1);
+    }
+
+    // Quantidade de chaves menores ou iguais à informada (índice do descendente a seguir)
+    public int contarMenoresOuIguais(int chave) {
+        int posicao = buscarPosicao(chave);
+        return posicao >= 0 ? posicao + 1 : -(posicao + 1);
+    }
+
+    public long estimarBytes() {
+        return 16 + 16 + 16 + 8L * palavras.length;
+    }
+}
+
+// --- ÍNDICE COMPACTADO ---
+
+public class IndiceCompactado {
+    private final BlocoChavesCompactadas[] folhas;
+    private final String[][] valores;
+    private final BlocoChavesCompactadas[][] niveis; // niveis[0] é a raiz; os filhos do nó k são k*fanout..
+    private final int chavesPorFolha;
+    private final int fanout;
+    private final int quantidadeChaves;
+
+    // 'chaves' deve estar em ordem crescente e sem repetições
+    public IndiceCompactado(int[] chaves, String[] valoresOrdenados, int quantidade, int chavesPorFolha, int fanout) {
+        if (chavesPorFolha < 1 || fanout < 2) {
+            throw new IllegalArgumentException("chavesPorFolha deve ser >= 1 e fanout >= 2");
+        }
+        this.chavesPorFolha = chavesPorFolha;
+        this.fanout = fanout;
+        this.quantidadeChaves = quantidade;
+
+        int quantidadeFolhas = Math.max(1, (quantidade + chavesPorFolha - 1) / chavesPorFolha);
+        folhas = new BlocoChavesCompactadas[quantidadeFolhas];
+        valores = new String[quantidadeFolhas][];
+        int[] separadores = new int[quantidadeFolhas - 1];
+        for (int f = 0; f < quantidadeFolhas; f++) {
+            int inicio = f * chavesPorFolha;
+            int tamanho = Math.min(chavesPorFolha, quantidade - inicio);
+            folhas[f] = new BlocoChavesCompactadas(chaves, inicio, Math.max(0, tamanho));
+            valores[f] = new String[Math.max(0, tamanho)];
+            System.arraycopy(valoresOrdenados, inicio, valores[f], 0, Math.max(0, tamanho));
+            if (f > 0) {
+                separadores[f - 1] = separadorMaisCurto(chaves[inicio - 1], chaves[inicio]);
+            }
+        }
+
+        // Monta os níveis internos de baixo para cima; cada nó tem até 'fanout' descendentes
+        List<BlocoChavesCompactadas[]> niveisDeBaixoParaCima = new ArrayList<>();
+        int nosNoNivel = quantidadeFolhas;
+        int[] separadoresDoNivel = separadores;
+        while (nosNoNivel > 1) {
+            int nosAcima = (nosNoNivel + fanout - 1) / fanout;
+            BlocoChavesCompactadas[] nivel = new BlocoChavesCompactadas[nosAcima];
+            int[] separadoresAcima = new int[nosAcima - 1];
+            for (int k = 0; k < nosAcima; k++) {
+                int primeiroFilho = k * fanout;
+                int filhos = Math.min(fanout, nosNoNivel - primeiroFilho);
+                // Separadores entre os filhos deste nó; o que fica antes do primeiro filho sobe um nível
+                nivel[k] = new BlocoChavesCompactadas(separadoresDoNivel, primeiroFilho, filhos - 1);
+                if (k > 0) {
+                    separadoresAcima[k - 1] = separadoresDoNivel[primeiroFilho - 1];
+                }
+            }
+            niveisDeBaixoParaCima.add(nivel);
+            nosNoNivel = nosAcima;
+            separadoresDoNivel = separadoresAcima;
+        }
+        niveis = new BlocoChavesCompactadas[niveisDeBaixoParaCima.size()][];
+        for (int i = 0; i < niveis.length; i++) {
+            niveis[i] = niveisDeBaixoParaCima.get(niveis.length - 1 - i);
+        }
+    }
+
+    // Valor em (anterior, proxima] com mais zeros finais: separa as duas folhas e comprime melhor
+    static int separadorMaisCurto(int anterior, int proxima) {
+        for (int zeros = 31; zeros > 0; zeros--) {
+            int candidato = proxima & (-1 << zeros);
+            if (candidato > anterior) {
+                return candidato;
+            }
+        }
+        return proxima;
+    }
+
+    private int encontrarFolha(int chave) {
+        int no = 0;
+        for (BlocoChavesCompactadas[] nivel : niveis) {
+            no = no * fanout + nivel[no].contarMenoresOuIguais(chave);
+        }
+        return no;
+    }
+
+    public String buscarItem(int chave) {
+        int folha = encontrarFolha(chave);
+        int posicao = folhas[folha].buscarPosicao(chave);
+        return posicao >= 0 ? valores[folha][posicao] : null;
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        List<String> resultados = new ArrayList<>();
+        int folha = encontrarFolha(chaveInicio);
+        int posicao = folhas[folha].buscarPosicao(chaveInicio);
+        if (posicao < 0) posicao = -(posicao + 1);
+        for (; folha < folhas.length; folha++, posicao = 0) {
+            BlocoChavesCompactadas chavesFolha = folhas[folha];
+            for (; posicao < chavesFolha.tamanho(); posicao++) {
+                if (chavesFolha.obter(posicao) > chaveFim) {
+                    return resultados;
+                }
+                resultados.add(valores[folha][posicao]);
+            }
+        }
+        return resultados;
+    }
+
+    public int obterAltura() {
+        return niveis.length + 1;
+    }
+
+    public int obterQuantidadeChaves() {
+        return quantidadeChaves;
+    }
+
+    public int obterChavesPorFolha() {
+        return chavesPorFolha;
+    }
+
+    // Memória estimada só das chaves e separadores (os valores são compartilhados com a árvore de origem)
+    public long estimarBytesChaves() {
+        long bytes = 0;
+        for (BlocoChavesCompactadas folha : folhas) {
+            bytes += folha.estimarBytes();
+        }
+        for (BlocoChavesCompactadas[] nivel : niveis) {
+            for (BlocoChavesCompactadas no : nivel) {
+                bytes += no.estimarBytes();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,28 @@
+// IndiceOrdenado.java
+// Operações comuns às árvores do catálogo (ArvoreBPlus e ArvoreBEstrelaCompleta), para que quem
+// só insere, busca e percorre intervalos não dependa da estrutura escolhida.
+
+import java.util.List;
+
+public interface IndiceOrdenado {
+    // Insere ou, se a chave já existe, substitui o valor (upsert): nunca há chave repetida
+    void inserirItem(int chave, String valor);
+
+    // Substitui o valor só se a chave existe, sem inseri-la; devolve se ela existia. Numa única
+    // operação: quem lê ao mesmo tempo vê o valor antigo ou o novo, nunca a chave ausente.
+    boolean atualizarItem(int chave, String valor);
+
+    String buscarItem(int chave);
+
+    boolean removerItem(int chave);
+
+    // Valores das chaves em [chaveInicio, chaveFim], em ordem de chave
+    List<String> buscarIntervalo(int chaveInicio, int chaveFim);
+
+    boolean existeNoIntervalo(int chaveInicio, int chaveFim);
+
+    // Todas as chaves em ordem; os valores correspondentes são acrescentados a 'valores'
+    int[] coletarEmOrdem(List<String> valores);
+
+    EstatisticasEstrutura coletarEstatisticas();
+}
@@ -0,0 +1,352 @@
+// IndiceReplicado.java
+// Índice replicado por domínio de memória, no estilo da replicação de nós (node replication): há
+// uma cópia completa da ArvoreBPlus por grupo de threads e cada thread lê só a réplica do seu
+// grupo, sem trava, pelo modo de leitores concorrentes da árvore. As escritas entram num log de
+// operações circular e ordenado, e as demais réplicas reaplicam o log na mesma ordem antes da
+// próxima leitura do seu grupo. Assim todas passam pelos mesmos estados, e uma leitura vê pelo
+// menos todas as escritas terminadas antes dela.
+//
+// As escritas de um grupo são combinadas (flat combining): cada thread deixa seu pedido na fila da
+// réplica e disputa o combinador dela. Quem o pega aplica de uma vez os pedidos enfileirados até
+// então, os seus e os dos outros threads do grupo, reservando as posições do log numa só passagem
+// pela trava do log; os demais encontram o pedido já atendido quando o combinador fica livre.
+// Ordem das travas: primeiro o combinador, depois a do log. Quem espera a trava do log continua
+// alcançando a própria réplica, e quem a tem só tenta (tryLock) os combinadores das outras: se o log
+// encher, alcança as réplicas atrasadas, ou espera que o próprio combinador delas as alcance, antes
+// de sobrescrever a posição.
+//
+// A JVM não fixa threads nem memória num nó NUMA. A localidade vem de cada réplica ser construída
+// (carregar) e atualizada pelos threads do próprio grupo: com -XX:+UseNUMA os nós ficam na memória
+// do nó que os alocou. Prenda os threads aos nós com taskset/numactl e chame fixarGrupo de acordo;
+// sem isso os threads são distribuídos entre os grupos em rodízio.
+//
+// Inserir uma chave existente substitui o valor no lugar, como em todo IndiceOrdenado.
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class IndiceReplicado implements IndiceOrdenado {
+    private static final byte INSERCAO = 0;
+    private static final byte REMOCAO = 1;
+    private static final byte ATUALIZACAO = 2;
+    private static final double OCUPACAO_CARGA = 0.7; // Deixa espaço nas folhas para as escritas
+    private static final int MAXIMO_LOTE = 256; // Pedidos aplicados por um combinador de uma só vez
+
+    // Escrita pendente de um thread; cada thread reaproveita o seu, pois só tem uma de cada vez
+    private static final class Pedido {
+        byte tipo;
+        int chave;
+        String valor;
+        boolean resultado;      // Escrito pelo combinador antes de 'pronto'
+        volatile boolean pronto;
+    }
+
+    // Uma cópia da árvore e quanto do log ela já aplicou
+    private static final class Replica {
+        final ArvoreBPlus arvore;
+        final ReentrantLock combinador = new ReentrantLock();
+        final ConcurrentLinkedQueue<Pedido> pendentes = new ConcurrentLinkedQueue<>();
+        volatile long aplicadas; // Posições do log [0, aplicadas) já estão na árvore
+        final LongAdder lotes = new LongAdder();        // Passagens de um combinador pela trava do log
+        final LongAdder combinadas = new LongAdder();   // Escritas aplicadas nessas passagens
+        final LongAdder sincronizacoes = new LongAdder(); // Vezes que um leitor do grupo alcançou o log
+        final LongAdder ajudas = new LongAdder();         // Vezes que um escritor de outro grupo a alcançou
+
+        Replica(int ordem) {
+            arvore = new ArvoreBPlus(ordem);
+            arvore.ativarLeitoresConcorrentes();
+        }
+    }
+
+    private final Replica[] replicas;
+    private final ThreadLocal<Replica> local;
+    private final ThreadLocal<Pedido> pedidoLocal = ThreadLocal.withInitial(Pedido::new);
+    private final AtomicInteger proximoGrupo = new AtomicInteger();
+
+    // Log circular: a operação da posição p fica em p & mascara
+    private final byte[] tipos;
+    private final int[] chaves;
+    private final String[] valores;
+    private final int mascara;
+    private final ReentrantLock travaLog = new ReentrantLock();
+    private volatile long cauda; // Posições [0, cauda) publicadas
+
+    // 'capacidadeLog' é arredondada para a próxima potência de 2
+    public IndiceReplicado(int ordem, int quantidadeReplicas, int capacidadeLog) {
+        if (quantidadeReplicas < 1) {
+            throw new IllegalArgumentException("Quantidade de réplicas inválida: " + quantidadeReplicas);
+        }
+        replicas = new Replica[quantidadeReplicas];
+        for (int i = 0; i < quantidadeReplicas; i++) {
+            replicas[i] = new Replica(ordem);
+        }
+        local = ThreadLocal.withInitial(() -> replicas[Math.floorMod(proximoGrupo.getAndIncrement(), replicas.length)]);
+        int capacidade = Integer.highestOneBit(Math.max(1, capacidadeLog - 1)) << 1;
+        tipos = new byte[capacidade];
+        chaves = new int[capacidade];
+        valores = new String[capacidade];
+        mascara = capacidade - 1;
+    }
+
+    public IndiceReplicado(int ordem, int quantidadeReplicas) {
+        this(ordem, quantidadeReplicas, 1 << 12);
+    }
+
+    // Nós NUMA que o Linux expõe em /sys; 1 quando não dá para saber
+    public static int contarDominiosMemoria() {
+        String[] nos = new File("/sys/devices/system/node").list((pasta, nome) -> nome.matches("node\\d+"));
+        return nos == null || nos.length == 0 ? 1 : nos.length;
+    }
+
+    // Associa o thread atual à réplica do grupo (0 a obterQuantidadeReplicas() - 1)
+    public void fixarGrupo(int grupo) {
+        local.set(replicas[Math.floorMod(grupo, replicas.length)]);
+    }
+
+    public int obterQuantidadeReplicas() {
+        return replicas.length;
+    }
+
+    // --- OPERAÇÕES ---
+
+    public void inserirItem(int chave, String valor) {
+        escrever(INSERCAO, chave, valor);
+    }
+
+    public boolean atualizarItem(int chave, String valor) {
+        return escrever(ATUALIZACAO, chave, valor);
+    }
+
+    public boolean removerItem(int chave) {
+        return escrever(REMOCAO, chave, null);
+    }
+
+    public String buscarItem(int chave) {
+        return atualizada().arvore.buscarItem(chave);
+    }
+
+    public List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+        return atualizada().arvore.buscarIntervalo(chaveInicio, chaveFim);
+    }
+
+    public boolean existeNoIntervalo(int chaveInicio, int chaveFim) {
+        return atualizada().arvore.existeNoIntervalo(chaveInicio, chaveFim);
+    }
+
+    public boolean visitarItem(int chave, VisaoItem visao, VisaoItem.Visitante visitante) {
+        return atualizada().arvore.visitarItem(chave, visao, visitante);
+    }
+
+    public int visitarIntervalo(int chaveInicio, int chaveFim, VisaoItem visao, VisaoItem.Visitante visitante) {
+        return atualizada().arvore.visitarIntervalo(chaveInicio, chaveFim, visao, visitante);
+    }
+
+    // Percorrem a árvore inteira sem conferir versões, então excluem o escritor da réplica
+    public int[] coletarEmOrdem(List<String> valores) {
+        Replica replica = local.get();
+        replica.combinador.lock();
+        try {
+            sincronizar(replica);
+            return replica.arvore.coletarEmOrdem(valores);
+        } finally {
+            replica.combinador.unlock();
+        }
+    }
+
+    public EstatisticasEstrutura coletarEstatisticas() {
+        Replica replica = local.get();
+        replica.combinador.lock();
+        try {
+            sincronizar(replica);
+            return replica.arvore.coletarEstatisticas();
+        } finally {
+            replica.combinador.unlock();
+        }
+    }
+
+    // Substitui o conteúdo por chaves já ordenadas. Cada réplica é construída por um thread próprio,
+    // o primeiro a tocar os nós dela, para que fiquem na memória de quem vai usá-la.
+    public void carregar(int[] chavesOrdenadas, String[] valoresOrdenados, int quantidade) {
+        for (Replica replica : replicas) {
+            replica.combinador.lock();
+        }
+        try {
+            travarLog(replicas);
+            try {
+                List<Thread> construtores = new ArrayList<>();
+                for (int i = 0; i < replicas.length; i++) {
+                    Replica replica = replicas[i];
+                    Thread thread = new Thread(() -> {
+                        replica.arvore.carregarOrdenados(chavesOrdenadas, valoresOrdenados, quantidade, OCUPACAO_CARGA);
+                        replica.aplicadas = cauda; // A carga substitui tudo o que o log já tinha
+                    }, "replica-" + i);
+                    construtores.add(thread);
+                    thread.start();
+                }
+                for (Thread thread : construtores) {
+                    thread.join();
+                }
+            } finally {
+                travaLog.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Carga das réplicas interrompida", e);
+        } finally {
+            for (Replica replica : replicas) {
+                replica.combinador.unlock();
+            }
+        }
+    }
+
+    // --- LOG DE OPERAÇÕES ---
+
+    // Deixa a operação na fila da réplica local e espera que um combinador, este thread ou outro do
+    // grupo, a acrescente ao log e a aplique; devolve o resultado dela
+    private boolean escrever(byte tipo, int chave, String valor) {
+        Replica replica = local.get();
+        Pedido pedido = pedidoLocal.get();
+        pedido.tipo = tipo;
+        pedido.chave = chave;
+        pedido.valor = valor;
+        pedido.pronto = false;
+        replica.pendentes.add(pedido);
+        while (!pedido.pronto) {
+            replica.combinador.lock();
+            try {
+                if (!pedido.pronto) {
+                    combinar(replica);
+                }
+            } finally {
+                replica.combinador.unlock();
+            }
+        }
+        pedido.valor = null;
+        return pedido.resultado;
+    }
+
+    // Só com o combinador da réplica: aplica um lote de pedidos da fila e os publica no log
+    private void combinar(Replica replica) {
+        travarLog(replica);
+        int lote = 0;
+        try {
+            sincronizar(replica);
+            Pedido pedido;
+            while (lote < MAXIMO_LOTE && (pedido = replica.pendentes.poll()) != null) {
+                long posicao = cauda;
+                garantirEspaco(posicao);
+                pedido.resultado = aplicar(replica.arvore, pedido.tipo, pedido.chave, pedido.valor);
+                int indice = (int) posicao & mascara;
+                tipos[indice] = pedido.tipo;
+                chaves[indice] = pedido.chave;
+                valores[indice] = pedido.valor;
+                replica.aplicadas = posicao + 1;
+                cauda = posicao + 1; // Publica a posição para as outras réplicas
+                pedido.pronto = true;
+                lote++;
+            }
+        } finally {
+            travaLog.unlock();
+        }
+        replica.lotes.increment();
+        replica.combinadas.add(lote);
+    }
+
+    // Só com os combinadores das réplicas: enquanto outro combinador tem a trava do log, elas
+    // continuam alcançando o que ele publica, pois ele pode estar esperando por elas
+    private void travarLog(Replica... minhas) {
+        while (!travaLog.tryLock()) {
+            for (Replica replica : minhas) {
+                sincronizar(replica);
+            }
+            Thread.yield();
+        }
+    }
+
+    // A posição vai sobrescrever a de 'posicao - capacidade': toda réplica precisa já tê-la aplicado.
+    // Um combinador ocupado com a réplica atrasada a alcança sozinho enquanto espera a trava do log.
+    private void garantirEspaco(long posicao) {
+        long sobrescrita = posicao - (mascara + 1);
+        for (Replica outra : replicas) {
+            while (outra.aplicadas <= sobrescrita) {
+                if (outra.combinador.tryLock()) {
+                    try {
+                        if (outra.aplicadas <= sobrescrita) {
+                            sincronizar(outra);
+                            outra.ajudas.increment();
+                        }
+                    } finally {
+                        outra.combinador.unlock();
+                    }
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    // A réplica local, depois de aplicar tudo o que foi publicado até agora
+    private Replica atualizada() {
+        Replica replica = local.get();
+        if (replica.aplicadas < cauda) {
+            replica.combinador.lock();
+            try {
+                if (replica.aplicadas < cauda) {
+                    sincronizar(replica);
+                    replica.sincronizacoes.increment();
+                }
+            } finally {
+                replica.combinador.unlock();
+            }
+        }
+        return replica;
+    }
+
+    // Só com o combinador da réplica: aplica as posições publicadas que faltam
+    private void sincronizar(Replica replica) {
+        long fim = cauda;
+        for (long posicao = replica.aplicadas; posicao < fim; posicao++) {
+            int indice = (int) posicao & mascara;
+            aplicar(replica.arvore, tipos[indice], chaves[indice], valores[indice]);
+            replica.aplicadas = posicao + 1;
+        }
+    }
+
+    // Cada operação é uma única escrita na árvore: uma chave substituída nunca some para os leitores
+    private static boolean aplicar(ArvoreBPlus arvore, byte tipo, int chave, String valor) {
+        switch (tipo) {
+            case INSERCAO:
+                arvore.inserirItem(chave, valor);
+                return true;
+            case ATUALIZACAO:
+                return arvore.atualizarItem(chave, valor);
+            default:
+                return arvore.removerItem(chave);
+        }
+    }
+
+    // --- ESTATÍSTICAS ---
+
+    public long obterPosicoesLog() {
+        return cauda;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("Índice replicado: %d réplicas, log de %d posições, %d escritas",
+                replicas.length, mascara + 1, cauda));
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[i];
+            long lotes = replica.lotes.sum();
+            sb.append(String.format("%n  réplica %d: %d aplicadas, %d lotes (%.1f escritas por lote), %d sincronizações por leitores, %d ajudas de escritores",
+                    i, replica.aplicadas, lotes, lotes == 0 ? 0.0 : (double) replica.combinadas.sum() / lotes,
+                    replica.sincronizacoes.sum(), replica.ajudas.sum()));
+        }
+        return sb.toString();
+    }
+}
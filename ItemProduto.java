@@ -0,0 +1,50 @@
+// ItemProduto.java
+// Modelo de dados do catálogo: um produto com ID, nome e categoria, compartilhado pelas duas
+// árvores e pelas classes que carregam ou sincronizam o arquivo de produtos.
+
+public class ItemProduto {
+    private int idItem;
+    private String nomeItem;
+    private String categoriaItem;
+
+    public ItemProduto(int idItem, String nomeItem, String categoriaItem) {
+        this.idItem = idItem;
+        this.nomeItem = nomeItem;
+        this.categoriaItem = categoriaItem;
+    }
+
+    public int obterId() {
+        return idItem;
+    }
+
+    public String obterNome() {
+        return nomeItem;
+    }
+
+    public String obterCategoria() {
+        return categoriaItem;
+    }
+
+    @Override
+    public String toString() {
+        return "ID: " + idItem + ", Nome: " + nomeItem + ", Categoria: " + categoriaItem;
+    }
+
+    // Formata a informação do produto para ser armazenada como valor na árvore
+    public String obterInfoParaArvore() {
+        return nomeItem + ", " + categoriaItem;
+    }
+
+    // Lê uma linha "id,nome,categoria" do arquivo de produtos. O nome pode ter vírgulas: o id vai
+    // até a primeira e a categoria começa depois da última. Devolve null se faltar algum campo.
+    static ItemProduto interpretarLinha(String linha) {
+        int primeiraVirgula = linha.indexOf(',');
+        int ultimaVirgula = linha.lastIndexOf(',');
+        if (primeiraVirgula < 0 || ultimaVirgula == primeiraVirgula) {
+            return null;
+        }
+        int id = Integer.parseInt(linha.substring(0, primeiraVirgula).trim());
+        return new ItemProduto(id, linha.substring(primeiraVirgula + 1, ultimaVirgula).trim(),
+                linha.substring(ultimaVirgula + 1).trim());
+    }
+}
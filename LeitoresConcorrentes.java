@@ -0,0 +1,109 @@
+// LeitoresConcorrentes.java
+// Modo de um escritor e vários leitores das árvores do catálogo. Cada nó tem um contador de
+// sequência que o escritor deixa ímpar enquanto o altera; o leitor não trava nada nem faz CAS:
+// guarda a versão do nó antes de lê-lo, confere depois que ela não mudou e, se mudou, descarta o
+// que leu e recomeça. Para não perder chaves que uma divisão ou fusão move de nó, o leitor lê a
+// versão do descendente antes de conferir a do pai, e o escritor marca o pai sempre que tira
+// chaves de um nó; as marcas só são desfeitas ao fim da operação inteira.
+//
+// A classe pública mede o modo: o thread que chama escreve sem parar enquanto os leitores buscam
+// e percorrem intervalos, conferindo cada resposta com o conteúdo esperado.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LeitoresConcorrentes {
+    private static final int TAMANHO_INTERVALO = 64; // Chaves estáveis por busca de intervalo
+    private static final int BUSCAS_POR_INTERVALO = 32; // Um intervalo a cada tantas buscas
+
+    private LeitoresConcorrentes() {
+    }
+
+    // Carrega 'chaves' chaves pares, que nunca mudam, e mede de 1 até 'leitores' leitores (dobrando)
+    // por 'milissegundos' cada, enquanto quem chama insere e remove chaves ímpares entre elas.
+    // O índice já deve estar com o modo de leitores concorrentes ativado.
+    public static void medir(IndiceOrdenado indice, int chaves, int leitores, long milissegundos)
+            throws InterruptedException {
+        for (int i = 0; i < chaves; i++) {
+            indice.inserirItem(2 * i, CargaTrabalho.valorPara(2 * i));
+        }
+        boolean[] impares = new boolean[chaves]; // Chaves ímpares presentes agora
+        SplittableRandom aleatorio = new SplittableRandom(chaves);
+        for (int quantidade = 1; ; quantidade = Math.min(2 * quantidade, leitores)) {
+            LongAdder leituras = new LongAdder();
+            LongAdder divergencias = new LongAdder();
+            long escritas = 0;
+            long fim = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milissegundos);
+            CountDownLatch prontos = new CountDownLatch(quantidade);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < quantidade; t++) {
+                long semente = 31L * quantidade + t;
+                Thread leitor = new Thread(() -> ler(indice, chaves, semente, fim, prontos, leituras, divergencias),
+                        "leitor-" + t);
+                leitor.setDaemon(true);
+                threads.add(leitor);
+                leitor.start();
+            }
+            prontos.await();
+            long inicio = System.nanoTime();
+            while (System.nanoTime() < fim) {
+                int posicao = aleatorio.nextInt(chaves);
+                int chave = 2 * posicao + 1;
+                if (impares[posicao]) {
+                    indice.removerItem(chave);
+                } else {
+                    indice.inserirItem(chave, CargaTrabalho.valorPara(chave));
+                }
+                impares[posicao] = !impares[posicao];
+                escritas++;
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.printf("Leitores: %d, leituras/s: %,.0f, escritas/s: %,.0f, divergências: %d%n", quantidade,
+                    leituras.sum() / segundos, escritas / segundos, divergencias.sum());
+            if (quantidade >= leitores) {
+                break;
+            }
+        }
+    }
+
+    // Busca chaves pares, que devem sempre estar lá com o valor original, e de tempos em tempos
+    // percorre um intervalo, que deve conter todas as chaves pares dele em ordem
+    private static void ler(IndiceOrdenado indice, int chaves, long semente, long fim, CountDownLatch prontos,
+                            LongAdder leituras, LongAdder divergencias) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        prontos.countDown();
+        long feitas = 0;
+        while (System.nanoTime() < fim) {
+            int chave = 2 * aleatorio.nextInt(chaves);
+            if (feitas % BUSCAS_POR_INTERVALO == 0) {
+                int ultima = Math.min(chave + 2 * (TAMANHO_INTERVALO - 1), 2 * (chaves - 1));
+                if (!contemParesEmOrdem(indice.buscarIntervalo(chave, ultima), chave, ultima)) {
+                    divergencias.increment();
+                }
+            } else if (!CargaTrabalho.valorPara(chave).equals(indice.buscarItem(chave))) {
+                divergencias.increment();
+            }
+            feitas++;
+        }
+        leituras.add(feitas);
+    }
+
+    // Os valores das chaves pares de [primeira, ultima] aparecem em ordem; os das ímpares, que o
+    // escritor está mexendo, podem aparecer ou não entre eles
+    private static boolean contemParesEmOrdem(List<String> valores, int primeira, int ultima) {
+        int esperada = primeira;
+        for (String valor : valores) {
+            if (esperada <= ultima && valor.equals(CargaTrabalho.valorPara(esperada))) {
+                esperada += 2;
+            }
+        }
+        return esperada > ultima;
+    }
+}
@@ -0,0 +1,94 @@
+// LoteColunar.java
+// Lote de linhas em formato de colunas, produzido pela VarreduraColunar: os IDs num int[], as
+// categorias como códigos do dicionário e os nomes concatenados num único char[] com os
+// deslocamentos de início de cada um. O mesmo lote é reaproveitado a cada chamada do
+// consumidor, então os vetores só valem até a próxima e só até obterQuantidade().
+
+import java.util.Arrays;
+
+public class LoteColunar {
+    final int[] ids;
+    final int[] categorias;
+    final int[] inicioNome; // Nome i ocupa nomes[inicioNome[i], inicioNome[i + 1])
+    char[] nomes;
+    int quantidade;
+    private final boolean comNomes;
+    private final DicionarioCategorias dicionario;
+
+    LoteColunar(int capacidade, boolean comNomes, DicionarioCategorias dicionario) {
+        this.ids = new int[capacidade];
+        this.categorias = new int[capacidade];
+        this.inicioNome = new int[capacidade + 1];
+        this.nomes = new char[comNomes ? capacidade * 16 : 0];
+        this.comNomes = comNomes;
+        this.dicionario = dicionario;
+    }
+
+    // Separa o valor "nome, categoria" (ItemProduto.obterInfoParaArvore) sem criar substrings
+    void adicionar(int id, String valor) {
+        int separador = valor.lastIndexOf(", ");
+        int fimNome = separador >= 0 ? separador : valor.length();
+        int inicioCategoria = separador >= 0 ? separador + 2 : valor.length();
+        ids[quantidade] = id;
+        categorias[quantidade] = dicionario.codificar(valor, inicioCategoria, valor.length());
+        if (comNomes) {
+            int fimNomes = inicioNome[quantidade];
+            garantirEspacoNomes(fimNomes + fimNome);
+            valor.getChars(0, fimNome, nomes, fimNomes);
+            inicioNome[quantidade + 1] = fimNomes + fimNome;
+        }
+        quantidade++;
+    }
+
+    void garantirEspacoNomes(int tamanho) {
+        if (tamanho > nomes.length) {
+            nomes = Arrays.copyOf(nomes, Math.max(tamanho, nomes.length * 2));
+        }
+    }
+
+    boolean estaCheio() {
+        return quantidade == ids.length;
+    }
+
+    void limpar() {
+        quantidade = 0;
+    }
+
+    public int obterQuantidade() {
+        return quantidade;
+    }
+
+    public int[] obterIds() {
+        return ids;
+    }
+
+    // Códigos de categoria; o texto está em obterDicionario()
+    public int[] obterCategorias() {
+        return categorias;
+    }
+
+    public DicionarioCategorias obterDicionario() {
+        return dicionario;
+    }
+
+    public boolean temNomes() {
+        return comNomes;
+    }
+
+    public char[] obterNomes() {
+        return nomes;
+    }
+
+    public int obterInicioNome(int linha) {
+        return inicioNome[linha];
+    }
+
+    public int obterFimNome(int linha) {
+        return inicioNome[linha + 1];
+    }
+
+    // Conveniência para relatórios; cria uma String, ao contrário dos demais acessos
+    public String obterNome(int linha) {
+        return new String(nomes, inicioNome[linha], inicioNome[linha + 1] - inicioNome[linha]);
+    }
+}
@@ -0,0 +1,286 @@
+// MetricasArvore.java
+// Contadores e histogramas de execução compartilhados pelas árvores B+ e B*.
+// A árvore só mantém uma instância quando as métricas são ativadas; desativadas,
+// o custo em cada operação se resume a uma comparação com null.
+// As estatísticas estruturais percorrem a árvore, que não admite leitura concorrente com o
+// escritor: o próprio escritor as coleta, no início de uma escrita (árvore estável) e no máximo
+// uma vez por VALIDADE_ESTRUTURA_NANOS, e as publica num campo volátil lido pelos threads do JMX.
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricasArvore implements MetricasArvoreMBean {
+
+    // Fornece as estatísticas estruturais da árvore; só chamada do thread escritor
+    public interface FonteEstrutura {
+        EstatisticasEstrutura coletar();
+    }
+
+    private static final long VALIDADE_ESTRUTURA_NANOS = TimeUnit.SECONDS.toNanos(1); // Atraso máximo enquanto há escritas
+
+    private final FonteEstrutura fonteEstrutura;
+    private volatile EstatisticasEstrutura estrutura; // Última coleta publicada pelo escritor
+    private long instanteEstrutura; // Só o escritor
+
+    private final LongAdder buscas = new LongAdder();
+    private final LongAdder insercoes = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+    private final LongAdder divisoes = new LongAdder();
+    private final LongAdder redistribuicoes = new LongAdder();
+    private final LongAdder redistribuicoesSemSucesso = new LongAdder(); // Tentativas que caíram em divisão
+    private final LongAdder fusoes = new LongAdder();
+
+    // Nós visitados por operação, em faixas de potências de 2
+    private final HistogramaPotencias visitasBusca = new HistogramaPotencias();
+    private final HistogramaPotencias visitasInsercao = new HistogramaPotencias();
+    private final HistogramaPotencias visitasRemocao = new HistogramaPotencias();
+
+    // Criada pelo thread escritor, que faz a primeira coleta
+    public MetricasArvore(FonteEstrutura fonteEstrutura) {
+        this.fonteEstrutura = fonteEstrutura;
+        publicarEstrutura();
+    }
+
+    public void registrarBusca(int nosVisitados) {
+        buscas.increment();
+        visitasBusca.registrar(nosVisitados);
+    }
+
+    // Inserções e remoções são registradas pelo escritor antes de alterar a árvore
+    public void registrarInsercao(int nosVisitados) {
+        insercoes.increment();
+        visitasInsercao.registrar(nosVisitados);
+        publicarEstruturaSeVencida();
+    }
+
+    public void registrarRemocao(int nosVisitados) {
+        remocoes.increment();
+        visitasRemocao.registrar(nosVisitados);
+        publicarEstruturaSeVencida();
+    }
+
+    // Só do thread escritor, fora de uma escrita: coleta e publica as estatísticas estruturais.
+    // Chame depois de um lote de escritas para que o JMX veja o estado final sem esperar a próxima.
+    public void publicarEstrutura() {
+        estrutura = fonteEstrutura.coletar();
+        instanteEstrutura = System.nanoTime();
+    }
+
+    private void publicarEstruturaSeVencida() {
+        if (System.nanoTime() - instanteEstrutura > VALIDADE_ESTRUTURA_NANOS) {
+            publicarEstrutura();
+        }
+    }
+
+    public void registrarDivisao() {
+        divisoes.increment();
+    }
+
+    public void registrarRedistribuicao() {
+        redistribuicoes.increment();
+    }
+
+    public void registrarRedistribuicaoSemSucesso() {
+        redistribuicoesSemSucesso.increment();
+    }
+
+    public void registrarFusao() {
+        fusoes.increment();
+    }
+
+    // Registra estas métricas no servidor de MBeans da plataforma, sob o domínio "arvoreB"
+    public ObjectName registrarJmx(String nomeArvore) throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nome = new ObjectName("arvoreB:type=MetricasArvore,name=" + ObjectName.quote(nomeArvore));
+        if (servidor.isRegistered(nome)) {
+            servidor.unregisterMBean(nome);
+        }
+        servidor.registerMBean(this, nome);
+        return nome;
+    }
+
+    @Override
+    public long getBuscas() {
+        return buscas.sum();
+    }
+
+    @Override
+    public long getInsercoes() {
+        return insercoes.sum();
+    }
+
+    @Override
+    public long getRemocoes() {
+        return remocoes.sum();
+    }
+
+    @Override
+    public long getDivisoes() {
+        return divisoes.sum();
+    }
+
+    @Override
+    public long getRedistribuicoes() {
+        return redistribuicoes.sum();
+    }
+
+    @Override
+    public long getRedistribuicoesSemSucesso() {
+        return redistribuicoesSemSucesso.sum();
+    }
+
+    @Override
+    public long getFusoes() {
+        return fusoes.sum();
+    }
+
+    // Os atributos estruturais leem a última coleta publicada e nunca percorrem a árvore
+    @Override
+    public int getAltura() {
+        return estrutura.obterAltura();
+    }
+
+    @Override
+    public long getQuantidadeNos() {
+        return estrutura.obterQuantidadeNos();
+    }
+
+    @Override
+    public double getFatorOcupacaoMedio() {
+        return estrutura.obterFatorOcupacaoMedio();
+    }
+
+    @Override
+    public long getBytesEstimados() {
+        return estrutura.obterBytesEstimados();
+    }
+
+    @Override
+    public String getHistogramaVisitasBusca() {
+        return visitasBusca.toString();
+    }
+
+    @Override
+    public String getHistogramaVisitasInsercao() {
+        return visitasInsercao.toString();
+    }
+
+    @Override
+    public String getHistogramaVisitasRemocao() {
+        return visitasRemocao.toString();
+    }
+
+    @Override
+    public void zerar() {
+        buscas.reset();
+        insercoes.reset();
+        remocoes.reset();
+        divisoes.reset();
+        redistribuicoes.reset();
+        redistribuicoesSemSucesso.reset();
+        fusoes.reset();
+        visitasBusca.zerar();
+        visitasInsercao.zerar();
+        visitasRemocao.zerar();
+    }
+
+    @Override
+    public String toString() {
+        EstatisticasEstrutura estrutura = this.estrutura;
+        return "Buscas: " + getBuscas() + ", Inserções: " + getInsercoes() + ", Remoções: " + getRemocoes()
+                + "\nDivisões: " + getDivisoes() + ", Redistribuições: " + getRedistribuicoes()
+                + " (sem sucesso: " + getRedistribuicoesSemSucesso() + "), Fusões: " + getFusoes()
+                + "\n" + estrutura
+                + "\nVisitas por busca: " + visitasBusca
+                + "\nVisitas por inserção: " + visitasInsercao
+                + "\nVisitas por remoção: " + visitasRemocao;
+    }
+
+    // --- Estimativas de memória (JVM 64 bits com ponteiros comprimidos) ---
+    private static final int BYTES_CABECALHO_OBJETO = 12;
+    private static final int BYTES_REFERENCIA = 4;
+    private static final int BYTES_ARRAYLIST = 24;   // Objeto ArrayList sem o array interno
+    private static final int BYTES_CABECALHO_ARRAY = 16;
+    private static final int BYTES_INTEGER = 16;
+
+    // Estima o tamanho de um nó: o próprio objeto, mais 'listas' ArrayLists com 'elementos'
+    // referências cada, mais as chaves encaixotadas fora do cache de Integer
+    public static long estimarBytesNo(int camposReferencia, int listas, int elementos, int chavesEncaixotadas) {
+        long bytes = alinhar(BYTES_CABECALHO_OBJETO + 8L + (long) camposReferencia * BYTES_REFERENCIA);
+        bytes += (long) listas * (BYTES_ARRAYLIST + alinhar(BYTES_CABECALHO_ARRAY + (long) elementos * BYTES_REFERENCIA));
+        bytes += (long) chavesEncaixotadas * BYTES_INTEGER;
+        return bytes;
+    }
+
+    // Estima o tamanho de uma String com conteúdo Latin-1 ou UTF-16
+    public static long estimarBytesTexto(String texto) {
+        if (texto == null) return 0;
+        boolean latin1 = true;
+        for (int i = 0; i < texto.length() && latin1; i++) {
+            latin1 = texto.charAt(i) < 256;
+        }
+        long bytesConteudo = latin1 ? texto.length() : 2L * texto.length();
+        return 24 + alinhar(BYTES_CABECALHO_ARRAY + bytesConteudo);
+    }
+
+    private static long alinhar(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // --- Alocação ---
+
+    // Obtido uma vez: a própria consulta ao ManagementFactory aloca
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Bytes alocados até agora pelo thread atual, ou -1 se a JVM não informa. A diferença entre
+    // duas chamadas mede quanto um trecho alocou, sem precisar de um profiler.
+    public static long bytesAlocadosNoThread() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadsHotSpot = (com.sun.management.ThreadMXBean) THREADS;
+            if (threadsHotSpot.isThreadAllocatedMemorySupported() && threadsHotSpot.isThreadAllocatedMemoryEnabled()) {
+                return threadsHotSpot.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+}
+
+// Histograma de valores inteiros não negativos em faixas de potências de 2:
+// a faixa i conta os valores em [2^(i-1), 2^i), e a faixa 0 conta o valor 0
+class HistogramaPotencias {
+    private final AtomicLongArray faixas = new AtomicLongArray(32);
+
+    public void registrar(int valor) {
+        faixas.incrementAndGet(valor <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(valor));
+    }
+
+    public long obterContagem(int faixa) {
+        return faixas.get(faixa);
+    }
+
+    public void zerar() {
+        for (int i = 0; i < faixas.length(); i++) {
+            faixas.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < faixas.length(); i++) {
+            long contagem = faixas.get(i);
+            if (contagem == 0) continue;
+            if (sb.length() > 1) sb.append(", ");
+            int inicio = i == 0 ? 0 : 1 << (i - 1);
+            int fim = i == 0 ? 0 : (1 << i) - 1;
+            sb.append(inicio == fim ? String.valueOf(inicio) : inicio + "-" + fim).append(": ").append(contagem);
+        }
+        return sb.append("]").toString();
+    }
+}
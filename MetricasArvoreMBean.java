@@ -0,0 +1,35 @@
+// MetricasArvoreMBean.java
+// Interface de gerenciamento (JMX) das métricas de execução das árvores de indexação.
+// Os nomes seguem a convenção getXxx exigida pelos MBeans padrão.
+
+public interface MetricasArvoreMBean {
+    long getBuscas();
+
+    long getInsercoes();
+
+    long getRemocoes();
+
+    long getDivisoes();
+
+    long getRedistribuicoes();
+
+    long getRedistribuicoesSemSucesso();
+
+    long getFusoes();
+
+    int getAltura();
+
+    long getQuantidadeNos();
+
+    double getFatorOcupacaoMedio();
+
+    long getBytesEstimados();
+
+    String getHistogramaVisitasBusca();
+
+    String getHistogramaVisitasInsercao();
+
+    String getHistogramaVisitasRemocao();
+
+    void zerar();
+}
@@ -0,0 +1,37 @@
+// NoVersionado.java
+// Contador de sequência de um nó: par quando estável, ímpar enquanto o escritor o altera. Base dos
+// nós das árvores no modo de leitores concorrentes (ver LeitoresConcorrentes).
+
+import java.lang.invoke.VarHandle;
+
+abstract class NoVersionado {
+    private volatile long versao;
+
+    // Versão atual, ou -1 se o nó está sendo alterado e não vale a pena lê-lo agora
+    final long lerVersao() {
+        long atual = versao;
+        return (atual & 1) == 0 ? atual : -1;
+    }
+
+    // Confere, depois de ler o nó, que ele não mudou desde lerVersao
+    final boolean validar(long versaoLida) {
+        VarHandle.acquireFence(); // As leituras do nó não podem passar para depois da conferência
+        return versaoLida >= 0 && versao == versaoLida;
+    }
+
+    // Só o escritor: torna a versão ímpar antes da primeira alteração; false se já estava
+    final boolean iniciarAlteracao() {
+        long atual = versao;
+        if ((atual & 1) != 0) {
+            return false;
+        }
+        versao = atual + 1;
+        VarHandle.storeStoreFence(); // As alterações seguintes não podem ser vistas antes da marca
+        return true;
+    }
+
+    // Só o escritor: a escrita volátil publica as alterações junto com a nova versão par
+    final void terminarAlteracao() {
+        versao = versao + 1;
+    }
+}
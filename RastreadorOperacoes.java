@@ -0,0 +1,99 @@
+// RastreadorOperacoes.java
+// Rastreamento opcional da latência de cada chamada às árvores (busca, inserção, remoção
+// e busca por intervalo), junto com o número de nós visitados, com relatórios periódicos
+// de p50/p99/p999.
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class RastreadorOperacoes {
+
+    public enum Operacao {
+        BUSCA("buscarItem"),
+        INSERCAO("inserirItem"),
+        REMOCAO("removerItem"),
+        INTERVALO("buscarIntervalo");
+
+        private final String nomeMetodo;
+
+        Operacao(String nomeMetodo) {
+            this.nomeMetodo = nomeMetodo;
+        }
+
+        public String obterNomeMetodo() {
+            return nomeMetodo;
+        }
+    }
+
+    private final Map<Operacao, HistogramaLatencia> latencias = new EnumMap<>(Operacao.class);
+    private final Map<Operacao, HistogramaLatencia> nosVisitados = new EnumMap<>(Operacao.class);
+    private final String nomeArvore;
+    private ScheduledExecutorService agendador;
+    private ScheduledFuture<?> tarefaRelatorio;
+
+    public RastreadorOperacoes(String nomeArvore) {
+        this.nomeArvore = nomeArvore;
+        for (Operacao operacao : Operacao.values()) {
+            latencias.put(operacao, new HistogramaLatencia());
+            nosVisitados.put(operacao, new HistogramaLatencia());
+        }
+    }
+
+    public void registrar(Operacao operacao, long duracaoNanos, int visitados) {
+        latencias.get(operacao).registrar(duracaoNanos);
+        nosVisitados.get(operacao).registrar(visitados);
+    }
+
+    public HistogramaLatencia obterLatencias(Operacao operacao) {
+        return latencias.get(operacao);
+    }
+
+    public HistogramaLatencia obterNosVisitados(Operacao operacao) {
+        return nosVisitados.get(operacao);
+    }
+
+    // Imprime, a cada 'periodo', os percentis do intervalo que acabou de terminar
+    public synchronized void iniciarRelatorioPeriodico(long periodo, TimeUnit unidade) {
+        pararRelatorioPeriodico();
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "rastreador-" + nomeArvore);
+            thread.setDaemon(true);
+            return thread;
+        });
+        tarefaRelatorio = agendador.scheduleAtFixedRate(
+                () -> System.out.println(gerarRelatorio(true)), periodo, periodo, unidade);
+    }
+
+    public synchronized void pararRelatorioPeriodico() {
+        if (agendador != null) {
+            tarefaRelatorio.cancel(false);
+            agendador.shutdown();
+            agendador = null;
+            tarefaRelatorio = null;
+        }
+    }
+
+    // Monta o relatório de percentis; se 'zerar' for verdadeiro, os histogramas recomeçam do zero
+    public String gerarRelatorio(boolean zerar) {
+        StringBuilder sb = new StringBuilder("--- Latências (" + nomeArvore + ") ---");
+        for (Operacao operacao : Operacao.values()) {
+            HistogramaLatencia latencia = zerar ? latencias.get(operacao).extrairEZerar() : latencias.get(operacao);
+            HistogramaLatencia visitas = zerar ? nosVisitados.get(operacao).extrairEZerar() : nosVisitados.get(operacao);
+            long total = latencia.obterTotal();
+            if (total == 0) continue;
+            sb.append(String.format("%n%-16s n=%d  p50=%.1fus  p99=%.1fus  p999=%.1fus  max=%.1fus  nós p50=%d p999=%d",
+                    operacao.obterNomeMetodo(), total,
+                    latencia.obterPercentil(50) / 1000.0,
+                    latencia.obterPercentil(99) / 1000.0,
+                    latencia.obterPercentil(99.9) / 1000.0,
+                    latencia.obterMaximo() / 1000.0,
+                    visitas.obterPercentil(50),
+                    visitas.obterPercentil(99.9)));
+        }
+        return sb.toString();
+    }
+}
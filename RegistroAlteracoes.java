@@ -0,0 +1,26 @@
+// RegistroAlteracoes.java
+// Nós marcados pelo escritor na operação em curso, liberados todos juntos ao final dela
+
+import java.util.Arrays;
+
+final class RegistroAlteracoes {
+    private NoVersionado[] marcados = new NoVersionado[16];
+    private int quantidade;
+
+    void marcar(NoVersionado no) {
+        if (no.iniciarAlteracao()) {
+            if (quantidade == marcados.length) {
+                marcados = Arrays.copyOf(marcados, quantidade * 2);
+            }
+            marcados[quantidade++] = no;
+        }
+    }
+
+    void liberar() {
+        for (int i = 0; i < quantidade; i++) {
+            marcados[i].terminarAlteracao();
+            marcados[i] = null;
+        }
+        quantidade = 0;
+    }
+}
@@ -0,0 +1,110 @@
+// RelatorioEstrutura.java
+// Resultado da verificação estrutural de uma árvore: violações de invariantes encontradas,
+// histograma de ocupação por nível e estimativa de memória.
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RelatorioEstrutura {
+    private static final int FAIXAS_OCUPACAO = 10; // Faixas de 10% de ocupação
+    private static final int MAX_VIOLACOES_DETALHADAS = 50;
+
+    private final String nomeArvore;
+    private final List<String> violacoes = new ArrayList<>();
+    private int totalViolacoes;
+    private final List<long[]> ocupacaoPorNivel = new ArrayList<>(); // nível -> contagem de nós por faixa
+    private final List<long[]> chavesPorNivel = new ArrayList<>();   // nível -> {chaves, capacidade}
+    private EstatisticasEstrutura estatisticas;
+
+    public RelatorioEstrutura(String nomeArvore) {
+        this.nomeArvore = nomeArvore;
+    }
+
+    public void registrarViolacao(String descricao) {
+        totalViolacoes++;
+        if (violacoes.size() < MAX_VIOLACOES_DETALHADAS) {
+            violacoes.add(descricao);
+        }
+    }
+
+    // Contabiliza um nó do nível informado (0 = raiz) com 'chaves' de 'capacidade' ocupadas
+    public void registrarNo(int nivel, int chaves, int capacidade) {
+        while (ocupacaoPorNivel.size() <= nivel) {
+            ocupacaoPorNivel.add(new long[FAIXAS_OCUPACAO]);
+            chavesPorNivel.add(new long[2]);
+        }
+        int faixa = capacidade == 0 ? 0 : Math.min(FAIXAS_OCUPACAO - 1, chaves * FAIXAS_OCUPACAO / capacidade);
+        ocupacaoPorNivel.get(nivel)[faixa]++;
+        chavesPorNivel.get(nivel)[0] += chaves;
+        chavesPorNivel.get(nivel)[1] += capacidade;
+    }
+
+    public void definirEstatisticas(EstatisticasEstrutura estatisticas) {
+        this.estatisticas = estatisticas;
+    }
+
+    public boolean estaConsistente() {
+        return totalViolacoes == 0;
+    }
+
+    // Primeiras violações encontradas (no máximo MAX_VIOLACOES_DETALHADAS)
+    public List<String> obterViolacoes() {
+        return violacoes;
+    }
+
+    public int obterTotalViolacoes() {
+        return totalViolacoes;
+    }
+
+    public EstatisticasEstrutura obterEstatisticas() {
+        return estatisticas;
+    }
+
+    public int obterQuantidadeNiveis() {
+        return ocupacaoPorNivel.size();
+    }
+
+    // Ocupação média (0 a 1) dos nós de um nível
+    public double obterOcupacaoDoNivel(int nivel) {
+        long[] totais = chavesPorNivel.get(nivel);
+        return totais[1] == 0 ? 0.0 : (double) totais[0] / totais[1];
+    }
+
+    // Indica se a ocupação média das folhas caiu abaixo do limiar (entre 0 e 1),
+    // sinal de que uma compactação deve ser agendada
+    public boolean estaDegradada(double limiarOcupacao) {
+        if (ocupacaoPorNivel.isEmpty()) return false;
+        return obterOcupacaoDoNivel(ocupacaoPorNivel.size() - 1) < limiarOcupacao;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("--- Verificação estrutural (" + nomeArvore + ") ---\n");
+        if (estatisticas != null) {
+            sb.append(estatisticas).append('\n');
+        }
+        sb.append("Ocupação por nível (faixas de 10%):\n");
+        for (int nivel = 0; nivel < ocupacaoPorNivel.size(); nivel++) {
+            sb.append(String.format("  Nível %d (%.1f%%):", nivel, obterOcupacaoDoNivel(nivel) * 100));
+            long[] faixas = ocupacaoPorNivel.get(nivel);
+            for (int f = 0; f < FAIXAS_OCUPACAO; f++) {
+                if (faixas[f] > 0) {
+                    sb.append(' ').append(f * 10).append('-').append(f * 10 + 9).append("%: ").append(faixas[f]);
+                }
+            }
+            sb.append('\n');
+        }
+        if (totalViolacoes == 0) {
+            sb.append("Nenhuma violação encontrada.");
+        } else {
+            sb.append(totalViolacoes).append(" violação(ões):");
+            for (String violacao : violacoes) {
+                sb.append("\n  - ").append(violacao);
+            }
+            if (totalViolacoes > violacoes.size()) {
+                sb.append("\n  ... e mais ").append(totalViolacoes - violacoes.size());
+            }
+        }
+        return sb.toString();
+    }
+}
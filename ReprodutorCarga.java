@@ -0,0 +1,358 @@
+// ReprodutorCarga.java
+// Reproduz uma sequência de operações (CargaTrabalho ou um traço gravado) contra um IndiceOrdenado,
+// com uma ou várias threads, e relata vazão e latência por tipo de operação. A thread que chama
+// decodifica as operações em lotes e as entrega às threads de trabalho por uma fila.
+//
+// Com uma taxa alvo, a operação i tem início previsto em i / taxa segundos e a latência é medida a
+// partir desse instante, não de quando a thread conseguiu começá-la: um atraso acumulado aparece
+// nos percentis em vez de simplesmente baixar a vazão (omissão coordenada).
+//
+// Uso: java ReprodutorCarga [--estrutura b+|b*|adaptativo|replicado] [--replicas n] [--ordem n]
+//        [--chaves n] [--operacoes n] [--perfil A..E | --mistura busca,insercao,atualizacao,remocao,intervalo]
+//        [--distribuicao uniforme|zipf|recente|sequencial] [--intervalo n] [--threads n]
+//        [--taxa operacoes/s] [--semente n] [--gravar arquivo] [--traco arquivo]
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class ReprodutorCarga {
+    private static final int TAMANHO_LOTE = 1024;
+    private static final int LOTES_POR_THREAD = 4;
+    private static final long ESPERA_ATIVA_NANOS = 100_000; // parkNanos costuma passar do prazo em dezenas de us
+    private static final CargaTrabalho.Operacao[] OPERACOES = CargaTrabalho.Operacao.values();
+
+    // Operações decodificadas, reaproveitadas entre a thread leitora e as de trabalho
+    private static final class Lote {
+        final byte[] tipos = new byte[TAMANHO_LOTE];
+        final int[] chaves = new int[TAMANHO_LOTE];
+        final int[] fins = new int[TAMANHO_LOTE];
+        long primeiraOperacao; // Índice global da primeira, para o início previsto
+        int quantidade;        // -1: fim da reprodução
+    }
+
+    public static final class Resultado {
+        private final HistogramaLatencia[] latencias = new HistogramaLatencia[OPERACOES.length];
+        private final LongAdder encontrados = new LongAdder();
+        private long operacoes;
+        private double segundos;
+        private double taxaAlvo;
+
+        Resultado() {
+            for (int i = 0; i < latencias.length; i++) {
+                latencias[i] = new HistogramaLatencia();
+            }
+        }
+
+        public long obterOperacoes() {
+            return operacoes;
+        }
+
+        public double obterVazao() {
+            return operacoes / segundos;
+        }
+
+        public HistogramaLatencia obterLatencias(CargaTrabalho.Operacao operacao) {
+            return latencias[operacao.ordinal()];
+        }
+
+        // Buscas e remoções com sucesso, atualizações de IDs existentes e itens devolvidos pelos
+        // intervalos. Com uma única thread, a mesma carga dá sempre o mesmo número.
+        public long obterEncontrados() {
+            return encontrados.sum();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "Operações: %d em %.2f s, vazão: %.0f operações/s",
+                    operacoes, segundos, obterVazao()));
+            if (taxaAlvo > 0) {
+                sb.append(String.format(Locale.ROOT, " (alvo: %.0f)", taxaAlvo));
+            }
+            sb.append(", encontrados: ").append(encontrados.sum());
+            for (CargaTrabalho.Operacao operacao : OPERACOES) {
+                HistogramaLatencia histograma = latencias[operacao.ordinal()];
+                if (histograma.obterTotal() == 0) continue;
+                sb.append(String.format(Locale.ROOT, "%n  %-11s %10d  p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                        operacao, histograma.obterTotal(), histograma.obterPercentil(50) / 1000.0,
+                        histograma.obterPercentil(99) / 1000.0, histograma.obterPercentil(99.9) / 1000.0,
+                        histograma.obterMaximo() / 1000.0));
+            }
+            return sb.toString();
+        }
+    }
+
+    // Reproduz até 'quantidade' operações da fonte com 'threads' threads de trabalho, a 'taxaAlvo'
+    // operações por segundo (0: sem limite). Com mais de uma thread, o índice precisa ser seguro
+    // para acesso concorrente (veja sincronizado).
+    public static Resultado reproduzir(IndiceOrdenado indice, FonteOperacoes fonte, long quantidade, int threads,
+                                       double taxaAlvo) throws IOException {
+        Resultado resultado = new Resultado();
+        resultado.taxaAlvo = taxaAlvo;
+        BlockingQueue<Lote> livres = new ArrayBlockingQueue<>(threads * LOTES_POR_THREAD);
+        BlockingQueue<Lote> prontos = new ArrayBlockingQueue<>(threads * LOTES_POR_THREAD);
+        for (int i = 0; i < threads * LOTES_POR_THREAD; i++) {
+            livres.add(new Lote());
+        }
+        double nanosPorOperacao = taxaAlvo > 0 ? 1e9 / taxaAlvo : 0;
+        long inicio = System.nanoTime();
+        List<Thread> trabalhadoras = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> trabalhar(indice, livres, prontos, resultado, inicio, nanosPorOperacao),
+                    "reprodutor-" + t);
+            trabalhadoras.add(thread);
+            thread.start();
+        }
+
+        long decodificadas = 0;
+        try {
+            while (decodificadas < quantidade) {
+                Lote lote = livres.take();
+                int n = 0;
+                while (n < TAMANHO_LOTE && decodificadas + n < quantidade && fonte.avancar()) {
+                    lote.tipos[n] = (byte) fonte.obterOperacao().ordinal();
+                    lote.chaves[n] = fonte.obterChave();
+                    lote.fins[n] = fonte.obterChaveFim();
+                    n++;
+                }
+                lote.primeiraOperacao = decodificadas;
+                lote.quantidade = n;
+                decodificadas += n;
+                prontos.put(lote);
+                if (n < TAMANHO_LOTE) break; // A fonte acabou antes da quantidade pedida
+            }
+            for (int t = 0; t < threads; t++) {
+                Lote fim = livres.take();
+                fim.quantidade = -1;
+                prontos.put(fim);
+            }
+            for (Thread thread : trabalhadoras) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Thread thread : trabalhadoras) {
+                thread.interrupt();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Traço corrompido ou ilegível: as trabalhadoras esperariam para sempre por lotes
+            for (Thread thread : trabalhadoras) {
+                thread.interrupt();
+            }
+            throw e;
+        }
+        resultado.segundos = (System.nanoTime() - inicio) / 1e9;
+        resultado.operacoes = decodificadas;
+        return resultado;
+    }
+
+    private static void trabalhar(IndiceOrdenado indice, BlockingQueue<Lote> livres, BlockingQueue<Lote> prontos,
+                                  Resultado resultado, long inicio, double nanosPorOperacao) {
+        HistogramaLatencia[] latencias = resultado.latencias;
+        try {
+            while (true) {
+                Lote lote = prontos.take();
+                if (lote.quantidade < 0) {
+                    livres.put(lote);
+                    return;
+                }
+                long encontrados = 0;
+                for (int i = 0; i < lote.quantidade; i++) {
+                    long comeco;
+                    if (nanosPorOperacao > 0) {
+                        comeco = inicio + (long) ((lote.primeiraOperacao + i) * nanosPorOperacao);
+                        for (long espera = comeco - System.nanoTime(); espera > 0; espera = comeco - System.nanoTime()) {
+                            if (espera > ESPERA_ATIVA_NANOS) {
+                                LockSupport.parkNanos(espera - ESPERA_ATIVA_NANOS);
+                            } else {
+                                Thread.onSpinWait();
+                            }
+                        }
+                    } else {
+                        comeco = System.nanoTime();
+                    }
+                    int chave = lote.chaves[i];
+                    switch (OPERACOES[lote.tipos[i]]) {
+                        case BUSCA:
+                            if (indice.buscarItem(chave) != null) encontrados++;
+                            break;
+                        case INSERCAO:
+                            indice.inserirItem(chave, CargaTrabalho.valorPara(chave));
+                            break;
+                        case ATUALIZACAO:
+                            // Só atualiza chaves existentes, numa única operação do índice
+                            if (indice.atualizarItem(chave, CargaTrabalho.valorPara(chave))) encontrados++;
+                            break;
+                        case REMOCAO:
+                            if (indice.removerItem(chave)) encontrados++;
+                            break;
+                        case INTERVALO:
+                            encontrados += indice.buscarIntervalo(chave, lote.fins[i]).size();
+                            break;
+                    }
+                    latencias[lote.tipos[i]].registrar(System.nanoTime() - comeco);
+                }
+                resultado.encontrados.add(encontrados);
+                livres.put(lote);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Envolve uma árvore que não aceita acesso concorrente, serializando todas as operações
+    public static IndiceOrdenado sincronizado(IndiceOrdenado indice) {
+        return new IndiceSincronizado(indice);
+    }
+
+    private static final class IndiceSincronizado implements IndiceOrdenado {
+        private final IndiceOrdenado indice;
+
+        IndiceSincronizado(IndiceOrdenado indice) {
+            this.indice = indice;
+        }
+
+        public synchronized void inserirItem(int chave, String valor) {
+            indice.inserirItem(chave, valor);
+        }
+
+        public synchronized boolean atualizarItem(int chave, String valor) {
+            return indice.atualizarItem(chave, valor);
+        }
+
+        public synchronized String buscarItem(int chave) {
+            return indice.buscarItem(chave);
+        }
+
+        public synchronized boolean removerItem(int chave) {
+            return indice.removerItem(chave);
+        }
+
+        public synchronized List<String> buscarIntervalo(int chaveInicio, int chaveFim) {
+            return indice.buscarIntervalo(chaveInicio, chaveFim);
+        }
+
+        public synchronized boolean existeNoIntervalo(int chaveInicio, int chaveFim) {
+            return indice.existeNoIntervalo(chaveInicio, chaveFim);
+        }
+
+        public synchronized int[] coletarEmOrdem(List<String> valores) {
+            return indice.coletarEmOrdem(valores);
+        }
+
+        public synchronized EstatisticasEstrutura coletarEstatisticas() {
+            return indice.coletarEstatisticas();
+        }
+    }
+
+    // --- LINHA DE COMANDO ---
+
+    public static void main(String[] args) throws IOException {
+        String estrutura = argumento(args, "--estrutura", "b+");
+        int ordem = Integer.parseInt(argumento(args, "--ordem", "32"));
+        int threads = Integer.parseInt(argumento(args, "--threads", "1"));
+        double taxa = Double.parseDouble(argumento(args, "--taxa", "0"));
+        String traco = argumento(args, "--traco", null);
+        // Uma réplica por nó NUMA, e ao menos duas para que o log de operações seja exercitado
+        int replicas = Integer.parseInt(argumento(args, "--replicas",
+                String.valueOf(Math.max(2, IndiceReplicado.contarDominiosMemoria()))));
+
+        if (traco == null) {
+            long semente = Long.parseLong(argumento(args, "--semente", "42"));
+            int chavesIniciais = Integer.parseInt(argumento(args, "--chaves", "100000"));
+            long quantidade = Long.parseLong(argumento(args, "--operacoes", "1000000"));
+            CargaTrabalho.Distribuicao distribuicao =
+                    CargaTrabalho.Distribuicao.valueOf(argumento(args, "--distribuicao", "zipf").toUpperCase(Locale.ROOT));
+            String mistura = argumento(args, "--mistura", null);
+            double[] proporcoes = mistura != null
+                    ? Arrays.stream(mistura.split(",")).mapToDouble(Double::parseDouble).toArray()
+                    : CargaTrabalho.perfil(argumento(args, "--perfil", "B").charAt(0));
+            int intervalo = Integer.parseInt(argumento(args, "--intervalo", "100"));
+            CargaTrabalho carga = new CargaTrabalho(semente, chavesIniciais, distribuicao, proporcoes, intervalo);
+            String descricao = "semente " + semente + ", " + distribuicao + ", pesos " + Arrays.toString(proporcoes);
+
+            // Com --gravar, grava o traço e reproduz a partir do arquivo
+            String gravar = argumento(args, "--gravar", null);
+            if (gravar != null) {
+                carga.gravar(Paths.get(gravar), quantidade);
+                System.out.println("Traço gravado em " + gravar);
+                traco = gravar;
+            } else {
+                reproduzirEImprimir(estrutura, ordem, replicas, chavesIniciais, carga, quantidade, threads, taxa, descricao);
+                return;
+            }
+        }
+        try (CargaTrabalho.LeitorTraco leitor = CargaTrabalho.abrir(Paths.get(traco))) {
+            reproduzirEImprimir(estrutura, ordem, replicas, leitor.obterChavesIniciais(), leitor, leitor.obterQuantidade(),
+                    threads, taxa, "traço " + traco + " (semente " + leitor.obterSemente() + ")");
+        }
+    }
+
+    private static void reproduzirEImprimir(String estrutura, int ordem, int replicas, int chavesIniciais,
+                                            FonteOperacoes fonte, long quantidade, int threads, double taxa,
+                                            String descricao) throws IOException {
+        IndiceOrdenado indice;
+        IndiceAdaptativo adaptativo = null;
+        IndiceReplicado replicado = null;
+        switch (estrutura) {
+            case "b*":
+                indice = new ArvoreBEstrelaCompleta(ordem);
+                break;
+            case "adaptativo":
+                adaptativo = new IndiceAdaptativo(ordem, IndiceAdaptativo.Estrutura.BPLUS);
+                indice = adaptativo;
+                break;
+            case "replicado":
+                replicado = new IndiceReplicado(ordem, replicas);
+                indice = replicado;
+                break;
+            case "b+":
+                indice = new ArvoreBPlus(ordem);
+                break;
+            default:
+                throw new IllegalArgumentException("Estrutura desconhecida: " + estrutura + " (use b+, b*, adaptativo ou replicado)");
+        }
+        long inicioCarga = System.nanoTime();
+        if (replicado != null) {
+            // Em lote, cada réplica construída pelo seu próprio thread
+            int[] chaves = new int[chavesIniciais];
+            String[] valores = new String[chavesIniciais];
+            for (int i = 0; i < chavesIniciais; i++) {
+                chaves[i] = CargaTrabalho.ID_INICIAL + i;
+                valores[i] = CargaTrabalho.valorPara(chaves[i]);
+            }
+            replicado.carregar(chaves, valores, chavesIniciais);
+        } else {
+            CargaTrabalho.carregarIniciais(indice, chavesIniciais);
+        }
+        System.out.printf("--- Reprodução de carga: %s, ordem %d, %d threads ---%n", estrutura, ordem, threads);
+        System.out.printf("%s%nCarga inicial: %d IDs em %d ms%n", descricao, chavesIniciais,
+                (System.nanoTime() - inicioCarga) / 1_000_000);
+        if (adaptativo != null) {
+            adaptativo.iniciar(1, TimeUnit.SECONDS);
+        } else if (threads > 1 && replicado == null) {
+            indice = sincronizado(indice);
+        }
+        System.out.println(reproduzir(indice, fonte, quantidade, threads, taxa));
+        if (adaptativo != null) {
+            System.out.println(adaptativo);
+            adaptativo.close();
+        }
+        if (replicado != null) {
+            System.out.println(replicado);
+        }
+    }
+
+    private static String argumento(String[] args, String nome, String padrao) {
+        int indice = Arrays.asList(args).indexOf(nome);
+        return indice >= 0 && indice + 1 < args.length ? args[indice + 1] : padrao;
+    }
+}
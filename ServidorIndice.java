@@ -0,0 +1,337 @@
+// ServidorIndice.java
+// Servidor de rede mínimo em torno de uma ArvoreBPlus, para usar o índice como serviço
+// compartilhado em vez de uma cópia embutida em cada JVM. Usa NIO com um único seletor: a
+// árvore só é acessada pela thread do servidor, sem travas. O protocolo é binário e aceita
+// pedidos encadeados (pipelining): todos os pedidos completos lidos de uma conexão são
+// respondidos, na ordem, numa única escrita.
+//
+// Pedido:   [tamanho:int][operacao:byte][dados]
+//   BUSCAR          chave:int
+//   BUSCAR_VARIOS   quantidade:int, chaves:int...
+//   INSERIR         chave:int, valor:texto
+//   REMOVER         chave:int
+//   INTERVALO       inicio:int, fim:int
+// Resposta: [tamanho:int][status:byte][dados]
+//   BUSCAR          valor:texto (status OK) ou nada (NAO_ENCONTRADO)
+//   BUSCAR_VARIOS   quantidade:int, valores:texto... (ausentes com tamanho 0xFFFF)
+//   INTERVALO       quantidade:int, valores:texto...
+// Textos são [tamanho:short sem sinal][bytes UTF-8], com 0xFFFF para valor ausente; por isso um
+// texto tem no máximo 0xFFFE bytes, e INSERIR com valor maior responde ERRO.
+// O tamanho dos quadros não inclui o próprio campo. Cada pedido é lido de uma fatia limitada ao
+// seu quadro; um quadro que não bate com o próprio conteúdo encerra a conexão.
+// Um cliente que envia pedidos sem ler as respostas não faz a saída crescer sem limite: acima de
+// LIMITE_SAIDA_PENDENTE a conexão para de ler e de responder até o socket escoar as respostas.
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class ServidorIndice implements Runnable, AutoCloseable {
+    static final byte OP_BUSCAR = 1;
+    static final byte OP_BUSCAR_VARIOS = 2;
+    static final byte OP_INSERIR = 3;
+    static final byte OP_REMOVER = 4;
+    static final byte OP_INTERVALO = 5;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_NAO_ENCONTRADO = 1;
+    static final byte STATUS_ERRO = 2;
+
+    static final int TAMANHO_MAXIMO_QUADRO = 1 << 20;
+    static final int TEXTO_AUSENTE = 0xFFFF;
+    static final int TAMANHO_MAXIMO_TEXTO = TEXTO_AUSENTE - 1;
+    private static final int TAMANHO_INICIAL_BUFFER = 64 * 1024;
+    private static final int LIMITE_SAIDA_PENDENTE = 4 * TAMANHO_INICIAL_BUFFER;
+
+    private final ArvoreBPlus arvore;
+    private final Selector seletor;
+    private final ServerSocketChannel canalServidor;
+    private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder();
+    private volatile boolean ativo = true;
+    private volatile boolean executando;
+    private boolean recursosFechados;
+
+    // Estado de uma conexão: bytes recebidos ainda não processados e respostas ainda não enviadas
+    private static class Conexao {
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANHO_INICIAL_BUFFER);
+        ByteBuffer saida = ByteBuffer.allocateDirect(TAMANHO_INICIAL_BUFFER);
+        boolean contida; // Parou de responder com quadros completos na entrada por causa da saída
+    }
+
+    public ServidorIndice(ArvoreBPlus arvore, int porta) throws IOException {
+        this.arvore = arvore;
+        this.seletor = Selector.open();
+        this.canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(new InetSocketAddress(porta));
+        canalServidor.configureBlocking(false);
+        canalServidor.register(seletor, SelectionKey.OP_ACCEPT);
+    }
+
+    public int obterPorta() {
+        return canalServidor.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        executando = true;
+        try {
+            while (ativo) {
+                seletor.select();
+                Iterator<SelectionKey> chaves = seletor.selectedKeys().iterator();
+                while (chaves.hasNext()) {
+                    SelectionKey chave = chaves.next();
+                    chaves.remove();
+                    try {
+                        if (chave.isAcceptable()) {
+                            aceitar();
+                        } else {
+                            if (chave.isReadable()) ler(chave);
+                            if (chave.isValid() && chave.isWritable()) escrever(chave);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Falha de rede ou pedido malformado: encerra só esta conexão
+                        fechar(chave);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erro no servidor do índice: " + e.getMessage());
+        } finally {
+            fecharRecursos();
+        }
+    }
+
+    // Fecha as conexões, o canal do servidor e o seletor; chamado pela thread do servidor ao sair,
+    // ou por close quando run nunca chegou a rodar
+    private synchronized void fecharRecursos() {
+        if (recursosFechados) return;
+        recursosFechados = true;
+        for (SelectionKey chave : seletor.keys()) {
+            fechar(chave);
+        }
+        try {
+            canalServidor.close();
+            seletor.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o servidor do índice: " + e.getMessage());
+        }
+    }
+
+    private void aceitar() throws IOException {
+        SocketChannel canal = canalServidor.accept();
+        if (canal == null) return;
+        canal.configureBlocking(false);
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        canal.register(seletor, SelectionKey.OP_READ, new Conexao());
+    }
+
+    private void ler(SelectionKey chave) throws IOException {
+        SocketChannel canal = (SocketChannel) chave.channel();
+        Conexao conexao = (Conexao) chave.attachment();
+        if (!conexao.entrada.hasRemaining()) {
+            conexao.entrada = ampliar(conexao.entrada, conexao.entrada.capacity() * 2, false);
+        }
+        int lidos = canal.read(conexao.entrada);
+        if (lidos == -1) {
+            fechar(chave);
+            return;
+        }
+        processarQuadros(conexao);
+        escrever(chave);
+    }
+
+    // Responde aos pedidos completos no buffer de entrada, mantendo o restante; para antes, com a
+    // conexão contida, quando as respostas pendentes passam de LIMITE_SAIDA_PENDENTE
+    private void processarQuadros(Conexao conexao) throws IOException {
+        ByteBuffer entrada = conexao.entrada;
+        conexao.contida = false;
+        entrada.flip();
+        while (entrada.remaining() >= 4) {
+            if (conexao.saida.position() >= LIMITE_SAIDA_PENDENTE) {
+                conexao.contida = true;
+                break;
+            }
+            int tamanho = entrada.getInt(entrada.position());
+            if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_QUADRO) {
+                throw new IOException("Quadro inválido: " + tamanho + " bytes");
+            }
+            if (entrada.remaining() < 4 + tamanho) {
+                if (entrada.capacity() < 4 + tamanho) {
+                    entrada.compact();
+                    conexao.entrada = ampliar(entrada, 4 + tamanho, false);
+                    return;
+                }
+                break;
+            }
+            entrada.getInt();
+            int fimDoQuadro = entrada.position() + tamanho;
+            responder(entrada.slice(entrada.position(), tamanho), conexao);
+            entrada.position(fimDoQuadro);
+        }
+        entrada.compact();
+    }
+
+    // 'pedido' é a fatia do quadro: ler além dele lança BufferUnderflowException
+    private void responder(ByteBuffer pedido, Conexao conexao) throws IOException {
+        byte operacao = pedido.get();
+        garantirEspaco(conexao, 64);
+        int inicioResposta = conexao.saida.position();
+        conexao.saida.putInt(0); // Tamanho, preenchido ao final
+        switch (operacao) {
+            case OP_BUSCAR: {
+                String valor = arvore.buscarItem(pedido.getInt());
+                conexao.saida.put(valor != null ? STATUS_OK : STATUS_NAO_ENCONTRADO);
+                if (valor != null) gravarTexto(conexao, valor);
+                break;
+            }
+            case OP_BUSCAR_VARIOS: {
+                int quantidade = pedido.getInt();
+                // Confere com o quadro antes de alocar: a quantidade vem do cliente
+                if (quantidade < 0 || quantidade > pedido.remaining() / 4) {
+                    throw new IOException("Quantidade de chaves inválida: " + quantidade);
+                }
+                int[] chaves = new int[quantidade];
+                Integer[] ordem = new Integer[quantidade];
+                for (int i = 0; i < quantidade; i++) {
+                    chaves[i] = pedido.getInt();
+                    ordem[i] = i;
+                }
+                // Ordena para uma única passada na árvore e devolve na ordem pedida
+                Arrays.sort(ordem, (a, b) -> Integer.compare(chaves[a], chaves[b]));
+                int[] chavesOrdenadas = new int[quantidade];
+                for (int i = 0; i < quantidade; i++) chavesOrdenadas[i] = chaves[ordem[i]];
+                String[] resultadosOrdenados = new String[quantidade];
+                arvore.buscarVarios(chavesOrdenadas, quantidade, resultadosOrdenados);
+                String[] resultados = new String[quantidade];
+                for (int i = 0; i < quantidade; i++) resultados[ordem[i]] = resultadosOrdenados[i];
+                conexao.saida.put(STATUS_OK).putInt(quantidade);
+                for (String valor : resultados) gravarTexto(conexao, valor);
+                break;
+            }
+            case OP_INSERIR: {
+                int chave = pedido.getInt();
+                int tamanhoValor = pedido.getShort() & 0xFFFF;
+                if (tamanhoValor > TAMANHO_MAXIMO_TEXTO) {
+                    conexao.saida.put(STATUS_ERRO);
+                    break;
+                }
+                byte[] bytes = new byte[tamanhoValor];
+                pedido.get(bytes);
+                arvore.inserirItem(chave, new String(bytes, StandardCharsets.UTF_8)); // Substitui se já existe
+                conexao.saida.put(STATUS_OK);
+                break;
+            }
+            case OP_REMOVER: {
+                boolean removido = arvore.removerItem(pedido.getInt());
+                conexao.saida.put(removido ? STATUS_OK : STATUS_NAO_ENCONTRADO);
+                break;
+            }
+            case OP_INTERVALO: {
+                List<String> valores = arvore.buscarIntervalo(pedido.getInt(), pedido.getInt());
+                conexao.saida.put(STATUS_OK).putInt(valores.size());
+                for (String valor : valores) gravarTexto(conexao, valor);
+                break;
+            }
+            default:
+                conexao.saida.put(STATUS_ERRO);
+        }
+        conexao.saida.putInt(inicioResposta, conexao.saida.position() - inicioResposta - 4);
+    }
+
+    // Codifica o texto direto no buffer de saída, sem criar um byte[] intermediário
+    private void gravarTexto(Conexao conexao, String valor) {
+        if (valor == null) {
+            garantirEspaco(conexao, 2);
+            conexao.saida.putShort((short) TEXTO_AUSENTE);
+            return;
+        }
+        garantirEspaco(conexao, 2 + valor.length() * 3);
+        ByteBuffer saida = conexao.saida;
+        int posicaoTamanho = saida.position();
+        saida.putShort((short) 0);
+        codificador.reset();
+        codificador.encode(CharBuffer.wrap(valor), saida, true);
+        codificador.flush(saida);
+        int tamanho = saida.position() - posicaoTamanho - 2;
+        if (tamanho > TAMANHO_MAXIMO_TEXTO) {
+            // Só acontece com valores gravados na árvore fora do servidor
+            throw new IllegalStateException("Valor grande demais para o protocolo: " + tamanho + " bytes");
+        }
+        saida.putShort(posicaoTamanho, (short) tamanho);
+    }
+
+    private void garantirEspaco(Conexao conexao, int bytes) {
+        if (conexao.saida.remaining() < bytes) {
+            conexao.saida = ampliar(conexao.saida, Math.max(conexao.saida.capacity() * 2, conexao.saida.position() + bytes), true);
+        }
+    }
+
+    // Envia o que o socket aceitar. Uma conexão contida volta a responder aos quadros retidos
+    // assim que a saída desce do limite; enquanto está acima, fica sem OP_READ.
+    private void escrever(SelectionKey chave) throws IOException {
+        Conexao conexao = (Conexao) chave.attachment();
+        while (true) {
+            if (conexao.saida.position() > 0) {
+                conexao.saida.flip();
+                ((SocketChannel) chave.channel()).write(conexao.saida);
+                conexao.saida.compact();
+            }
+            if (!conexao.contida || conexao.saida.position() >= LIMITE_SAIDA_PENDENTE) break;
+            processarQuadros(conexao);
+        }
+        int interesse = conexao.saida.position() >= LIMITE_SAIDA_PENDENTE ? 0 : SelectionKey.OP_READ;
+        if (conexao.saida.position() > 0) interesse |= SelectionKey.OP_WRITE;
+        chave.interestOps(interesse);
+    }
+
+    // Copia o conteúdo (em modo escrita) para um buffer maior
+    private static ByteBuffer ampliar(ByteBuffer antigo, int capacidade, boolean direto) {
+        ByteBuffer novo = direto ? ByteBuffer.allocateDirect(capacidade) : ByteBuffer.allocate(capacidade);
+        antigo.flip();
+        novo.put(antigo);
+        return novo;
+    }
+
+    private void fechar(SelectionKey chave) {
+        chave.cancel();
+        try {
+            chave.channel().close();
+        } catch (IOException e) {
+            // Conexão já encerrada pelo cliente
+        }
+    }
+
+    @Override
+    public void close() {
+        ativo = false;
+        if (executando) {
+            seletor.wakeup(); // A thread do servidor fecha tudo ao sair do laço
+        } else {
+            fecharRecursos();
+        }
+    }
+
+    // Uso: java ServidorIndice [porta] [arquivo]
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        String arquivo = args.length > 1 ? args[1] : "produtos_corrigido.txt";
+        ArvoreBPlus arvore = new ArvoreBPlus(3);
+        for (ItemProduto item : ArvoreBPlus.carregarItensDoArquivo(arquivo)) {
+            arvore.inserirItem(item.obterId(), item.obterInfoParaArvore());
+        }
+        ServidorIndice servidor = new ServidorIndice(arvore, porta);
+        System.out.println("Servidor do índice ouvindo na porta " + servidor.obterPorta());
+        servidor.run();
+    }
+}
@@ -0,0 +1,323 @@
+// SincronizadorCatalogo.java
+// Sincronização incremental do catálogo: acompanha um arquivo de alterações só de acréscimo e
+// aplica na árvore em uso apenas o que foi gravado desde a última vez, em lotes, em vez de
+// recarregar o arquivo de produtos inteiro. Cada linha é uma alteração:
+//   I,<id>,<nome>,<categoria>   insere ou substitui o produto (o nome pode ter vírgulas)
+//   R,<id>                      remove o produto
+// Só linhas completas (terminadas em \n) são consumidas; uma linha ainda sendo escrita fica para
+// a próxima rodada. Ao fim de cada rodada, só a posição já aplicada vai para o ponto de controle
+// (arquivo temporário + force + move atômico). Com exportador, um instantâneo completo da árvore
+// é gravado a cada RODADAS_POR_INSTANTANEO rodadas ou BYTES_POR_INSTANTANEO bytes de alterações,
+// num arquivo à parte que guarda a posição que ele cobre. O instantâneo usa o formato do arquivo
+// de produtos; depois de reiniciar, basta carregá-lo e o sincronizador reaplica o arquivo de
+// alterações a partir da posição dele. close grava um último instantâneo se houver algo depois dele.
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SincronizadorCatalogo implements AutoCloseable {
+    private static final String PREFIXO_POSICAO = "#posicao=";
+    private static final String PREFIXO_INSTANTANEO = "#instantaneo=";
+    private static final int TAMANHO_LEITURA = 64 * 1024;
+    private static final int RODADAS_POR_INSTANTANEO = 16;
+    private static final long BYTES_POR_INSTANTANEO = 4L << 20;
+
+    // Uma alteração do arquivo; info nula indica remoção
+    public static final class Alteracao {
+        private final int id;
+        private final String info;
+
+        Alteracao(int id, String info) {
+            this.id = id;
+            this.info = info;
+        }
+
+        public int obterId() {
+            return id;
+        }
+
+        // Valor no formato de ItemProduto.obterInfoParaArvore, ou null numa remoção
+        public String obterInfo() {
+            return info;
+        }
+
+        public boolean ehRemocao() {
+            return info == null;
+        }
+    }
+
+    // Aplica um lote na árvore. O lote vem ordenado por id, mantendo a ordem do arquivo entre
+    // alterações do mesmo id; a última alteração de cada id é a que vale.
+    public interface Destino {
+        void aplicarLote(List<Alteracao> lote);
+    }
+
+    public interface ConsumidorItem {
+        void aceitar(int id, String info) throws IOException;
+    }
+
+    // Entrega todo o conteúdo atual da árvore, para o instantâneo do ponto de controle
+    public interface Exportador {
+        void exportar(ConsumidorItem saida) throws IOException;
+    }
+
+    private final Path arquivoAlteracoes;
+    private final Path pontoDeControle;
+    private final Path instantaneo;
+    private final int tamanhoLote;
+    private final Destino destino;
+    private final Exportador exportador; // Nulo: sem instantâneos, só a posição
+    private long posicao;                 // Bytes do arquivo de alterações já aplicados
+    private long posicaoInstantaneo;      // Bytes já refletidos no último instantâneo
+    private int rodadasSemInstantaneo;
+    private long alteracoesAplicadas;
+    private long instantaneosGravados;
+    private long linhasInvalidas;
+    private ScheduledExecutorService agendador;
+
+    public SincronizadorCatalogo(Path arquivoAlteracoes, Path pontoDeControle, int tamanhoLote,
+                                 Destino destino, Exportador exportador) throws IOException {
+        this.arquivoAlteracoes = arquivoAlteracoes;
+        this.pontoDeControle = pontoDeControle;
+        this.instantaneo = arquivoInstantaneo(pontoDeControle);
+        this.tamanhoLote = tamanhoLote;
+        this.destino = destino;
+        this.exportador = exportador;
+        // Com exportador, a árvore é recarregada do instantâneo: o que veio depois dele é reaplicado
+        this.posicaoInstantaneo = exportador != null ? lerPosicao(instantaneo) : 0;
+        this.posicao = exportador != null ? posicaoInstantaneo : lerPosicao(pontoDeControle);
+    }
+
+    // Arquivo do instantâneo que acompanha o ponto de controle
+    public static Path arquivoInstantaneo(Path pontoDeControle) {
+        return pontoDeControle.resolveSibling(pontoDeControle.getFileName() + ".instantaneo");
+    }
+
+    // Posição gravada na primeira linha do ponto de controle ou do instantâneo, ou 0 se ele ainda não existe
+    public static long lerPosicao(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        String primeira;
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            primeira = leitor.readLine();
+        }
+        if (primeira == null || !primeira.startsWith(PREFIXO_POSICAO)) {
+            throw new IOException("Arquivo sem posição: " + arquivo);
+        }
+        return Long.parseLong(primeira.substring(PREFIXO_POSICAO.length()).trim());
+    }
+
+    // Aplica tudo o que foi acrescentado desde a última rodada e grava o ponto de controle.
+    // Devolve a quantidade de alterações aplicadas.
+    public synchronized int sincronizar() throws IOException {
+        if (!Files.exists(arquivoAlteracoes)) {
+            return 0;
+        }
+        int aplicadas = 0;
+        long posicaoInicial = posicao;
+        try (FileChannel canal = FileChannel.open(arquivoAlteracoes, StandardOpenOption.READ)) {
+            if (canal.size() < posicao) {
+                throw new IOException("Arquivo de alterações menor que a posição salva (" + canal.size() + " < "
+                        + posicao + "): foi truncado ou substituído");
+            }
+            canal.position(posicao);
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_LEITURA);
+            ByteArrayOutputStream linha = new ByteArrayOutputStream();
+            List<Alteracao> lote = new ArrayList<>(tamanhoLote);
+            long lidoAte = posicao;
+            long fimUltimaLinha = posicao;
+            while (canal.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    lidoAte++;
+                    if (b != '\n') {
+                        linha.write(b);
+                        continue;
+                    }
+                    Alteracao alteracao = interpretar(linha.toString(StandardCharsets.UTF_8));
+                    linha.reset();
+                    fimUltimaLinha = lidoAte;
+                    if (alteracao != null) {
+                        lote.add(alteracao);
+                    }
+                    if (lote.size() == tamanhoLote) {
+                        aplicadas += aplicar(lote, fimUltimaLinha);
+                    }
+                }
+                buffer.clear();
+            }
+            aplicadas += aplicar(lote, fimUltimaLinha);
+        }
+        if (posicao != posicaoInicial) {
+            rodadasSemInstantaneo++;
+            if (exportador != null && (rodadasSemInstantaneo >= RODADAS_POR_INSTANTANEO
+                    || posicao - posicaoInstantaneo >= BYTES_POR_INSTANTANEO)) {
+                salvarInstantaneo();
+            }
+            salvarPontoDeControle();
+        }
+        return aplicadas;
+    }
+
+    private int aplicar(List<Alteracao> lote, long fimDoLote) {
+        int quantidade = lote.size();
+        if (quantidade > 0) {
+            // Ordenação estável: alterações do mesmo id continuam na ordem do arquivo
+            lote.sort(Comparator.comparingInt(Alteracao::obterId));
+            destino.aplicarLote(lote);
+            lote.clear();
+            alteracoesAplicadas += quantidade;
+        }
+        posicao = fimDoLote;
+        return quantidade;
+    }
+
+    private Alteracao interpretar(String linha) {
+        if (linha.endsWith("\r")) {
+            linha = linha.substring(0, linha.length() - 1);
+        }
+        if (linha.isBlank()) {
+            return null;
+        }
+        int virgula = linha.indexOf(',');
+        String tipo = virgula < 0 ? "" : linha.substring(0, virgula).trim();
+        String resto = linha.substring(virgula + 1);
+        try {
+            if (tipo.equals("I")) {
+                // O resto tem o formato do arquivo de produtos; o valor, o de obterInfoParaArvore
+                ItemProduto item = ItemProduto.interpretarLinha(resto);
+                if (item != null) {
+                    return new Alteracao(item.obterId(), item.obterInfoParaArvore());
+                }
+            } else if (tipo.equals("R") && resto.indexOf(',') < 0) {
+                return new Alteracao(Integer.parseInt(resto.trim()), null);
+            }
+        } catch (NumberFormatException e) {
+            // Cai no aviso abaixo
+        }
+        linhasInvalidas++;
+        System.err.println("Linha de alteração ignorada: " + linha);
+        return null;
+    }
+
+    // Só a posição: poucos bytes por rodada
+    private void salvarPontoDeControle() throws IOException {
+        gravarAtomicamente(pontoDeControle, saida -> {
+            saida.write(PREFIXO_POSICAO + posicao + "\n");
+            saida.write(PREFIXO_INSTANTANEO + posicaoInstantaneo + "\n");
+        });
+    }
+
+    // A árvore inteira, com a posição que ela reflete na primeira linha
+    private void salvarInstantaneo() throws IOException {
+        gravarAtomicamente(instantaneo, saida -> {
+            saida.write(PREFIXO_POSICAO + posicao + "\n");
+            exportador.exportar((id, info) -> saida.write(id + "," + info + "\n"));
+        });
+        posicaoInstantaneo = posicao;
+        rodadasSemInstantaneo = 0;
+        instantaneosGravados++;
+    }
+
+    private interface Conteudo {
+        void gravar(Writer saida) throws IOException;
+    }
+
+    // Grava num arquivo temporário, força para o disco e só então substitui o destino,
+    // para que uma queda no meio nunca deixe um arquivo pela metade
+    private static void gravarAtomicamente(Path destino, Conteudo conteudo) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer saida = Channels.newWriter(canal, StandardCharsets.UTF_8);
+            conteudo.gravar(saida);
+            saida.flush();
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Acompanha o arquivo em segundo plano, sincronizando a cada 'periodo'. O destino passa a ser
+    // chamado pela thread do agendador, então precisa ser seguro para isso (por exemplo, uma
+    // ArvoreBPlusBufferizada ou tarefas enviadas a uma ConsultaAssincrona).
+    public synchronized void iniciar(long periodo, TimeUnit unidade) {
+        if (agendador != null) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "sincronizador-catalogo");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                sincronizar();
+            } catch (IOException | RuntimeException e) {
+                // Tenta de novo na próxima rodada, a partir da última posição aplicada
+                System.err.println("Erro ao sincronizar o catálogo: " + e.getMessage());
+            }
+        }, 0, periodo, unidade);
+    }
+
+    public synchronized long obterPosicao() {
+        return posicao;
+    }
+
+    public synchronized long obterAlteracoesAplicadas() {
+        return alteracoesAplicadas;
+    }
+
+    public synchronized long obterLinhasInvalidas() {
+        return linhasInvalidas;
+    }
+
+    public synchronized long obterInstantaneosGravados() {
+        return instantaneosGravados;
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService atual;
+        synchronized (this) {
+            atual = agendador;
+            agendador = null;
+        }
+        if (atual != null) {
+            atual.shutdown();
+            try {
+                atual.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Ao encerrar normalmente, um instantâneo em dia poupa reaplicar o arquivo na próxima partida
+        synchronized (this) {
+            if (exportador != null && posicao != posicaoInstantaneo) {
+                try {
+                    salvarInstantaneo();
+                    salvarPontoDeControle();
+                } catch (IOException e) {
+                    System.err.println("Erro ao gravar o instantâneo do catálogo: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
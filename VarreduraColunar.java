@@ -0,0 +1,243 @@
+// VarreduraColunar.java
+// Varredura de um intervalo de chaves da Árvore B+ pelo encadeamento de folhas, entregando as
+// linhas em lotes colunares (LoteColunar) em vez de uma String por linha. Os agregados prontos
+// (contagem por categoria, histograma de IDs) são laços simples sobre os vetores do lote.
+// Os lotes também podem ser gravados num arquivo colunar compacto e lidos de volta.
+//
+// Arquivo colunar: [int ASSINATURA] e, para cada lote,
+//   [varint quantidade]
+//   [varint novasCategorias][UTF]...   categorias que entram no dicionário neste lote
+//   [varint zigzag(id - idAnterior)]...  IDs como diferenças (idAnterior começa em 0 no lote)
+//   [varint categoria]...
+//   [varint tamanhoNome]...              em chars
+//   [int bytes][nomes concatenados em UTF-8]
+// terminado por [varint 0].
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class VarreduraColunar {
+    public static final int TAMANHO_LOTE_PADRAO = 1024;
+    private static final int ASSINATURA = 0x434F4C31; // "COL1"
+    private static final int MAXIMO_FAIXAS_HISTOGRAMA = 1 << 20;
+
+    public interface ConsumidorLote {
+        void aceitar(LoteColunar lote);
+    }
+
+    // Percorre as chaves em [chaveInicio, chaveFim] em ordem. Sem nomes, o lote só tem IDs e
+    // categorias, o que basta para contagens e evita copiar os caracteres.
+    public static void varrer(ArvoreBPlus arvore, int chaveInicio, int chaveFim, int tamanhoLote, boolean comNomes,
+                              DicionarioCategorias dicionario, ConsumidorLote consumidor) {
+        LoteColunar lote = new LoteColunar(tamanhoLote, comNomes, dicionario);
+        NoFolha folha = arvore.localizarFolha(chaveInicio);
+        percorrer:
+        while (folha != null) {
+            List<Integer> chaves = folha.obterChaves();
+            List<String> valores = folha.obterValores();
+            for (int i = 0; i < chaves.size(); i++) {
+                int chave = chaves.get(i);
+                if (chave < chaveInicio) continue;
+                if (chave > chaveFim) break percorrer;
+                lote.adicionar(chave, valores.get(i));
+                if (lote.estaCheio()) {
+                    consumidor.aceitar(lote);
+                    lote.limpar();
+                }
+            }
+            folha = folha.obterProximo();
+        }
+        if (lote.obterQuantidade() > 0) {
+            consumidor.aceitar(lote);
+        }
+    }
+
+    // --- AGREGADOS ---
+
+    // Contagem por código de categoria; o índice do vetor é o código no dicionário
+    private static final class ContagemCategorias implements ConsumidorLote {
+        long[] contagens = new long[16];
+
+        @Override
+        public void aceitar(LoteColunar lote) {
+            int quantidadeCategorias = lote.obterDicionario().obterQuantidade();
+            if (quantidadeCategorias > contagens.length) {
+                contagens = Arrays.copyOf(contagens, Math.max(quantidadeCategorias, contagens.length * 2));
+            }
+            int[] categorias = lote.obterCategorias();
+            long[] acumulado = contagens;
+            for (int i = 0, n = lote.obterQuantidade(); i < n; i++) {
+                acumulado[categorias[i]]++;
+            }
+        }
+    }
+
+    public static long[] contarPorCodigoDeCategoria(ArvoreBPlus arvore, int chaveInicio, int chaveFim,
+                                                    DicionarioCategorias dicionario) {
+        ContagemCategorias contagem = new ContagemCategorias();
+        varrer(arvore, chaveInicio, chaveFim, TAMANHO_LOTE_PADRAO, false, dicionario, contagem);
+        return Arrays.copyOf(contagem.contagens, dicionario.obterQuantidade());
+    }
+
+    // Quantidade de produtos por categoria, em ordem alfabética de categoria
+    public static Map<String, Long> contarPorCategoria(ArvoreBPlus arvore, int chaveInicio, int chaveFim) {
+        DicionarioCategorias dicionario = new DicionarioCategorias();
+        long[] contagens = contarPorCodigoDeCategoria(arvore, chaveInicio, chaveFim, dicionario);
+        Map<String, Long> resultado = new TreeMap<>();
+        for (int codigo = 0; codigo < contagens.length; codigo++) {
+            resultado.put(dicionario.obterCategoria(codigo), contagens[codigo]);
+        }
+        return resultado;
+    }
+
+    // Histograma dos IDs em [chaveInicio, chaveFim] com faixas de 'largura' IDs
+    public static long[] histogramaIds(ArvoreBPlus arvore, int chaveInicio, int chaveFim, int largura) {
+        if (largura <= 0) {
+            throw new IllegalArgumentException("Largura de faixa inválida: " + largura);
+        }
+        if (chaveFim < chaveInicio) {
+            throw new IllegalArgumentException("Intervalo inválido: [" + chaveInicio + ", " + chaveFim + "]");
+        }
+        long quantidadeFaixas = ((long) chaveFim - chaveInicio) / largura + 1;
+        if (quantidadeFaixas > MAXIMO_FAIXAS_HISTOGRAMA) {
+            throw new IllegalArgumentException("Faixas demais para o histograma: " + quantidadeFaixas
+                    + " (máximo " + MAXIMO_FAIXAS_HISTOGRAMA + "); use uma largura maior");
+        }
+        long[] faixas = new long[(int) quantidadeFaixas];
+        varrer(arvore, chaveInicio, chaveFim, TAMANHO_LOTE_PADRAO, false, new DicionarioCategorias(), lote -> {
+            int[] ids = lote.obterIds();
+            for (int i = 0, n = lote.obterQuantidade(); i < n; i++) {
+                faixas[(int) (((long) ids[i] - chaveInicio) / largura)]++;
+            }
+        });
+        return faixas;
+    }
+
+    // --- ARQUIVO COLUNAR ---
+
+    // Grava o intervalo no arquivo colunar; devolve a quantidade de linhas gravadas
+    public static long exportar(ArvoreBPlus arvore, int chaveInicio, int chaveFim, Path arquivo) throws IOException {
+        try (EscritorColunar escritor = new EscritorColunar(arquivo)) {
+            varrer(arvore, chaveInicio, chaveFim, TAMANHO_LOTE_PADRAO, true, new DicionarioCategorias(), escritor);
+            return escritor.linhas;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class EscritorColunar implements ConsumidorLote, AutoCloseable {
+        private final DataOutputStream saida;
+        private int categoriasGravadas;
+        private long linhas;
+
+        EscritorColunar(Path arquivo) throws IOException {
+            saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(arquivo)));
+            saida.writeInt(ASSINATURA);
+        }
+
+        @Override
+        public void aceitar(LoteColunar lote) {
+            try {
+                int n = lote.obterQuantidade();
+                DicionarioCategorias dicionario = lote.obterDicionario();
+                gravarVarint(saida, n);
+                gravarVarint(saida, dicionario.obterQuantidade() - categoriasGravadas);
+                for (; categoriasGravadas < dicionario.obterQuantidade(); categoriasGravadas++) {
+                    saida.writeUTF(dicionario.obterCategoria(categoriasGravadas));
+                }
+                int anterior = 0;
+                for (int i = 0; i < n; i++) {
+                    int diferenca = lote.ids[i] - anterior; // Estouro proposital: a leitura desfaz na mesma aritmética
+                    gravarVarint(saida, (diferenca << 1) ^ (diferenca >> 31));
+                    anterior = lote.ids[i];
+                }
+                for (int i = 0; i < n; i++) {
+                    gravarVarint(saida, lote.categorias[i]);
+                }
+                for (int i = 0; i < n; i++) {
+                    gravarVarint(saida, lote.inicioNome[i + 1] - lote.inicioNome[i]);
+                }
+                byte[] nomes = new String(lote.nomes, 0, lote.inicioNome[n]).getBytes(StandardCharsets.UTF_8);
+                saida.writeInt(nomes.length);
+                saida.write(nomes);
+                linhas += n;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            gravarVarint(saida, 0);
+            saida.close();
+        }
+    }
+
+    // Lê o arquivo colunar entregando os lotes ao consumidor; devolve o dicionário completo
+    public static DicionarioCategorias ler(Path arquivo, ConsumidorLote consumidor) throws IOException {
+        DicionarioCategorias dicionario = new DicionarioCategorias();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            if (entrada.readInt() != ASSINATURA) {
+                throw new IOException("Arquivo colunar inválido: " + arquivo);
+            }
+            LoteColunar lote = null;
+            int quantidade;
+            while ((quantidade = lerVarint(entrada)) > 0) {
+                if (lote == null || quantidade > lote.ids.length) {
+                    lote = new LoteColunar(Math.max(quantidade, TAMANHO_LOTE_PADRAO), true, dicionario);
+                }
+                for (int novas = lerVarint(entrada); novas > 0; novas--) {
+                    dicionario.codificar(entrada.readUTF());
+                }
+                int anterior = 0;
+                for (int i = 0; i < quantidade; i++) {
+                    int zigzag = lerVarint(entrada);
+                    anterior += (zigzag >>> 1) ^ -(zigzag & 1);
+                    lote.ids[i] = anterior;
+                }
+                for (int i = 0; i < quantidade; i++) {
+                    lote.categorias[i] = lerVarint(entrada);
+                }
+                for (int i = 0; i < quantidade; i++) {
+                    lote.inicioNome[i + 1] = lote.inicioNome[i] + lerVarint(entrada);
+                }
+                byte[] bytesNomes = new byte[entrada.readInt()];
+                entrada.readFully(bytesNomes);
+                String nomes = new String(bytesNomes, StandardCharsets.UTF_8);
+                lote.garantirEspacoNomes(nomes.length());
+                nomes.getChars(0, nomes.length(), lote.nomes, 0);
+                lote.quantidade = quantidade;
+                consumidor.aceitar(lote);
+            }
+        }
+        return dicionario;
+    }
+
+    private static void gravarVarint(DataOutputStream saida, int valor) throws IOException {
+        while ((valor & ~0x7F) != 0) {
+            saida.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.writeByte(valor);
+    }
+
+    private static int lerVarint(DataInputStream entrada) throws IOException {
+        int valor = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            int b = entrada.readUnsignedByte();
+            valor |= (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) return valor;
+        }
+    }
+}
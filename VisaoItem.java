@@ -0,0 +1,150 @@
+// VisaoItem.java
+// Visão reaproveitável de um item guardado numa árvore, entregue aos visitantes de visitarItem e
+// visitarIntervalo: aponta para a chave e para o próprio valor ("nome, categoria") guardado no nó,
+// sem copiar nada. Nome e categoria são trechos do valor, e o código da categoria vem de um
+// DicionarioCategorias, que só cria uma String quando aparece uma categoria nova. Assim uma
+// busca ou varredura pelos visitantes não aloca nada depois que o dicionário conhece as categorias.
+//
+// A visão só vale durante a chamada do visitante. Cada thread deve ter a sua (e o seu dicionário,
+// a não ser que ele já conheça todas as categorias).
+
+import java.util.Arrays;
+
+public final class VisaoItem {
+    public interface Visitante {
+        // Devolve false para interromper a varredura
+        boolean aceitar(VisaoItem item);
+    }
+
+    private static final int SEPARADOR_NAO_CALCULADO = -2;
+
+    private final DicionarioCategorias dicionario; // Nulo: sem códigos de categoria
+    private int chave;
+    private String valor;
+    private int separador; // Posição de ", " antes da categoria, -1 se não há, calculada na primeira consulta
+    private int entregues;  // Itens entregues desde iniciarContagem
+    private boolean interrompida; // O visitante devolveu false desde iniciarContagem
+    // Itens lidos de um nó e ainda não conferidos pelos leitores concorrentes: só são entregues
+    // depois que a versão do nó confere
+    private int[] chavesLidas = new int[16];
+    private String[] valoresLidos = new String[16];
+    private int quantidadeLida;
+
+    public VisaoItem(DicionarioCategorias dicionario) {
+        this.dicionario = dicionario;
+    }
+
+    public VisaoItem() {
+        this(null);
+    }
+
+    public int obterChave() {
+        return chave;
+    }
+
+    // O próprio objeto guardado no nó, não uma cópia
+    public String obterValor() {
+        return valor;
+    }
+
+    // O nome é valor[0, obterFimNome())
+    public int obterFimNome() {
+        int posicao = localizarSeparador();
+        return posicao >= 0 ? posicao : valor.length();
+    }
+
+    // A categoria é valor[obterInicioCategoria(), valor.length())
+    public int obterInicioCategoria() {
+        int posicao = localizarSeparador();
+        return posicao >= 0 ? posicao + 2 : valor.length();
+    }
+
+    // Copia o nome para 'destino' a partir de 'posicao' e devolve quantos chars copiou
+    public int copiarNome(char[] destino, int posicao) {
+        int fimNome = obterFimNome();
+        valor.getChars(0, fimNome, destino, posicao);
+        return fimNome;
+    }
+
+    public boolean categoriaIgual(String categoria) {
+        int inicio = obterInicioCategoria();
+        return valor.length() - inicio == categoria.length() && valor.regionMatches(inicio, categoria, 0, categoria.length());
+    }
+
+    public int obterCodigoCategoria() {
+        if (dicionario == null) {
+            throw new IllegalStateException("Visão criada sem dicionário de categorias");
+        }
+        return dicionario.codificar(valor, obterInicioCategoria(), valor.length());
+    }
+
+    public DicionarioCategorias obterDicionario() {
+        return dicionario;
+    }
+
+    private int localizarSeparador() {
+        if (separador == SEPARADOR_NAO_CALCULADO) {
+            separador = valor.lastIndexOf(", ");
+        }
+        return separador;
+    }
+
+    @Override
+    public String toString() {
+        return chave + " -> " + valor;
+    }
+
+    // --- USO PELAS ÁRVORES ---
+
+    void iniciarContagem() {
+        entregues = 0;
+        interrompida = false;
+        quantidadeLida = 0;
+    }
+
+    int obterEntregues() {
+        return entregues;
+    }
+
+    boolean foiInterrompida() {
+        return interrompida;
+    }
+
+    // Aponta para o item e chama o visitante; devolve o que ele devolveu
+    boolean entregar(int chave, String valor, Visitante visitante) {
+        this.chave = chave;
+        this.valor = valor;
+        this.separador = SEPARADOR_NAO_CALCULADO;
+        entregues++;
+        if (!visitante.aceitar(this)) {
+            interrompida = true;
+        }
+        return !interrompida;
+    }
+
+    void guardarLido(int chave, String valor) {
+        if (quantidadeLida == chavesLidas.length) {
+            chavesLidas = Arrays.copyOf(chavesLidas, quantidadeLida * 2);
+            valoresLidos = Arrays.copyOf(valoresLidos, quantidadeLida * 2);
+        }
+        chavesLidas[quantidadeLida] = chave;
+        valoresLidos[quantidadeLida] = valor;
+        quantidadeLida++;
+    }
+
+    void descartarLidos() {
+        Arrays.fill(valoresLidos, 0, quantidadeLida, null);
+        quantidadeLida = 0;
+    }
+
+    // Entrega os itens lidos, já conferidos; false se o visitante interrompeu
+    boolean entregarLidos(Visitante visitante) {
+        int quantidade = quantidadeLida;
+        boolean continuar = true;
+        for (int i = 0; i < quantidade && continuar; i++) {
+            continuar = entregar(chavesLidas[i], valoresLidos[i], visitante);
+        }
+        descartarLidos();
+        return continuar;
+    }
+}